@@ -0,0 +1,105 @@
+package com.acheron.authserver.jmh;
+
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationAttributeCodec;
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationMappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of the {@code attributes} and access-token metadata columns, legacy
+ * polymorphic JSON against {@link OAuth2AuthorizationAttributeCodec}. Bytes per row — the attribute
+ * column plus every token metadata column of one issued grant — are printed at setup.
+ * <p>
+ * {@code ./gradlew jmh -PjmhIncludes=AuthorizationCodecBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizationCodecBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    @Param({"json", "compact"})
+    public String format;
+
+    private JsonMapper jsonMapper;
+    private OAuth2AuthorizationAttributeCodec codec;
+
+    private Map<String, Object> attributes;
+    private Map<String, Object> accessTokenMetadata;
+    private byte[] encodedAttributes;
+    private byte[] encodedAccessTokenMetadata;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = OAuth2AuthorizationMappers.jsonMapper();
+        codec = new OAuth2AuthorizationAttributeCodec(jsonMapper, OAuth2AuthorizationMappers.smileMapper());
+
+        OAuth2Authorization authorization = AuthorizationFixtures.authorization(
+                AuthorizationFixtures.client(), AuthorizationFixtures.user());
+        attributes = authorization.getAttributes();
+        accessTokenMetadata = authorization.getToken(OAuth2AccessToken.class).getMetadata();
+        encodedAttributes = encode(attributes);
+        encodedAccessTokenMetadata = encode(accessTokenMetadata);
+
+        int bytesPerRow = encodedAttributes.length;
+        for (var tokenClass : List.of(OAuth2AuthorizationCode.class, OAuth2AccessToken.class,
+                OidcIdToken.class, OAuth2RefreshToken.class)) {
+            bytesPerRow += encode(authorization.getToken(tokenClass).getMetadata()).length;
+        }
+        System.out.printf("%n[%s] bytes per row: %d (attributes %d, access token metadata %d)%n",
+                format, bytesPerRow, encodedAttributes.length, encodedAccessTokenMetadata.length);
+    }
+
+    @Benchmark
+    public byte[] encodeAttributes() {
+        return encode(attributes);
+    }
+
+    @Benchmark
+    public Map<String, Object> decodeAttributes() {
+        return decode(encodedAttributes);
+    }
+
+    @Benchmark
+    public byte[] encodeAccessTokenMetadata() {
+        return encode(accessTokenMetadata);
+    }
+
+    @Benchmark
+    public Map<String, Object> decodeAccessTokenMetadata() {
+        return decode(encodedAccessTokenMetadata);
+    }
+
+    private byte[] encode(Map<String, Object> values) {
+        return "json".equals(format) ? jsonMapper.writeValueAsBytes(values) : codec.encode(values);
+    }
+
+    private Map<String, Object> decode(byte[] data) {
+        return "json".equals(format) ? jsonMapper.readValue(data, MAP_TYPE) : codec.decode(data);
+    }
+}
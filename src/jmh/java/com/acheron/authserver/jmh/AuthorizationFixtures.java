@@ -0,0 +1,182 @@
+package com.acheron.authserver.jmh;
+
+import com.acheron.authserver.config.CustomWebAuthenticationDetails;
+import com.acheron.authserver.dto.util.UserClaims;
+import com.acheron.authserver.entity.Role;
+import com.acheron.authserver.entity.User;
+import com.acheron.authserver.repository.UserRepository;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcScopes;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.lang.reflect.Proxy;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A fully issued authorization-code grant shaped like the ones this server stores:
+ * form-login principal, PKCE request, access, ID and refresh tokens with their claims — plus
+ * in-memory stand-ins for the repositories and JDBC rows the measured code reads from.
+ */
+final class AuthorizationFixtures {
+
+    static final String ISSUER = "http://localhost:9000";
+
+    private AuthorizationFixtures() {
+    }
+
+    static RegisteredClient client() {
+        return RegisteredClient.withId("gateway-client-id")
+                .clientId("gateway-client")
+                .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .authorizationGrantType(AuthorizationGrantType.REFRESH_TOKEN)
+                .redirectUri("http://localhost:8080/login/oauth2/code/gateway")
+                .scope(OidcScopes.OPENID)
+                .scope(OidcScopes.PROFILE)
+                .build();
+    }
+
+    static User user() {
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .email("alice@example.com")
+                .username("alice")
+                .role(Role.USER)
+                .build();
+        user.setCreatedAt(Instant.now());
+        user.setUpdatedAt(Instant.now());
+        return user;
+    }
+
+    static OAuth2Authorization authorization(RegisteredClient client, User user) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(Duration.ofMinutes(5));
+
+        UsernamePasswordAuthenticationToken principal =
+                UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+        principal.setDetails(new CustomWebAuthenticationDetails("10.0.0.1", "6F1C0E4B9A7D2E35", null));
+
+        OAuth2AuthorizationRequest request = OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri(ISSUER + "/oauth2/authorize")
+                .clientId(client.getClientId())
+                .redirectUri(client.getRedirectUris().iterator().next())
+                .scopes(client.getScopes())
+                .state("mXk3Vb8zQw2sT9eL0pR4nYhC6uA1dF7g")
+                .additionalParameters(Map.of(
+                        "code_challenge", "E9Melhoa2OwvFrEMTJguCHaoeK1t8URWbuGJSstw-cM",
+                        "code_challenge_method", "S256",
+                        "nonce", "n-0S6_WzA2Mj"))
+                .build();
+
+        Map<String, Object> accessClaims = new LinkedHashMap<>();
+        accessClaims.put("iss", issuer());
+        accessClaims.put("sub", user.getUsername());
+        accessClaims.put("aud", List.of(client.getClientId()));
+        accessClaims.put("nbf", now);
+        accessClaims.put("scope", List.copyOf(client.getScopes()));
+        accessClaims.put("exp", expiresAt);
+        accessClaims.put("iat", now);
+        accessClaims.put("jti", UUID.randomUUID().toString());
+        accessClaims.put("user_id", user.getId().toString());
+        accessClaims.put("roles", user.getRole().name());
+        accessClaims.put("token_version", user.getTokenVersion().toString());
+
+        Map<String, Object> idClaims = new LinkedHashMap<>();
+        idClaims.put("iss", issuer());
+        idClaims.put("sub", user.getUsername());
+        idClaims.put("aud", List.of(client.getClientId()));
+        idClaims.put("azp", client.getClientId());
+        idClaims.put("exp", expiresAt);
+        idClaims.put("iat", now);
+        idClaims.put("auth_time", now);
+        idClaims.put("nonce", "n-0S6_WzA2Mj");
+        idClaims.put("sid", "Yl3nQm1cU0p8vYhS2dT7");
+
+        return OAuth2Authorization.withRegisteredClient(client)
+                .id(UUID.randomUUID().toString())
+                .principalName(user.getUsername())
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .authorizedScopes(client.getScopes())
+                .attribute(Principal.class.getName(), principal)
+                .attribute(OAuth2AuthorizationRequest.class.getName(), request)
+                .attribute("token_version", user.getTokenVersion().toString())
+                .token(new OAuth2AuthorizationCode("code-" + UUID.randomUUID(), now, expiresAt),
+                        metadata -> metadata.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+                .token(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access-" + UUID.randomUUID(),
+                                now, expiresAt, client.getScopes()),
+                        metadata -> metadata.put(OAuth2Authorization.Token.CLAIMS_METADATA_NAME, accessClaims))
+                .token(new OidcIdToken("id-" + UUID.randomUUID(), now, expiresAt, idClaims),
+                        metadata -> metadata.put(OAuth2Authorization.Token.CLAIMS_METADATA_NAME, idClaims))
+                .refreshToken(new OAuth2RefreshToken("refresh-" + UUID.randomUUID(), now, now.plus(Duration.ofDays(1))))
+                .build();
+    }
+
+    /**
+     * A {@link UserRepository} that knows exactly one user. Only the lookups on the token path are
+     * answered; anything else fails loudly so a benchmark cannot silently measure a stub.
+     */
+    static UserRepository userRepository(User user) {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findTokenVersionByUsername" -> user.getUsername().equals(args[0])
+                            ? Optional.of(user.getTokenVersion())
+                            : Optional.empty();
+                    case "findClaimsByUsername" -> user.getUsername().equals(args[0])
+                            ? Optional.of(new UserClaims(user.getId(), user.getUsername(), user.getRole(), user.getTokenVersion()))
+                            : Optional.empty();
+                    case "findByUsername" -> user.getUsername().equals(args[0]) ? Optional.of(user) : Optional.empty();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryUserRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * A single-row {@link ResultSet} over {@code columns}, read by label the way the authorization
+     * row mappers do. Text and binary columns convert into each other as the JDBC driver would.
+     */
+    static ResultSet resultSet(Map<String, Object> columns) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    Object value = args != null && args.length == 1 && args[0] instanceof String column
+                            ? columns.get(column)
+                            : null;
+                    return switch (method.getName()) {
+                        case "getString" -> value instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : value;
+                        case "getBytes" -> value instanceof String text ? text.getBytes(StandardCharsets.UTF_8) : value;
+                        case "getTimestamp", "getObject" -> value;
+                        case "wasNull" -> false;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+
+    private static URL issuer() {
+        try {
+            return URI.create(ISSUER).toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
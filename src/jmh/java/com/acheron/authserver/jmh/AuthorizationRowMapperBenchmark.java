@@ -0,0 +1,138 @@
+package com.acheron.authserver.jmh;
+
+import com.acheron.authserver.config.authorization.CompactOAuth2AuthorizationParametersMapper;
+import com.acheron.authserver.config.authorization.CompactOAuth2AuthorizationRowMapper;
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationAttributeCodec;
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationMappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cost of turning one {@code oauth2_authorization} row into an {@link OAuth2Authorization} — the
+ * work behind every {@code findByToken} miss — and of the reverse, for the stock JSON mappers
+ * against the compact codec mappers, the latter on rows that carry only the compact columns, as
+ * written once {@code app.authorization.postgres.write-json-columns} is off. Rows come from an
+ * in-memory {@link ResultSet}.
+ * <p>
+ * {@code ./gradlew jmh -PjmhIncludes=AuthorizationRowMapperBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizationRowMapperBenchmark {
+
+    private static final List<String> COLUMNS = List.of(
+            "id", "registered_client_id", "principal_name", "authorization_grant_type",
+            "authorized_scopes", "attributes", "state",
+            "authorization_code_value", "authorization_code_issued_at", "authorization_code_expires_at", "authorization_code_metadata",
+            "access_token_value", "access_token_issued_at", "access_token_expires_at", "access_token_metadata",
+            "access_token_type", "access_token_scopes",
+            "oidc_id_token_value", "oidc_id_token_issued_at", "oidc_id_token_expires_at", "oidc_id_token_metadata",
+            "refresh_token_value", "refresh_token_issued_at", "refresh_token_expires_at", "refresh_token_metadata",
+            "user_code_value", "user_code_issued_at", "user_code_expires_at", "user_code_metadata",
+            "device_code_value", "device_code_issued_at", "device_code_expires_at", "device_code_metadata");
+
+    private static final List<String> COMPACT_COLUMNS = List.of(
+            "id", "registered_client_id", "principal_name", "authorization_grant_type",
+            "authorized_scopes", "attributes", "attributes_compact", "state",
+            "authorization_code_value", "authorization_code_issued_at", "authorization_code_expires_at",
+            "authorization_code_metadata", "authorization_code_metadata_compact",
+            "access_token_value", "access_token_issued_at", "access_token_expires_at",
+            "access_token_metadata", "access_token_metadata_compact", "access_token_type", "access_token_scopes",
+            "oidc_id_token_value", "oidc_id_token_issued_at", "oidc_id_token_expires_at",
+            "oidc_id_token_metadata", "oidc_id_token_metadata_compact",
+            "refresh_token_value", "refresh_token_issued_at", "refresh_token_expires_at",
+            "refresh_token_metadata", "refresh_token_metadata_compact",
+            "user_code_value", "user_code_issued_at", "user_code_expires_at",
+            "user_code_metadata", "user_code_metadata_compact",
+            "device_code_value", "device_code_issued_at", "device_code_expires_at",
+            "device_code_metadata", "device_code_metadata_compact");
+
+    @Param({"json", "compact"})
+    public String format;
+
+    private OAuth2Authorization authorization;
+    private RowMapper<OAuth2Authorization> rowMapper;
+    private Function<OAuth2Authorization, List<SqlParameterValue>> parametersMapper;
+    private ResultSet row;
+
+    @Setup
+    public void setUp() {
+        RegisteredClient client = AuthorizationFixtures.client();
+        RegisteredClientRepository clients = new InMemoryRegisteredClientRepository(client);
+        JsonMapper jsonMapper = OAuth2AuthorizationMappers.jsonMapper();
+        if ("json".equals(format)) {
+            // the stock mappers read column types the service looks up once, on construction
+            new JdbcOAuth2AuthorizationService(textColumns(), clients);
+            rowMapper = new JdbcOAuth2AuthorizationService.JsonMapperOAuth2AuthorizationRowMapper(clients, jsonMapper);
+            parametersMapper = new JdbcOAuth2AuthorizationService.JsonMapperOAuth2AuthorizationParametersMapper(jsonMapper);
+        } else {
+            OAuth2AuthorizationAttributeCodec codec =
+                    new OAuth2AuthorizationAttributeCodec(jsonMapper, OAuth2AuthorizationMappers.smileMapper());
+            rowMapper = new CompactOAuth2AuthorizationRowMapper(clients, codec);
+            parametersMapper = new CompactOAuth2AuthorizationParametersMapper(codec, false);
+        }
+
+        authorization = AuthorizationFixtures.authorization(client, AuthorizationFixtures.user());
+        List<SqlParameterValue> parameters = parametersMapper.apply(authorization);
+        List<String> names = "json".equals(format) ? COLUMNS : COMPACT_COLUMNS;
+        Map<String, Object> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i), parameters.get(i).getValue());
+        }
+        row = AuthorizationFixtures.resultSet(columns);
+    }
+
+    @Benchmark
+    public OAuth2Authorization mapRow() throws SQLException {
+        return rowMapper.mapRow(row, 0);
+    }
+
+    @Benchmark
+    public List<SqlParameterValue> mapParameters() {
+        return parametersMapper.apply(authorization);
+    }
+
+    /** Reports every column as text, as the attribute and metadata columns the stock mappers use are. */
+    private static JdbcOperations textColumns() {
+        return (JdbcOperations) Proxy.newProxyInstance(JdbcOperations.class.getClassLoader(),
+                new Class<?>[]{JdbcOperations.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("execute") && args[0] instanceof ConnectionCallback<?>) {
+                        return Types.VARCHAR;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,59 @@
+package com.acheron.authserver.jmh;
+
+import com.acheron.authserver.config.client.CachingClientSecretEncoder;
+import com.acheron.authserver.config.client.ClientSecretVerificationCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client secret checks per second for a confidential client presenting the same secret on every
+ * request, with the BCrypt encoder alone and with {@link CachingClientSecretEncoder} in front of it.
+ * <p>
+ * {@code ./gradlew jmh -PjmhIncludes=ClientSecretVerificationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientSecretVerificationBenchmark {
+
+    @Param({"BCryptPasswordEncoder", "CachingClientSecretEncoder"})
+    public String encoder;
+
+    private PasswordEncoder passwordEncoder;
+    private String encodedSecret;
+
+    @Setup
+    public void setUp() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+        encodedSecret = bcrypt.encode("gateway-secret");
+        passwordEncoder = switch (encoder) {
+            case "BCryptPasswordEncoder" -> bcrypt;
+            case "CachingClientSecretEncoder" -> new CachingClientSecretEncoder(bcrypt,
+                    new ClientSecretVerificationCache(new SimpleMeterRegistry(), 1000, Duration.ofMinutes(10)));
+            default -> throw new IllegalArgumentException(encoder);
+        };
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches("gateway-secret", encodedSecret);
+    }
+}
@@ -0,0 +1,106 @@
+package com.acheron.authserver.jmh;
+
+import com.acheron.authserver.config.jwk.Ed25519JwsVerifierFactory;
+import com.acheron.authserver.config.jwk.JwkSigningAlgorithm;
+import com.acheron.authserver.config.jwk.KeyRingJwsKeySelector;
+import com.acheron.authserver.config.jwk.KeyRingJwtEncoder;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jose.jws.JwsAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing and verification throughput per {@link JwkSigningAlgorithm}, for an access token with
+ * the claims the server adds. The compact token size is printed once
+ * per fork.
+ * <p>
+ * {@code ./gradlew jmh -PjmhIncludes=SigningAlgorithmBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningAlgorithmBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    public String algorithm;
+
+    private JwtEncoder encoder;
+    private JwtDecoder decoder;
+    private JwtEncoderParameters parameters;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwkSigningAlgorithm signingAlgorithm = JwkSigningAlgorithm.from(algorithm);
+        JWK key = signingAlgorithm.generate("benchmark");
+        JWKSource<SecurityContext> jwkSource = new ImmutableJWKSet<>(new JWKSet(key));
+        encoder = new KeyRingJwtEncoder(alg -> key);
+        decoder = NimbusJwtDecoder.withJwkSource(jwkSource)
+                .jwtProcessorCustomizer(processor -> {
+                    processor.setJWSKeySelector(new KeyRingJwsKeySelector(jwkSource, Set.of(signingAlgorithm.jwsAlgorithm())));
+                    processor.setJWSVerifierFactory(new Ed25519JwsVerifierFactory());
+                })
+                .build();
+        parameters = parameters(signingAlgorithm);
+        token = encoder.encode(parameters).getTokenValue();
+        System.out.printf("%n%s token: %d bytes%n", algorithm, token.length());
+    }
+
+    @Benchmark
+    public Jwt sign() {
+        return encoder.encode(parameters);
+    }
+
+    @Benchmark
+    public Jwt verify() {
+        return decoder.decode(token);
+    }
+
+    private static JwtEncoderParameters parameters(JwsAlgorithm algorithm) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(AuthorizationFixtures.ISSUER)
+                .subject("alice")
+                .audience(List.of("gateway-client"))
+                .issuedAt(now)
+                .notBefore(now)
+                // decoding validates the expiry, so keep the token valid for the whole run
+                .expiresAt(now.plusSeconds(3600))
+                .id(UUID.randomUUID().toString())
+                .claim("scope", List.of("openid", "profile", "email"))
+                .claim("user_id", UUID.randomUUID().toString())
+                .claim("roles", "USER")
+                .claim("token_version", UUID.randomUUID().toString())
+                .build();
+        return JwtEncoderParameters.from(JwsHeader.with(algorithm).build(), claims);
+    }
+}
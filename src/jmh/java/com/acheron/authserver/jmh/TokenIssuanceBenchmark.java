@@ -0,0 +1,153 @@
+package com.acheron.authserver.jmh;
+
+import com.acheron.authserver.config.OAuth2PublicClientRefreshTokenGenerator;
+import com.acheron.authserver.config.Oauth2AccessTokenCustomizer;
+import com.acheron.authserver.config.claims.UserIdentityClaimContributor;
+import com.acheron.authserver.config.jwk.JwkSigningAlgorithm;
+import com.acheron.authserver.config.jwk.KeyRingJwtEncoder;
+import com.acheron.authserver.entity.User;
+import com.acheron.authserver.repository.UserRepository;
+import com.acheron.authserver.service.TokenVersionResolver;
+import com.acheron.authserver.service.UserClaimsResolver;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.context.AuthorizationServerContext;
+import org.springframework.security.oauth2.server.authorization.settings.AuthorizationServerSettings;
+import org.springframework.security.oauth2.server.authorization.token.DefaultOAuth2TokenContext;
+import org.springframework.security.oauth2.server.authorization.token.JwtGenerator;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenContext;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-token cost of minting: an access token and an ID token through {@link JwtGenerator} with
+ * {@link Oauth2AccessTokenCustomizer} (RS256, 2048-bit key, as the server signs by default), and a
+ * public-client refresh token through {@link OAuth2PublicClientRefreshTokenGenerator}. The JWTs
+ * are signed by the server's {@link KeyRingJwtEncoder} or, for comparison, by
+ * {@link NimbusJwtEncoder}. The principal is the form-login {@link User}, whose claims come from
+ * the warm claims and token version caches, so only CPU work is measured.
+ * <p>
+ * {@code ./gradlew jmh -PjmhIncludes=TokenIssuanceBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenIssuanceBenchmark {
+
+    @Param({"KeyRingJwtEncoder", "NimbusJwtEncoder"})
+    public String encoder;
+
+    private JwtGenerator jwtGenerator;
+    private OAuth2PublicClientRefreshTokenGenerator refreshTokenGenerator;
+
+    private OAuth2TokenContext accessTokenContext;
+    private OAuth2TokenContext idTokenContext;
+    private OAuth2TokenContext refreshTokenContext;
+
+    @Setup
+    public void setUp() throws Exception {
+        JWK key = JwkSigningAlgorithm.RS256.generate("benchmark");
+        jwtGenerator = new JwtGenerator(encoder.equals("NimbusJwtEncoder")
+                ? new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(key)))
+                : new KeyRingJwtEncoder(algorithm -> key));
+        User user = AuthorizationFixtures.user();
+        UserRepository userRepository = AuthorizationFixtures.userRepository(user);
+        TokenVersionResolver tokenVersionResolver = new TokenVersionResolver(userRepository,
+                new StringRedisTemplate(), new RedisMessageListenerContainer(), new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(5));
+        jwtGenerator.setJwtCustomizer(new Oauth2AccessTokenCustomizer(
+                new UserClaimsResolver(userRepository, tokenVersionResolver, new SimpleMeterRegistry(), 1000, Duration.ofMinutes(5)),
+                List.of(new UserIdentityClaimContributor())));
+        refreshTokenGenerator = new OAuth2PublicClientRefreshTokenGenerator();
+
+        RegisteredClient client = AuthorizationFixtures.client();
+        OAuth2Authorization authorization = AuthorizationFixtures.authorization(client, user);
+        accessTokenContext = context(client, authorization, OAuth2TokenType.ACCESS_TOKEN);
+        idTokenContext = context(client, authorization, new OAuth2TokenType(OidcParameterNames.ID_TOKEN));
+
+        RegisteredClient publicClient = RegisteredClient.from(client)
+                .clientAuthenticationMethods(methods -> {
+                    methods.clear();
+                    methods.add(ClientAuthenticationMethod.NONE);
+                })
+                .build();
+        refreshTokenContext = context(publicClient, authorization, OAuth2TokenType.REFRESH_TOKEN);
+    }
+
+    @Benchmark
+    public Jwt accessToken() {
+        return jwtGenerator.generate(accessTokenContext);
+    }
+
+    @Benchmark
+    public Jwt idToken() {
+        return jwtGenerator.generate(idTokenContext);
+    }
+
+    @Benchmark
+    public OAuth2RefreshToken publicClientRefreshToken() {
+        return refreshTokenGenerator.generate(refreshTokenContext);
+    }
+
+    private static OAuth2TokenContext context(RegisteredClient client, OAuth2Authorization authorization,
+                                              OAuth2TokenType tokenType) {
+        Authentication principal = authorization.getAttribute(Principal.class.getName());
+        return DefaultOAuth2TokenContext.builder()
+                .registeredClient(client)
+                .principal(principal)
+                .authorizationServerContext(serverContext())
+                .authorization(authorization)
+                .authorizedScopes(authorization.getAuthorizedScopes())
+                .tokenType(tokenType)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .build();
+    }
+
+    private static AuthorizationServerContext serverContext() {
+        AuthorizationServerSettings settings = AuthorizationServerSettings.builder()
+                .issuer(AuthorizationFixtures.ISSUER)
+                .build();
+        return new AuthorizationServerContext() {
+            @Override
+            public String getIssuer() {
+                return AuthorizationFixtures.ISSUER;
+            }
+
+            @Override
+            public AuthorizationServerSettings getAuthorizationServerSettings() {
+                return settings;
+            }
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package com.acheron.authserver.jmh;
+
+import com.acheron.authserver.config.TokenVersionCheckingOAuth2AuthorizationService;
+import com.acheron.authserver.config.authorization.RevocableOAuth2AuthorizationService;
+import com.acheron.authserver.config.authorization.RevocationTarget;
+import com.acheron.authserver.entity.User;
+import com.acheron.authserver.service.TokenVersionResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.oauth2.server.authorization.InMemoryOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead {@link TokenVersionCheckingOAuth2AuthorizationService} adds over its delegate: the
+ * version check on a refresh-token lookup and the version stamp on save, with the
+ * {@link TokenVersionResolver} near-cache warm. The delegate is an in-memory store.
+ * <p>
+ * {@code ./gradlew jmh -PjmhIncludes=TokenVersionCheckingBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenVersionCheckingBenchmark {
+
+    private RevocableOAuth2AuthorizationService delegate;
+    private TokenVersionCheckingOAuth2AuthorizationService service;
+    private OAuth2Authorization authorization;
+    private OAuth2Authorization unstamped;
+    private String refreshToken;
+
+    @Setup
+    public void setUp() {
+        User user = AuthorizationFixtures.user();
+        RegisteredClient client = AuthorizationFixtures.client();
+        TokenVersionResolver resolver = new TokenVersionResolver(AuthorizationFixtures.userRepository(user),
+                new StringRedisTemplate(), new RedisMessageListenerContainer(), new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(5));
+        delegate = new InMemoryRevocableAuthorizationService();
+        service = new TokenVersionCheckingOAuth2AuthorizationService(delegate, resolver);
+
+        authorization = AuthorizationFixtures.authorization(client, user);
+        unstamped = OAuth2Authorization.from(authorization)
+                .attributes(attributes -> attributes.remove(TokenVersionCheckingOAuth2AuthorizationService.ATTR_TOKEN_VERSION))
+                .build();
+        refreshToken = authorization.getRefreshToken().getToken().getTokenValue();
+        delegate.save(authorization);
+        resolver.resolve(user.getUsername());
+    }
+
+    @Benchmark
+    public OAuth2Authorization findRefreshTokenDirect() {
+        return delegate.findByToken(refreshToken, OAuth2TokenType.REFRESH_TOKEN);
+    }
+
+    @Benchmark
+    public OAuth2Authorization findRefreshTokenChecked() {
+        return service.findByToken(refreshToken, OAuth2TokenType.REFRESH_TOKEN);
+    }
+
+    @Benchmark
+    public void saveStamped() {
+        service.save(authorization);
+    }
+
+    @Benchmark
+    public void saveUnstamped() {
+        service.save(unstamped);
+    }
+
+    private static final class InMemoryRevocableAuthorizationService implements RevocableOAuth2AuthorizationService {
+
+        private final InMemoryOAuth2AuthorizationService store = new InMemoryOAuth2AuthorizationService();
+
+        @Override
+        public void save(OAuth2Authorization authorization) {
+            store.save(authorization);
+        }
+
+        @Override
+        public void remove(OAuth2Authorization authorization) {
+            store.remove(authorization);
+        }
+
+        @Override
+        public OAuth2Authorization findById(String id) {
+            return store.findById(id);
+        }
+
+        @Override
+        public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+            return store.findByToken(token, tokenType);
+        }
+
+        @Override
+        public void removeByPrincipalName(String principalName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> removeBatch(RevocationTarget target, int limit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package com.acheron.authserver.api;
 
+import com.acheron.authserver.config.authorization.RevocationTarget;
 import com.acheron.authserver.dto.request.ClientRegistrationRequest;
+import com.acheron.authserver.dto.response.ClientSummary;
+import com.acheron.authserver.dto.response.CursorPage;
+import com.acheron.authserver.dto.response.LoginHistoryEntry;
+import com.acheron.authserver.dto.response.RevocationJobResponse;
 import com.acheron.authserver.dto.response.UserResponse;
+import com.acheron.authserver.dto.response.UserSummary;
+import com.acheron.authserver.dto.util.PageCursor;
+import com.acheron.authserver.entity.RevocationJob;
 import com.acheron.authserver.entity.Role;
 import com.acheron.authserver.entity.User;
+import com.acheron.authserver.service.AuthHistoryService;
+import com.acheron.authserver.service.RevocationJobService;
 import com.acheron.authserver.service.SessionManagementService;
 import com.acheron.authserver.service.UserService;
 import com.acheron.authserver.service.auth_server.ClientService;
@@ -11,7 +21,6 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -26,19 +35,30 @@ public class AdminApi {
 
     private final UserService userService;
     private final SessionManagementService sessionManagementService;
+    private final RevocationJobService revocationJobService;
     private final ClientService clientService;
+    private final AuthHistoryService authHistoryService;
 
     @GetMapping("/users")
-    public ResponseEntity<Page<UserResponse>> listUsers(
-            @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<CursorPage<UserSummary>> listUsers(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(required = false) String search) {
-        return ResponseEntity.ok(userService.findAllPaged(search, PageRequest.of(page, size, Sort.by("createdAt").descending())));
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean prefix) {
+        return ResponseEntity.ok(userService.findPage(search, prefix, PageCursor.decode(cursor), size));
     }
 
     @GetMapping("/users/{id}")
-    public ResponseEntity<UserResponse> getUser(@PathVariable UUID id) {
-        return ResponseEntity.ok(UserResponse.fromEntity(userService.findById(id)));
+    public ResponseEntity<UserSummary> getUser(@PathVariable UUID id) {
+        return ResponseEntity.ok(userService.findSummaryById(id));
+    }
+
+    @GetMapping("/users/{id}/login-history")
+    public ResponseEntity<CursorPage<LoginHistoryEntry>> getLoginHistory(
+            @PathVariable UUID id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(authHistoryService.findLoginHistory(id, PageCursor.decode(cursor), size));
     }
 
     @PatchMapping("/users/{id}/role")
@@ -69,10 +89,41 @@ public class AdminApi {
     }
 
     @PostMapping("/users/{id}/revoke-sessions")
-    public ResponseEntity<Void> revokeSessions(@PathVariable UUID id) {
+    public ResponseEntity<RevocationJobResponse> revokeSessions(@PathVariable UUID id) {
         User user = userService.findById(id);
-        sessionManagementService.revokeAllSessions(user);
-        return ResponseEntity.ok().build();
+        RevocationJob job = sessionManagementService.revokeAllSessions(user);
+        return ResponseEntity.accepted().body(RevocationJobResponse.fromEntity(job));
+    }
+
+    @PostMapping("/clients/{clientId}/revoke-sessions")
+    public ResponseEntity<RevocationJobResponse> revokeClientSessions(@PathVariable String clientId) {
+        RevocationJob job = revocationJobService.submitForClient(clientId);
+        return ResponseEntity.accepted().body(RevocationJobResponse.fromEntity(job));
+    }
+
+    @PostMapping("/revocations/all")
+    public ResponseEntity<RevocationJobResponse> revokeAllSessions() {
+        RevocationJob job = revocationJobService.submit(RevocationTarget.all());
+        return ResponseEntity.accepted().body(RevocationJobResponse.fromEntity(job));
+    }
+
+    @GetMapping("/revocations")
+    public ResponseEntity<Page<RevocationJobResponse>> listRevocations(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(revocationJobService.findAll(PageRequest.of(page, size)).map(RevocationJobResponse::fromEntity));
+    }
+
+    @GetMapping("/revocations/{jobId}")
+    public ResponseEntity<RevocationJobResponse> getRevocation(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(RevocationJobResponse.fromEntity(revocationJobService.findById(jobId)));
+    }
+
+    @GetMapping("/clients")
+    public ResponseEntity<CursorPage<ClientSummary>> listClients(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(clientService.findClients(PageCursor.decode(cursor), size));
     }
 
     @PostMapping("/clients")
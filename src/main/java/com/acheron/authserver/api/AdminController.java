@@ -1,7 +1,7 @@
 package com.acheron.authserver.api;
 
+import com.acheron.authserver.dto.response.UserDetailResponse;
 import com.acheron.authserver.entity.Role;
-import com.acheron.authserver.repository.AuthHistoryRepository;
 import com.acheron.authserver.service.SessionManagementService;
 import com.acheron.authserver.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -21,7 +21,6 @@ import java.util.UUID;
 public class AdminController {
 
     private final UserService userService;
-    private final AuthHistoryRepository authHistoryRepository;
     private final SessionManagementService sessionManagementService;
 
     @GetMapping
@@ -36,18 +35,21 @@ public class AdminController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean prefix,
             Model model) {
         model.addAttribute("users", userService.findAllPaged(
-                search, PageRequest.of(page, size, Sort.by("createdAt").descending())));
+                search, prefix, PageRequest.of(page, size, Sort.by("createdAt").descending())));
         model.addAttribute("search", search);
+        model.addAttribute("prefix", prefix);
         model.addAttribute("roles", Role.values());
         return "admin/users";
     }
 
     @GetMapping("/users/{id}")
     public String userDetail(@PathVariable UUID id, Model model) {
-        model.addAttribute("user", userService.findById(id));
-        model.addAttribute("loginHistory", authHistoryRepository.findTop10ByUserOrderByTimestampDesc(userService.findById(id)));
+        UserDetailResponse detail = userService.findDetail(id, 10);
+        model.addAttribute("user", detail.user());
+        model.addAttribute("loginHistory", detail.loginHistory());
         model.addAttribute("roles", Role.values());
         return "admin/user-detail";
     }
@@ -1,8 +1,10 @@
 package com.acheron.authserver.api;
 
 import com.acheron.authserver.dto.request.RegistrationRequest;
+import com.acheron.authserver.dto.response.AvailabilityResponse;
 import com.acheron.authserver.entity.Role;
 import com.acheron.authserver.entity.User;
+import com.acheron.authserver.service.UserAvailabilityIndex;
 import com.acheron.authserver.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -11,6 +13,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jboss.aerogear.security.otp.api.Base32;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -21,6 +24,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 @Slf4j
@@ -29,6 +33,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 public class AuthApi {
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
+    private final UserAvailabilityIndex userAvailabilityIndex;
 
     @GetMapping("/login")
     public String login() {
@@ -51,11 +56,11 @@ public class AuthApi {
             return "registration";
         }
 
-        if (userService.existsByEmail(request.email())) {
+        if (userAvailabilityIndex.emailTaken(request.email())) {
             bindingResult.rejectValue("email", "duplicate", "Email is already in use");
             return "registration";
         }
-        if (userService.existsByUsername(request.username())) {
+        if (userAvailabilityIndex.usernameTaken(request.username())) {
             bindingResult.rejectValue("username", "duplicate", "Username is already in use");
             return "registration";
         }
@@ -78,11 +83,33 @@ public class AuthApi {
                 .emailVerified(false)
                 .build();
 
-        userService.save(user);
+        try {
+            userService.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (userService.existsByEmail(request.email())) {
+                bindingResult.rejectValue("email", "duplicate", "Email is already in use");
+            } else {
+                bindingResult.rejectValue("username", "duplicate", "Username is already in use");
+            }
+            return "registration";
+        }
         log.info("New user registered: {}", user.getUsername());
         return "redirect:/login?registered=true";
     }
 
+    /**
+     * Availability of a username and/or email for the registration form, checked as the user types.
+     */
+    @GetMapping("/registration/availability")
+    @ResponseBody
+    public AvailabilityResponse availability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        return new AvailabilityResponse(
+                username == null ? null : !userAvailabilityIndex.usernameTaken(username),
+                email == null ? null : !userAvailabilityIndex.emailTaken(email));
+    }
+
     @PostMapping("/spa/logout")
     @ResponseBody
     public ResponseEntity<Void> logout(HttpServletRequest request, HttpServletResponse response) {
@@ -1,10 +1,13 @@
 package com.acheron.authserver.config;
 
+import com.acheron.authserver.entity.User;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import org.springframework.security.web.authentication.WebAuthenticationDetails;
@@ -18,6 +21,15 @@ public class CustomWebAuthenticationDetails extends WebAuthenticationDetails {
     private final String sessionId;
     private final String verificationCode;
 
+    /**
+     * The entity {@link MFADaoAuthProvider} read to verify the second factor, handed on to the
+     * successful authentication so one login loads it once. Never serialized with the details.
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private transient User verifiedUser;
+
     public CustomWebAuthenticationDetails(HttpServletRequest request) {
         super(request);
         this.remoteAddress = request.getRemoteAddr();
@@ -37,4 +49,13 @@ public class CustomWebAuthenticationDetails extends WebAuthenticationDetails {
         this.verificationCode = verificationCode;
     }
 
-}
\ No newline at end of file
+    void setVerifiedUser(User verifiedUser) {
+        this.verifiedUser = verifiedUser;
+    }
+
+    User takeVerifiedUser() {
+        User user = verifiedUser;
+        verifiedUser = null;
+        return user;
+    }
+}
@@ -1,22 +1,43 @@
 package com.acheron.authserver.config;
 
+import com.acheron.authserver.dto.util.UserCredentials;
 import com.acheron.authserver.entity.User;
+import com.acheron.authserver.repository.UserRepository;
 import org.jboss.aerogear.security.otp.Totp;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+/**
+ * Form login against the cached {@link UserCredentials}: password, lock and enabled checks never
+ * load the {@link User} entity. It is read once the password matched — for the TOTP secret of an
+ * MFA user, and as the principal of the successful authentication. An entity read for the second
+ * factor rides on the {@link CustomWebAuthenticationDetails} to become that principal, so a login
+ * reads it at most once. A hash written with an outdated algorithm or cost is re-encoded from the
+ * presented password at that point.
+ * <p>
+ * A {@link UserDetails} that is neither {@link UserCredentials} nor {@link User} cannot say whether
+ * a second factor is required, so it is rejected rather than let through on the password alone.
+ */
 @Component
 public class MFADaoAuthProvider extends DaoAuthenticationProvider {
-    public MFADaoAuthProvider(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+
+    private final UserRepository userRepository;
+
+    public MFADaoAuthProvider(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                              UserDetailsPasswordService userDetailsPasswordService, UserRepository userRepository) {
         super(userDetailsService);
         setPasswordEncoder(passwordEncoder);
+        setUserDetailsPasswordService(userDetailsPasswordService);
+        this.userRepository = userRepository;
     }
 
     @Override
@@ -24,21 +45,49 @@ public class MFADaoAuthProvider extends DaoAuthenticationProvider {
         super.additionalAuthenticationChecks(userDetails, authentication);
         CustomWebAuthenticationDetails details =
                 (CustomWebAuthenticationDetails) authentication.getDetails();
-        User user = (User) userDetails;
 
-        if (user.isMfaEnabled()) {
+        if (mfaEnabled(userDetails)) {
             String code = details.getVerificationCode();
             if (code == null || code.isBlank()) {
                 throw new BadCredentialsException("2FA code is missing");
             }
 
+            User user = userDetails instanceof User loaded ? loaded : loadUser(userDetails);
             Totp totp = new Totp(user.getMfaSecret());
             if (!isValidLong(code) || !totp.verify(code)) {
                 throw new BadCredentialsException("Invalid verification code");
             }
+            details.setVerifiedUser(user);
         }
     }
 
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+        User verified = authentication.getDetails() instanceof CustomWebAuthenticationDetails details
+                ? details.takeVerifiedUser() : null;
+        User entity = user instanceof User loaded ? loaded
+                : isSameUser(verified, user) ? verified : loadUser(user);
+        return super.createSuccessAuthentication(entity, authentication, entity);
+    }
+
+    private static boolean mfaEnabled(UserDetails userDetails) {
+        return switch (userDetails) {
+            case UserCredentials credentials -> credentials.mfaEnabled();
+            case User user -> user.isMfaEnabled();
+            default -> throw new InternalAuthenticationServiceException(
+                    "Unsupported user details type: " + userDetails.getClass().getName());
+        };
+    }
+
+    private static boolean isSameUser(User verified, UserDetails userDetails) {
+        return verified != null && verified.getUsername().equals(userDetails.getUsername());
+    }
+
+    private User loadUser(UserDetails userDetails) {
+        return userRepository.findUserByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new BadCredentialsException("Bad credentials"));
+    }
+
     private boolean isValidLong(String code) {
         try {
             Long.parseLong(code);
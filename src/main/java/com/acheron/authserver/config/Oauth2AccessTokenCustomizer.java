@@ -1,22 +1,25 @@
 package com.acheron.authserver.config;
 
-import com.acheron.authserver.entity.User;
-import com.acheron.authserver.service.UserService;
+import com.acheron.authserver.config.claims.TokenClaimContributor;
+import com.acheron.authserver.dto.util.UserClaims;
+import com.acheron.authserver.service.UserClaimsResolver;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
 import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
-import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
 import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
 import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenCustomizer;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Optional;
+
 @RequiredArgsConstructor
 @Component
 public class Oauth2AccessTokenCustomizer implements OAuth2TokenCustomizer<JwtEncodingContext> {
 
-    private final UserService userService;
+    private final UserClaimsResolver userClaimsResolver;
+    private final List<TokenClaimContributor> contributors;
 
     @Override
     public void customize(JwtEncodingContext context) {
@@ -26,22 +29,14 @@ public class Oauth2AccessTokenCustomizer implements OAuth2TokenCustomizer<JwtEnc
 
         if (OAuth2TokenType.ACCESS_TOKEN.equals(context.getTokenType())
                 || OidcParameterNames.ID_TOKEN.equals(context.getTokenType().getValue())) {
+            Optional<UserClaims> user = userClaimsResolver.resolve(context.getPrincipal());
+            if (user.isEmpty()) {
+                return;
+            }
             context.getClaims().claims(claims -> {
-                Object principal = context.getPrincipal().getPrincipal();
-                User user;
-                if (principal instanceof UserDetails userDetails) {
-                    user = (User) userService.loadUserByUsername(userDetails.getUsername());
-                } else if (principal instanceof DefaultOAuth2User oAuth2User) {
-                    String username = oAuth2User.getAttribute("login") != null
-                            ? oAuth2User.getAttribute("login")
-                            : oAuth2User.getAttribute("name");
-                    user = (User) userService.loadUserByUsername(username);
-                } else {
-                    return;
+                for (TokenClaimContributor contributor : contributors) {
+                    contributor.contribute(context, user.get(), claims);
                 }
-                claims.put("user_id", user.getId().toString());
-                claims.put("roles", user.getRole().name());
-                claims.put("token_version", user.getTokenVersion().toString());
             });
         }
     }
@@ -1,16 +1,40 @@
 package com.acheron.authserver.config;
 
-import com.acheron.authserver.entity.User;
-import com.fasterxml.jackson.annotation.JsonTypeInfo;
-import com.nimbusds.jose.jwk.source.JWKSource;
-import com.nimbusds.jose.proc.SecurityContext;
+import com.acheron.authserver.config.authorization.CachingOAuth2AuthorizationService;
+import com.acheron.authserver.config.authorization.CompactOAuth2AuthorizationParametersMapper;
+import com.acheron.authserver.config.authorization.CompactOAuth2AuthorizationRowMapper;
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationAttributeCodec;
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationCache;
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationHashMapper;
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationMappers;
+import com.acheron.authserver.config.authorization.PostgresOAuth2AuthorizationService;
+import com.acheron.authserver.config.authorization.RedisOAuth2AuthorizationService;
+import com.acheron.authserver.config.authorization.RevocableOAuth2AuthorizationService;
+import com.acheron.authserver.config.client.CachingClientSecretEncoder;
+import com.acheron.authserver.config.client.CachingRegisteredClientRepository;
+import com.acheron.authserver.config.client.ClientSecretVerificationCache;
+import com.acheron.authserver.config.client.RegisteredClientCache;
+import com.acheron.authserver.config.hashing.PasswordHashingRejectionFilter;
+import com.acheron.authserver.config.jwk.ClientJwsAlgorithmCustomizer;
+import com.acheron.authserver.config.jwk.Ed25519JwsVerifierFactory;
+import com.acheron.authserver.config.jwk.JwkKeyRing;
+import com.acheron.authserver.config.jwk.JwkSetEndpointFilter;
+import com.acheron.authserver.config.jwk.JwkSigningAlgorithm;
+import com.acheron.authserver.config.jwk.KeyRingJwsKeySelector;
+import com.acheron.authserver.config.jwk.KeyRingJwtEncoder;
+import com.acheron.authserver.config.throttle.LoginThrottle;
+import com.acheron.authserver.config.throttle.LoginThrottleFilter;
+import com.acheron.authserver.service.TokenVersionResolver;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
@@ -21,18 +45,19 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.oauth2.server.authorization.OAuth2AuthorizationServerConfigurer;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.jackson.SecurityJacksonModules;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
 import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
 import org.springframework.security.oauth2.core.OAuth2Token;
 import org.springframework.security.oauth2.core.oidc.OidcScopes;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
-import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationService;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.authentication.ClientSecretAuthenticationProvider;
 import org.springframework.security.oauth2.server.authorization.client.JdbcRegisteredClientRepository;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.settings.AuthorizationServerSettings;
 import org.springframework.security.oauth2.server.authorization.settings.ClientSettings;
 import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
 import org.springframework.security.oauth2.server.authorization.token.DelegatingOAuth2TokenGenerator;
@@ -41,18 +66,16 @@ import org.springframework.security.oauth2.server.authorization.token.OAuth2Refr
 import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenGenerator;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
+import org.springframework.security.web.session.DisableEncodeUrlFilter;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
 import org.springframework.security.web.util.matcher.MediaTypeRequestMatcher;
 import org.springframework.web.filter.ForwardedHeaderFilter;
-import tools.jackson.databind.DefaultTyping;
-import tools.jackson.databind.json.JsonMapper;
-import tools.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
 
 import java.time.Duration;
 import java.util.UUID;
-import com.acheron.authserver.repository.UserRepository;
 
 @Configuration
 @EnableWebSecurity
@@ -76,7 +99,11 @@ public class SecurityConfig {
     public SecurityFilterChain authorizationServerSecurityFilterChain(
             HttpSecurity http,
             RegisteredClientRepository registeredClientRepository,
-            OAuth2AuthorizationService authorizationService) {
+            OAuth2AuthorizationService authorizationService,
+            AuthorizationServerSettings authorizationServerSettings,
+            JwkKeyRing jwkKeyRing,
+            ClientSecretVerificationCache clientSecretVerificationCache,
+            @Value("${app.jwk.jwks-max-age:5m}") Duration jwksMaxAge) {
 
         OAuth2AuthorizationServerConfigurer authorizationServerConfigurer = new OAuth2AuthorizationServerConfigurer();
         authorizationServerConfigurer
@@ -84,6 +111,12 @@ public class SecurityConfig {
                         .authenticationConverter(new PublicClientRefreshTokenAuthenticationConverter())
                         .authenticationProvider(new PublicClientRefreshTokenAuthenticationProvider(
                                 registeredClientRepository, authorizationService))
+                        .authenticationProviders(providers -> providers.forEach(provider -> {
+                            if (provider instanceof ClientSecretAuthenticationProvider clientSecretProvider) {
+                                clientSecretProvider.setPasswordEncoder(
+                                        new CachingClientSecretEncoder(passwordEncoder, clientSecretVerificationCache));
+                            }
+                        }))
                 );
         authorizationServerConfigurer
                 .tokenEndpoint(tokenEndpoint -> tokenEndpoint
@@ -91,10 +124,21 @@ public class SecurityConfig {
                 );
         http
                 .securityMatcher(authorizationServerConfigurer.getEndpointsMatcher())
+                .addFilterBefore(new PasswordHashingRejectionFilter(), DisableEncodeUrlFilter.class)
+                .addFilterBefore(new JwkSetEndpointFilter(jwkKeyRing,
+                        authorizationServerSettings.getJwkSetEndpoint(), jwksMaxAge), SecurityContextHolderFilter.class)
                 .csrf(AbstractHttpConfigurer::disable)
                 .with(authorizationServerConfigurer, authorizationServer ->
                         authorizationServer
-                                .oidc(Customizer.withDefaults())
+                                .oidc(oidc -> oidc
+                                        .providerConfigurationEndpoint(providerConfiguration -> providerConfiguration
+                                                .providerConfigurationCustomizer(configuration -> configuration
+                                                        .idTokenSigningAlgorithms(algorithms -> {
+                                                            // only what the key ring signs with
+                                                            algorithms.clear();
+                                                            jwkKeyRing.algorithms().forEach(algorithm ->
+                                                                    algorithms.add(algorithm.getName()));
+                                                        }))))
                 )
                 .authorizeHttpRequests((authorize) -> authorize
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
@@ -123,10 +167,13 @@ public class SecurityConfig {
 
     @Bean
     @Order(2)
-    public SecurityFilterChain defaultSecurityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain defaultSecurityFilterChain(HttpSecurity http, LoginThrottle loginThrottle) throws Exception {
         http.oauth2ResourceServer(resourceServer ->
                 resourceServer.jwt(Customizer.withDefaults()));
         http
+                .authenticationManager(authenticationManager())
+                .addFilterBefore(new LoginThrottleFilter(loginThrottle), DisableEncodeUrlFilter.class)
+                .addFilterBefore(new PasswordHashingRejectionFilter(), DisableEncodeUrlFilter.class)
                 .csrf(csrf -> csrf
                         .csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
                         .csrfTokenRequestHandler(new CsrfTokenRequestAttributeHandler())
@@ -149,7 +196,7 @@ public class SecurityConfig {
                 )
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers(
-                                "/", "/login", "/registration",
+                                "/", "/login", "/registration", "/registration/availability",
                                 "/.well-known/appspecific/**",
                                 "/actuator/prometheus",
                                 "/reset_password", "/reset_password_token",
@@ -175,47 +222,56 @@ public class SecurityConfig {
     }
 
     @Bean
-    public OAuth2AuthorizationService authorizationService(
+    public RevocableOAuth2AuthorizationService authorizationService(
             JdbcTemplate jdbcTemplate,
+            StringRedisTemplate redisTemplate,
             RegisteredClientRepository registeredClientRepository,
-            UserRepository userRepository) {
+            OAuth2AuthorizationHashMapper authorizationHashMapper,
+            TokenVersionResolver tokenVersionResolver,
+            ObjectProvider<OAuth2AuthorizationCache> authorizationCache,
+            @Value("${app.authorization.store:postgres}") String storeType,
+            @Value("${app.authorization.postgres.write-json-columns:true}") boolean writeJsonColumns,
+            @Value("${app.authorization.redis.pending-ttl:10m}") Duration pendingTtl) {
 
-        JdbcOAuth2AuthorizationService service =
-                new JdbcOAuth2AuthorizationService(jdbcTemplate, registeredClientRepository);
+        RevocableOAuth2AuthorizationService store = switch (storeType) {
+            case "postgres" -> postgresAuthorizationService(jdbcTemplate, registeredClientRepository, writeJsonColumns);
+            case "redis" -> new RedisOAuth2AuthorizationService(redisTemplate, authorizationHashMapper, pendingTtl);
+            default -> throw new IllegalStateException("Unknown app.authorization.store '" + storeType
+                    + "' — expected 'postgres' or 'redis'");
+        };
 
-        ClassLoader classLoader = JdbcOAuth2AuthorizationService.class.getClassLoader();
-
-        BasicPolymorphicTypeValidator.Builder typeValidatorBuilder = BasicPolymorphicTypeValidator.builder()
-                .allowIfBaseType(User.class)
-                .allowIfSubType("com.acheron.authserver.entity")
-                .allowIfSubType("java.util")
-                .allowIfSubType("org.springframework.security");
-
-        var securityModules = SecurityJacksonModules.getModules(classLoader, typeValidatorBuilder);
+        OAuth2AuthorizationCache cache = authorizationCache.getIfAvailable();
+        if (cache != null) {
+            store = new CachingOAuth2AuthorizationService(store, cache);
+        }
+        return new TokenVersionCheckingOAuth2AuthorizationService(store, tokenVersionResolver);
+    }
 
-        JsonMapper jsonMapper = JsonMapper.builder()
-                .addModules(securityModules)
-                .activateDefaultTyping(typeValidatorBuilder.build(),
-                        DefaultTyping.NON_FINAL,
-                        JsonTypeInfo.As.PROPERTY)
-                .build();
+    private static PostgresOAuth2AuthorizationService postgresAuthorizationService(
+            JdbcTemplate jdbcTemplate, RegisteredClientRepository registeredClientRepository, boolean writeJsonColumns) {
 
-        JdbcOAuth2AuthorizationService.JsonMapperOAuth2AuthorizationRowMapper rowMapper =
-                new JdbcOAuth2AuthorizationService.JsonMapperOAuth2AuthorizationRowMapper(registeredClientRepository, jsonMapper);
+        PostgresOAuth2AuthorizationService service =
+                new PostgresOAuth2AuthorizationService(jdbcTemplate, registeredClientRepository);
 
-        JdbcOAuth2AuthorizationService.JsonMapperOAuth2AuthorizationParametersMapper paramsMapper =
-                new JdbcOAuth2AuthorizationService.JsonMapperOAuth2AuthorizationParametersMapper(jsonMapper);
+        OAuth2AuthorizationAttributeCodec codec = new OAuth2AuthorizationAttributeCodec(
+                OAuth2AuthorizationMappers.jsonMapper(), OAuth2AuthorizationMappers.smileMapper());
 
-        service.setAuthorizationRowMapper(rowMapper);
-        service.setAuthorizationParametersMapper(paramsMapper);
+        service.setAuthorizationRowMapper(new CompactOAuth2AuthorizationRowMapper(registeredClientRepository, codec));
+        service.setAuthorizationParametersMapper(new CompactOAuth2AuthorizationParametersMapper(codec, writeJsonColumns));
+        return service;
+    }
 
-        return new TokenVersionCheckingOAuth2AuthorizationService(service, userRepository);
+    @Bean
+    public OAuth2AuthorizationHashMapper authorizationHashMapper(RegisteredClientRepository registeredClientRepository) {
+        return new OAuth2AuthorizationHashMapper(registeredClientRepository, OAuth2AuthorizationMappers.jsonMapper());
     }
 
     @Bean
     public RegisteredClientRepository registeredClientRepository(
             @Value("${gateway.client.secret}") String gatewaySecret,
-            JdbcTemplate jdbcTemplate) {
+            JdbcTemplate jdbcTemplate,
+            RegisteredClientCache registeredClientCache,
+            ApplicationEventPublisher eventPublisher) {
 
         JdbcRegisteredClientRepository repository = new JdbcRegisteredClientRepository(jdbcTemplate);
         String gatewayClientId = "gateway-client";
@@ -244,18 +300,36 @@ public class SecurityConfig {
             repository.save(webClient);
         }
 
-        return repository;
+        return new CachingRegisteredClientRepository(repository, registeredClientCache, eventPublisher);
+    }
+
+    @Bean
+    JwtEncoder jwtEncoder(JwkKeyRing jwkKeyRing) {
+        return new KeyRingJwtEncoder(jwkKeyRing::signingKey);
     }
 
+    /**
+     * Verifies tokens signed with any {@link JwkSigningAlgorithm}; the auto-configured decoder only
+     * accepts the RSA, EC and HMAC families.
+     */
     @Bean
-    JwtEncoder jwtEncoder(JWKSource<SecurityContext> jwkSource) {
-        return new NimbusJwtEncoder(jwkSource);
+    JwtDecoder jwtDecoder(JwkKeyRing jwkKeyRing) {
+        return NimbusJwtDecoder.withJwkSource(jwkKeyRing)
+                .jwtProcessorCustomizer(processor -> {
+                    processor.setJWSKeySelector(new KeyRingJwsKeySelector(jwkKeyRing, JwkSigningAlgorithm.jwsAlgorithms()));
+                    processor.setJWSVerifierFactory(new Ed25519JwsVerifierFactory());
+                })
+                .build();
     }
 
     @Bean
     OAuth2TokenGenerator<OAuth2Token> tokenGenerator(JwtEncoder jwtEncoder) {
         JwtGenerator jwtAccessTokenGenerator = new JwtGenerator(jwtEncoder);
-        jwtAccessTokenGenerator.setJwtCustomizer(oauth2AccessTokenCustomizer);
+        ClientJwsAlgorithmCustomizer jwsAlgorithmCustomizer = new ClientJwsAlgorithmCustomizer();
+        jwtAccessTokenGenerator.setJwtCustomizer(context -> {
+            jwsAlgorithmCustomizer.customize(context);
+            oauth2AccessTokenCustomizer.customize(context);
+        });
         OAuth2RefreshTokenGenerator refreshTokenGenerator = new OAuth2RefreshTokenGenerator();
         OAuth2PublicClientRefreshTokenGenerator publicClientRefreshTokenGenerator =
                 new OAuth2PublicClientRefreshTokenGenerator();
@@ -1,6 +1,8 @@
 package com.acheron.authserver.config;
 
-import com.acheron.authserver.repository.UserRepository;
+import com.acheron.authserver.config.authorization.RevocableOAuth2AuthorizationService;
+import com.acheron.authserver.config.authorization.RevocationTarget;
+import com.acheron.authserver.service.TokenVersionResolver;
 import lombok.RequiredArgsConstructor;
 import org.springframework.lang.Nullable;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
@@ -8,18 +10,19 @@ import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
 import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
-import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
 import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @RequiredArgsConstructor
-public class TokenVersionCheckingOAuth2AuthorizationService implements OAuth2AuthorizationService {
+public class TokenVersionCheckingOAuth2AuthorizationService implements RevocableOAuth2AuthorizationService {
 
     public static final String ATTR_TOKEN_VERSION = "token_version";
 
-    private final OAuth2AuthorizationService delegate;
-    private final UserRepository userRepository;
+    private final RevocableOAuth2AuthorizationService delegate;
+    private final TokenVersionResolver tokenVersionResolver;
 
     @Override
     public void save(OAuth2Authorization authorization) {
@@ -31,6 +34,16 @@ public class TokenVersionCheckingOAuth2AuthorizationService implements OAuth2Aut
         delegate.remove(authorization);
     }
 
+    @Override
+    public void removeByPrincipalName(String principalName) {
+        delegate.removeByPrincipalName(principalName);
+    }
+
+    @Override
+    public List<String> removeBatch(RevocationTarget target, int limit) {
+        return delegate.removeBatch(target, limit);
+    }
+
     @Override
     @Nullable
     public OAuth2Authorization findById(String id) {
@@ -57,13 +70,11 @@ public class TokenVersionCheckingOAuth2AuthorizationService implements OAuth2Aut
             return authorization;
         }
 
-        String principalName = authorization.getPrincipalName();
-        Optional<com.acheron.authserver.entity.User> userOpt = userRepository.findUserByUsername(principalName);
-        if (userOpt.isEmpty()) return authorization;
-        UUID version = userOpt.get().getTokenVersion();
+        Optional<UUID> version = tokenVersionResolver.resolve(authorization.getPrincipalName());
+        if (version.isEmpty()) return authorization;
 
         return OAuth2Authorization.from(authorization)
-                .attributes(a -> a.put(ATTR_TOKEN_VERSION, version.toString()))
+                .attributes(a -> a.put(ATTR_TOKEN_VERSION, version.get().toString()))
                 .build();
     }
 
@@ -72,9 +83,8 @@ public class TokenVersionCheckingOAuth2AuthorizationService implements OAuth2Aut
             return;
         }
 
-        String principalName = authorization.getPrincipalName();
-        Optional<com.acheron.authserver.entity.User> userOpt = userRepository.findUserByUsername(principalName);
-        if (userOpt.isEmpty()) {
+        Optional<UUID> current = tokenVersionResolver.resolve(authorization.getPrincipalName());
+        if (current.isEmpty()) {
             delegate.remove(authorization);
             throw invalidGrant("User not found");
         }
@@ -84,8 +94,7 @@ public class TokenVersionCheckingOAuth2AuthorizationService implements OAuth2Aut
             throw invalidGrant("Missing token_version");
         }
 
-        UUID current = userOpt.get().getTokenVersion();
-        if (!current.toString().equals(String.valueOf(stored))) {
+        if (!current.get().toString().equals(String.valueOf(stored))) {
             delegate.remove(authorization);
             throw invalidGrant("Token revoked — all sessions invalidated");
         }
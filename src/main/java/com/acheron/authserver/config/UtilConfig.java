@@ -1,10 +1,16 @@
 package com.acheron.authserver.config;
 
+import com.acheron.authserver.config.hashing.BoundedPasswordEncoder;
+import com.acheron.authserver.config.hashing.PasswordHashingAlgorithm;
+import com.acheron.authserver.config.hashing.PasswordHashingExecutor;
+import com.acheron.authserver.config.hashing.PasswordHashingParameters;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.BufferedImageHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.crypto.encrypt.Encryptors;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.awt.image.BufferedImage;
@@ -12,9 +18,30 @@ import java.awt.image.BufferedImage;
 @Configuration
 public class UtilConfig {
 
+    /**
+     * {@link PasswordHashingParameters#passwordEncoder() Delegating encoder} for the configured
+     * algorithm and cost, run on the bounded {@link PasswordHashingExecutor} rather than the
+     * request thread. {@code PasswordHashingCalibrator} recommends the parameters for a host.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor,
+                                           @Value("${app.password-hashing.algorithm:bcrypt}") String algorithm,
+                                           @Value("${app.password-hashing.bcrypt.strength:10}") int bcryptStrength,
+                                           @Value("${app.password-hashing.argon2.memory-kib:19456}") int argon2MemoryKib,
+                                           @Value("${app.password-hashing.argon2.iterations:2}") int argon2Iterations,
+                                           @Value("${app.password-hashing.argon2.parallelism:1}") int argon2Parallelism) {
+        PasswordHashingParameters parameters = new PasswordHashingParameters(PasswordHashingAlgorithm.from(algorithm),
+                bcryptStrength, argon2MemoryKib, argon2Iterations, argon2Parallelism);
+        return new BoundedPasswordEncoder(parameters.passwordEncoder(), passwordHashingExecutor);
+    }
+
+    /**
+     * AES-256-GCM encryptor for the private keys in {@code jwk_key}; the salt is hex-encoded.
+     */
+    @Bean
+    public BytesEncryptor jwkKeyEncryptor(@Value("${app.jwk.encryption.password}") String password,
+                                          @Value("${app.jwk.encryption.salt}") String salt) {
+        return Encryptors.stronger(password, salt);
     }
 
     @Bean
@@ -0,0 +1,64 @@
+package com.acheron.authserver.config.authorization;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+
+import java.util.List;
+
+/**
+ * Serves {@code findByToken} from {@link OAuth2AuthorizationCache} and keeps it coherent:
+ * every write goes to the delegate first, then evicts the authorization from both tiers.
+ */
+@RequiredArgsConstructor
+public class CachingOAuth2AuthorizationService implements RevocableOAuth2AuthorizationService {
+
+    private final RevocableOAuth2AuthorizationService delegate;
+    private final OAuth2AuthorizationCache cache;
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        delegate.save(authorization);
+        cache.evict(authorization.getId());
+    }
+
+    @Override
+    public void remove(OAuth2Authorization authorization) {
+        delegate.remove(authorization);
+        cache.evict(authorization.getId());
+    }
+
+    @Override
+    public void removeByPrincipalName(String principalName) {
+        delegate.removeByPrincipalName(principalName);
+        cache.evictPrincipal(principalName);
+    }
+
+    @Override
+    public List<String> removeBatch(RevocationTarget target, int limit) {
+        List<String> removed = delegate.removeBatch(target, limit);
+        cache.evictAll(removed);
+        return removed;
+    }
+
+    @Override
+    @Nullable
+    public OAuth2Authorization findById(String id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    @Nullable
+    public OAuth2Authorization findByToken(String token, @Nullable OAuth2TokenType tokenType) {
+        OAuth2Authorization cached = cache.get(token, tokenType);
+        if (cached != null) return cached;
+
+        long readStamp = cache.readStamp();
+        OAuth2Authorization authorization = delegate.findByToken(token, tokenType);
+        if (authorization != null) {
+            cache.put(token, tokenType, authorization, readStamp);
+        }
+        return authorization;
+    }
+}
@@ -0,0 +1,107 @@
+package com.acheron.authserver.config.authorization;
+
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Parameters mapper producing the 40 {@code oauth2_authorization} columns in the order
+ * {@link PostgresOAuth2AuthorizationService} writes them: the stock columns, each attribute or
+ * metadata column followed by its {@code *_compact} twin encoded by
+ * {@link OAuth2AuthorizationAttributeCodec}. The JSON text columns are written as the stock service
+ * writes them while {@code writeJsonColumns} is on, and left {@code NULL} otherwise.
+ */
+public class CompactOAuth2AuthorizationParametersMapper implements Function<OAuth2Authorization, List<SqlParameterValue>> {
+
+    private final OAuth2AuthorizationAttributeCodec codec;
+    private final boolean writeJsonColumns;
+
+    public CompactOAuth2AuthorizationParametersMapper(OAuth2AuthorizationAttributeCodec codec, boolean writeJsonColumns) {
+        this.codec = codec;
+        this.writeJsonColumns = writeJsonColumns;
+    }
+
+    @Override
+    public List<SqlParameterValue> apply(OAuth2Authorization authorization) {
+        List<SqlParameterValue> parameters = new ArrayList<>(40);
+        parameters.add(new SqlParameterValue(Types.VARCHAR, authorization.getId()));
+        parameters.add(new SqlParameterValue(Types.VARCHAR, authorization.getRegisteredClientId()));
+        parameters.add(new SqlParameterValue(Types.VARCHAR, authorization.getPrincipalName()));
+        parameters.add(new SqlParameterValue(Types.VARCHAR, authorization.getAuthorizationGrantType().getValue()));
+
+        String authorizedScopes = null;
+        if (!CollectionUtils.isEmpty(authorization.getAuthorizedScopes())) {
+            authorizedScopes = StringUtils.collectionToDelimitedString(authorization.getAuthorizedScopes(), ",");
+        }
+        parameters.add(new SqlParameterValue(Types.VARCHAR, authorizedScopes));
+        addEncoded(parameters, authorization.getAttributes());
+
+        String state = authorization.getAttribute(OAuth2ParameterNames.STATE);
+        parameters.add(new SqlParameterValue(Types.VARCHAR, StringUtils.hasText(state) ? state : null));
+
+        addToken(parameters, authorization.getToken(OAuth2AuthorizationCode.class));
+
+        OAuth2Authorization.Token<OAuth2AccessToken> accessToken = authorization.getToken(OAuth2AccessToken.class);
+        addToken(parameters, accessToken);
+        String accessTokenType = null;
+        String accessTokenScopes = null;
+        if (accessToken != null) {
+            accessTokenType = accessToken.getToken().getTokenType().getValue();
+            if (!CollectionUtils.isEmpty(accessToken.getToken().getScopes())) {
+                accessTokenScopes = StringUtils.collectionToDelimitedString(accessToken.getToken().getScopes(), ",");
+            }
+        }
+        parameters.add(new SqlParameterValue(Types.VARCHAR, accessTokenType));
+        parameters.add(new SqlParameterValue(Types.VARCHAR, accessTokenScopes));
+
+        addToken(parameters, authorization.getToken(OidcIdToken.class));
+        addToken(parameters, authorization.getToken(OAuth2RefreshToken.class));
+        addToken(parameters, authorization.getToken(OAuth2UserCode.class));
+        addToken(parameters, authorization.getToken(OAuth2DeviceCode.class));
+        return parameters;
+    }
+
+    private void addToken(List<SqlParameterValue> parameters, OAuth2Authorization.Token<? extends OAuth2Token> token) {
+        String value = null;
+        Timestamp issuedAt = null;
+        Timestamp expiresAt = null;
+        Map<String, Object> metadata = null;
+        if (token != null) {
+            value = token.getToken().getTokenValue();
+            if (token.getToken().getIssuedAt() != null) {
+                issuedAt = Timestamp.from(token.getToken().getIssuedAt());
+            }
+            if (token.getToken().getExpiresAt() != null) {
+                expiresAt = Timestamp.from(token.getToken().getExpiresAt());
+            }
+            metadata = token.getMetadata();
+        }
+        parameters.add(new SqlParameterValue(Types.VARCHAR, value));
+        parameters.add(new SqlParameterValue(Types.TIMESTAMP, issuedAt));
+        parameters.add(new SqlParameterValue(Types.TIMESTAMP, expiresAt));
+        addEncoded(parameters, metadata);
+    }
+
+    private void addEncoded(List<SqlParameterValue> parameters, @Nullable Map<String, Object> values) {
+        String json = values != null && writeJsonColumns ? codec.encodeJson(values) : null;
+        parameters.add(new SqlParameterValue(Types.VARCHAR, json));
+        parameters.add(new SqlParameterValue(Types.BINARY, values != null ? codec.encode(values) : null));
+    }
+}
@@ -0,0 +1,151 @@
+package com.acheron.authserver.config.authorization;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Row mapper for {@code oauth2_authorization} whose attribute and metadata columns are decoded by
+ * {@link OAuth2AuthorizationAttributeCodec}: the JSON text column when the row has one — it is
+ * current whichever node wrote the row last — and its {@code *_compact} twin otherwise. Everything
+ * else is mapped exactly as {@code JdbcOAuth2AuthorizationService.JsonMapperOAuth2AuthorizationRowMapper}
+ * maps it.
+ */
+public class CompactOAuth2AuthorizationRowMapper implements RowMapper<OAuth2Authorization> {
+
+    private final RegisteredClientRepository registeredClientRepository;
+    private final OAuth2AuthorizationAttributeCodec codec;
+
+    public CompactOAuth2AuthorizationRowMapper(RegisteredClientRepository registeredClientRepository,
+                                               OAuth2AuthorizationAttributeCodec codec) {
+        this.registeredClientRepository = registeredClientRepository;
+        this.codec = codec;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public OAuth2Authorization mapRow(ResultSet rs, int rowNum) throws SQLException {
+        String registeredClientId = rs.getString("registered_client_id");
+        RegisteredClient registeredClient = registeredClientRepository.findById(registeredClientId);
+        if (registeredClient == null) {
+            throw new DataRetrievalFailureException("The RegisteredClient with id '" + registeredClientId
+                    + "' was not found in the RegisteredClientRepository.");
+        }
+
+        Set<String> authorizedScopes = Collections.emptySet();
+        String authorizedScopesString = rs.getString("authorized_scopes");
+        if (authorizedScopesString != null) {
+            authorizedScopes = StringUtils.commaDelimitedListToSet(authorizedScopesString);
+        }
+        Map<String, Object> attributes = decode(rs, "attributes");
+
+        OAuth2Authorization.Builder builder = OAuth2Authorization.withRegisteredClient(registeredClient)
+                .id(rs.getString("id"))
+                .principalName(rs.getString("principal_name"))
+                .authorizationGrantType(new AuthorizationGrantType(rs.getString("authorization_grant_type")))
+                .authorizedScopes(authorizedScopes)
+                .attributes(attrs -> attrs.putAll(attributes));
+
+        String state = rs.getString("state");
+        if (StringUtils.hasText(state)) {
+            builder.attribute(OAuth2ParameterNames.STATE, state);
+        }
+
+        String authorizationCodeValue = rs.getString("authorization_code_value");
+        if (StringUtils.hasText(authorizationCodeValue)) {
+            Map<String, Object> metadata = decode(rs, "authorization_code_metadata");
+            builder.token(new OAuth2AuthorizationCode(authorizationCodeValue,
+                            instant(rs, "authorization_code_issued_at"), instant(rs, "authorization_code_expires_at")),
+                    m -> m.putAll(metadata));
+        }
+
+        String accessTokenValue = rs.getString("access_token_value");
+        if (StringUtils.hasText(accessTokenValue)) {
+            Map<String, Object> metadata = decode(rs, "access_token_metadata");
+            String accessTokenType = rs.getString("access_token_type");
+            OAuth2AccessToken.TokenType tokenType = null;
+            if (OAuth2AccessToken.TokenType.BEARER.getValue().equalsIgnoreCase(accessTokenType)) {
+                tokenType = OAuth2AccessToken.TokenType.BEARER;
+            } else if (OAuth2AccessToken.TokenType.DPOP.getValue().equalsIgnoreCase(accessTokenType)) {
+                tokenType = OAuth2AccessToken.TokenType.DPOP;
+            }
+            Set<String> scopes = Collections.emptySet();
+            String accessTokenScopes = rs.getString("access_token_scopes");
+            if (accessTokenScopes != null) {
+                scopes = StringUtils.commaDelimitedListToSet(accessTokenScopes);
+            }
+            builder.token(new OAuth2AccessToken(tokenType, accessTokenValue,
+                            instant(rs, "access_token_issued_at"), instant(rs, "access_token_expires_at"), scopes),
+                    m -> m.putAll(metadata));
+        }
+
+        String oidcIdTokenValue = rs.getString("oidc_id_token_value");
+        if (StringUtils.hasText(oidcIdTokenValue)) {
+            Map<String, Object> metadata = decode(rs, "oidc_id_token_metadata");
+            builder.token(new OidcIdToken(oidcIdTokenValue,
+                            instant(rs, "oidc_id_token_issued_at"), instant(rs, "oidc_id_token_expires_at"),
+                            (Map<String, Object>) metadata.get(OAuth2Authorization.Token.CLAIMS_METADATA_NAME)),
+                    m -> m.putAll(metadata));
+        }
+
+        String refreshTokenValue = rs.getString("refresh_token_value");
+        if (StringUtils.hasText(refreshTokenValue)) {
+            Map<String, Object> metadata = decode(rs, "refresh_token_metadata");
+            builder.token(new OAuth2RefreshToken(refreshTokenValue,
+                            instant(rs, "refresh_token_issued_at"), instant(rs, "refresh_token_expires_at")),
+                    m -> m.putAll(metadata));
+        }
+
+        String userCodeValue = rs.getString("user_code_value");
+        if (StringUtils.hasText(userCodeValue)) {
+            Map<String, Object> metadata = decode(rs, "user_code_metadata");
+            builder.token(new OAuth2UserCode(userCodeValue,
+                            instant(rs, "user_code_issued_at"), instant(rs, "user_code_expires_at")),
+                    m -> m.putAll(metadata));
+        }
+
+        String deviceCodeValue = rs.getString("device_code_value");
+        if (StringUtils.hasText(deviceCodeValue)) {
+            Map<String, Object> metadata = decode(rs, "device_code_metadata");
+            builder.token(new OAuth2DeviceCode(deviceCodeValue,
+                            instant(rs, "device_code_issued_at"), instant(rs, "device_code_expires_at")),
+                    m -> m.putAll(metadata));
+        }
+
+        return builder.build();
+    }
+
+    private Map<String, Object> decode(ResultSet rs, String column) throws SQLException {
+        try {
+            String json = rs.getString(column);
+            return codec.decode(json != null ? json.getBytes(StandardCharsets.UTF_8) : rs.getBytes(column + "_compact"));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Failed to decode " + column + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+}
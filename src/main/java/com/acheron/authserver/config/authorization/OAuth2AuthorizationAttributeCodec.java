@@ -0,0 +1,426 @@
+package com.acheron.authserver.config.authorization;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Versioned binary encoding for the {@code attributes_compact} and {@code *_metadata_compact} columns.
+ * <p>
+ * Version 1 writes one tagged value tree. Strings from a frozen dictionary of attribute, metadata
+ * and claim names shrink to a single byte; numbers and instants are varints; the
+ * {@link OAuth2AuthorizationRequest} is written field by field. Anything else — in practice the
+ * authenticated {@code Principal} — is embedded as polymorphic Smile, so it round-trips exactly as
+ * it does through the JSON mapper.
+ * <p>
+ * The first byte is the format version. The JSON text columns hold polymorphic JSON, which always
+ * starts with <code>{</code>; {@link #encodeJson} writes it as the stock JDBC service does, and
+ * {@link #decode} reads it as well. A new format gets a new version byte and the old reader stays,
+ * the same way.
+ */
+public class OAuth2AuthorizationAttributeCodec {
+
+    static final byte VERSION_1 = 1;
+
+    private static final byte LEGACY_JSON = '{';
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    // ── value tags (version 1) ─────────────────────────────────────────
+
+    private static final int NULL = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+    private static final int STRING = 3;
+    private static final int NAME = 4;
+    private static final int INT = 5;
+    private static final int LONG = 6;
+    private static final int DOUBLE = 7;
+    private static final int INSTANT = 8;
+    private static final int URL_VALUE = 9;
+    private static final int LIST = 10;
+    private static final int SET = 11;
+    private static final int MAP = 12;
+    private static final int AUTHORIZATION_REQUEST = 13;
+    private static final int OBJECT = 14;
+
+    /**
+     * Dictionary of version 1. Append-only within a version: an index, once written, must keep
+     * meaning the same string for as long as rows of that version can exist.
+     */
+    private static final List<String> NAMES_V1 = List.of(
+            // attributes
+            "java.security.Principal",
+            "org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest",
+            "token_version",
+            "state",
+            // token metadata
+            "metadata.token.claims",
+            "metadata.token.invalidated",
+            // registered claims
+            "iss", "sub", "aud", "exp", "nbf", "iat", "jti",
+            "scope", "azp", "auth_time", "nonce", "sid", "at_hash", "c_hash", "client_id",
+            // claims added by Oauth2AccessTokenCustomizer and the userinfo scopes
+            "user_id", "roles", "email", "email_verified", "preferred_username", "name", "picture",
+            // common values
+            "openid", "profile", "offline_access",
+            "USER", "ADMIN",
+            "code_challenge", "code_challenge_method", "S256", "continue",
+            // short claim names of TokenClaimProfile.COMPACT and MINIMAL
+            "uid", "rol", "tv");
+
+    private static final Map<String, Integer> NAME_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < NAMES_V1.size(); i++) {
+            NAME_INDEX.put(NAMES_V1.get(i), i);
+        }
+    }
+
+    private final JsonMapper jsonMapper;
+    private final SmileMapper smileMapper;
+
+    public OAuth2AuthorizationAttributeCodec(JsonMapper jsonMapper, SmileMapper smileMapper) {
+        this.jsonMapper = jsonMapper;
+        this.smileMapper = smileMapper;
+    }
+
+    public byte[] encode(Map<String, Object> values) {
+        Output out = new Output();
+        out.write(VERSION_1);
+        writeValue(out, values);
+        return out.toByteArray();
+    }
+
+    /**
+     * The polymorphic JSON the stock {@code JdbcOAuth2AuthorizationService} writes, for nodes that
+     * still read the text columns.
+     */
+    public String encodeJson(Map<String, Object> values) {
+        return jsonMapper.writeValueAsString(values);
+    }
+
+    public Map<String, Object> decode(@Nullable byte[] data) {
+        if (data == null || data.length == 0) return new HashMap<>();
+        return switch (data[0]) {
+            case VERSION_1 -> {
+                Input in = new Input(data, 1);
+                @SuppressWarnings("unchecked")
+                Map<String, Object> values = (Map<String, Object>) readValue(in);
+                yield values;
+            }
+            case LEGACY_JSON -> jsonMapper.readValue(data, MAP_TYPE);
+            default -> throw new IllegalArgumentException("Unsupported authorization attribute encoding: " + data[0]);
+        };
+    }
+
+    // ── write ──────────────────────────────────────────────────────────
+
+    private void writeValue(Output out, @Nullable Object value) {
+        switch (value) {
+            case null -> out.write(NULL);
+            case Boolean b -> out.write(b ? TRUE : FALSE);
+            case String s -> writeString(out, s);
+            case Integer i -> {
+                out.write(INT);
+                out.writeVarLong(zigZag(i));
+            }
+            case Long l -> {
+                out.write(LONG);
+                out.writeVarLong(zigZag(l));
+            }
+            case Double d -> {
+                out.write(DOUBLE);
+                out.writeLong(Double.doubleToRawLongBits(d));
+            }
+            case Instant instant -> {
+                out.write(INSTANT);
+                out.writeVarLong(zigZag(instant.getEpochSecond()));
+                out.writeVarLong(instant.getNano());
+            }
+            case URL url -> {
+                out.write(URL_VALUE);
+                out.writeUtf8(url.toExternalForm());
+            }
+            case List<?> list -> writeCollection(out, LIST, list);
+            case Set<?> set -> writeCollection(out, SET, set);
+            case Map<?, ?> map when hasStringKeys(map) -> {
+                out.write(MAP);
+                out.writeVarLong(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(out, (String) entry.getKey());
+                    writeValue(out, entry.getValue());
+                }
+            }
+            case OAuth2AuthorizationRequest request
+                    when AuthorizationGrantType.AUTHORIZATION_CODE.equals(request.getGrantType()) -> {
+                out.write(AUTHORIZATION_REQUEST);
+                writeValue(out, request.getAuthorizationUri());
+                writeValue(out, request.getClientId());
+                writeValue(out, request.getRedirectUri());
+                writeValue(out, request.getScopes());
+                writeValue(out, request.getState());
+                writeValue(out, request.getAdditionalParameters());
+                writeValue(out, request.getAuthorizationRequestUri());
+                writeValue(out, request.getAttributes());
+            }
+            default -> {
+                out.write(OBJECT);
+                byte[] smile = smileMapper.writerFor(Object.class).writeValueAsBytes(value);
+                out.writeVarLong(smile.length);
+                out.write(smile);
+            }
+        }
+    }
+
+    private void writeCollection(Output out, int tag, Collection<?> values) {
+        out.write(tag);
+        out.writeVarLong(values.size());
+        for (Object value : values) {
+            writeValue(out, value);
+        }
+    }
+
+    private static void writeString(Output out, String value) {
+        Integer index = NAME_INDEX.get(value);
+        if (index != null) {
+            out.write(NAME);
+            out.writeVarLong(index);
+        } else {
+            out.write(STRING);
+            out.writeUtf8(value);
+        }
+    }
+
+    // ── read ───────────────────────────────────────────────────────────
+
+    @Nullable
+    private Object readValue(Input in) {
+        int tag = in.read();
+        return switch (tag) {
+            case NULL -> null;
+            case FALSE -> Boolean.FALSE;
+            case TRUE -> Boolean.TRUE;
+            case STRING, NAME -> readString(in, tag);
+            case INT -> (int) unZigZag(in.readVarLong());
+            case LONG -> unZigZag(in.readVarLong());
+            case DOUBLE -> Double.longBitsToDouble(in.readLong());
+            case INSTANT -> Instant.ofEpochSecond(unZigZag(in.readVarLong()), in.readVarLong());
+            case URL_VALUE -> url(in.readUtf8());
+            case LIST -> {
+                int size = in.readSize();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) list.add(readValue(in));
+                yield list;
+            }
+            case SET -> {
+                int size = in.readSize();
+                Set<Object> set = new LinkedHashSet<>();
+                for (int i = 0; i < size; i++) set.add(readValue(in));
+                yield set;
+            }
+            case MAP -> {
+                int size = in.readSize();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in, in.read());
+                    map.put(key, readValue(in));
+                }
+                yield map;
+            }
+            case AUTHORIZATION_REQUEST -> readAuthorizationRequest(in);
+            case OBJECT -> {
+                int length = in.readSize();
+                yield smileMapper.readValue(in.readBytes(length), Object.class);
+            }
+            default -> throw new IllegalArgumentException("Unknown authorization attribute tag " + tag);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private OAuth2AuthorizationRequest readAuthorizationRequest(Input in) {
+        String authorizationUri = (String) readValue(in);
+        String clientId = (String) readValue(in);
+        String redirectUri = (String) readValue(in);
+        Set<String> scopes = (Set<String>) readValue(in);
+        String state = (String) readValue(in);
+        Map<String, Object> additionalParameters = (Map<String, Object>) readValue(in);
+        String authorizationRequestUri = (String) readValue(in);
+        Map<String, Object> attributes = (Map<String, Object>) readValue(in);
+        return OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri(authorizationUri)
+                .clientId(clientId)
+                .redirectUri(redirectUri)
+                .scopes(scopes)
+                .state(state)
+                .additionalParameters(additionalParameters)
+                .authorizationRequestUri(authorizationRequestUri)
+                .attributes(attributes)
+                .build();
+    }
+
+    private static String readString(Input in, int tag) {
+        return switch (tag) {
+            case STRING -> in.readUtf8();
+            case NAME -> {
+                long index = in.readVarLong();
+                if (index >= NAMES_V1.size()) {
+                    throw new IllegalArgumentException("Unknown name index in authorization attributes: " + index);
+                }
+                yield NAMES_V1.get((int) index);
+            }
+            default -> throw new IllegalArgumentException("Expected a string, found tag " + tag);
+        };
+    }
+
+    // ── helpers ────────────────────────────────────────────────────────
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) return false;
+        }
+        return true;
+    }
+
+    private static URL url(String value) {
+        try {
+            return URI.create(value).toURL();
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid URL in authorization attributes: " + value, e);
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Output {
+
+        private byte[] buffer = new byte[256];
+        private int size;
+
+        void write(int b) {
+            ensure(1);
+            buffer[size++] = (byte) b;
+        }
+
+        void write(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeUtf8(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            write(bytes);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        int read() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated authorization attributes");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed varint in authorization attributes");
+        }
+
+        /** A length or element count; either is bounded by the bytes left to read. */
+        int readSize() {
+            long value = readVarLong();
+            if (value > data.length - position) {
+                throw new IllegalArgumentException("Invalid length in authorization attributes: " + value);
+            }
+            return (int) value;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | read();
+            }
+            return value;
+        }
+
+        byte[] readBytes(int length) {
+            byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        String readUtf8() {
+            int length = readSize();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.acheron.authserver.config.authorization;
+
+import com.acheron.authserver.dto.util.AuthorizationsRevokedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.DefaultStringRedisConnection;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Two-tier read cache for {@code findByToken}: a bounded in-process map in front of Redis,
+ * both in front of the authorization table.
+ * <p>
+ * Only reusable bearer values (access and ID tokens) are cached. Codes and rotated refresh tokens
+ * are looked up once per use, so a cached copy would never be hit — and a stale one would reopen
+ * the reuse window the token store is supposed to close.
+ * <p>
+ * Entries are keyed by the SHA-256 of the token value and expire with the token they were looked up
+ * by, capped at {@code app.authorization.cache.max-ttl}. Every save or remove of an authorization
+ * evicts it on all nodes through the {@value #CHANNEL} channel. A fill that raced an eviction is
+ * dropped: both tiers keep a short tombstone per evicted id and refuse entries read before it.
+ * In Redis the tombstone and the hash carry the id as a hash tag, so the checked fill is one
+ * script on one cluster slot; the token pointer and the principal set follow as plain commands.
+ * <p>
+ * Redis failures never fail a lookup — the cache degrades to the local tier and the database.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.authorization.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class OAuth2AuthorizationCache {
+
+    static final String CHANNEL = "auth:authorization-cache:invalidate";
+
+    private static final String KEY_PREFIX = "auth:authorization-cache:";
+    private static final String ID_MESSAGE = "id:";
+    private static final String ID_SEPARATOR = ",";
+    private static final String PRINCIPAL_MESSAGE = "principal:";
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(1);
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(1);
+    /** Untagged hash layout of earlier releases, still deleted on eviction while such nodes may fill it. */
+    private static final String LEGACY_AUTHORIZATION_PREFIX = KEY_PREFIX + "authorization:";
+
+    /*
+     * KEYS: authorization, tombstone — both tagged with the id, so they share a cluster slot
+     * ARGV: read stamp, authorization ttl, hash field/value pairs…
+     * Returns 0 when the authorization was evicted after the read the fill comes from.
+     */
+    private static final RedisScript<Long> FILL_SCRIPT = RedisScript.of("""
+            local evicted = redis.call('GET', KEYS[2])
+            if evicted and tonumber(evicted) >= tonumber(ARGV[1]) then return 0 end
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], unpack(ARGV, 3))
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final OAuth2AuthorizationHashMapper hashMapper;
+    private final Duration maxTtl;
+    private final boolean redisEnabled;
+
+    private final Cache<String, CachedAuthorization> local;
+    private final Map<String, Set<String>> keysByAuthorizationId = new ConcurrentHashMap<>();
+    private final Cache<String, Long> localTombstones;
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    public OAuth2AuthorizationCache(StringRedisTemplate redis,
+                                    RedisMessageListenerContainer listenerContainer,
+                                    OAuth2AuthorizationHashMapper hashMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.authorization.cache.local-max-size:10000}") long localMaxSize,
+                                    @Value("${app.authorization.cache.max-ttl:10m}") Duration maxTtl,
+                                    @Value("${app.authorization.cache.redis-enabled:true}") boolean redisEnabled) {
+        this.redis = redis;
+        this.hashMapper = hashMapper;
+        this.maxTtl = maxTtl;
+        this.redisEnabled = redisEnabled;
+
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfter(new ExpireWithToken())
+                .removalListener((String key, CachedAuthorization value, RemovalCause cause) -> {
+                    if (key != null && value != null && cause != RemovalCause.REPLACED) {
+                        unindex(value.authorization().getId(), key);
+                    }
+                })
+                .build();
+        this.localTombstones = Caffeine.newBuilder()
+                .expireAfterWrite(TOMBSTONE_TTL)
+                .build();
+
+        this.localHits = counter(meterRegistry, "local", "hit");
+        this.localMisses = counter(meterRegistry, "local", "miss");
+        this.redisHits = counter(meterRegistry, "redis", "hit");
+        this.redisMisses = counter(meterRegistry, "redis", "miss");
+        Gauge.builder("auth.authorization.cache.size", local, Cache::estimatedSize)
+                .description("Authorizations held in the in-process cache tier")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener((message, pattern) -> onInvalidation(message), new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Marks the start of a database read. Pass the result to {@link #put} so a fill that
+     * raced a concurrent eviction is discarded instead of resurrecting the stale row.
+     */
+    public long readStamp() {
+        return System.currentTimeMillis();
+    }
+
+    @Nullable
+    public OAuth2Authorization get(String token, @Nullable OAuth2TokenType tokenType) {
+        String key = key(token, tokenType);
+        CachedAuthorization cached = local.getIfPresent(key);
+        if (cached != null) {
+            localHits.increment();
+            return cached.authorization();
+        }
+        localMisses.increment();
+
+        if (!redisEnabled) return null;
+        long stamp = readStamp();
+        OAuth2Authorization authorization = readRedis(key, token, tokenType);
+        if (authorization == null) {
+            redisMisses.increment();
+            return null;
+        }
+        redisHits.increment();
+        putLocal(key, token, tokenType, authorization, stamp);
+        return authorization;
+    }
+
+    public void put(String token, @Nullable OAuth2TokenType tokenType, OAuth2Authorization authorization, long readStamp) {
+        String key = key(token, tokenType);
+        Instant expiresAt = putLocal(key, token, tokenType, authorization, readStamp);
+        if (expiresAt != null && redisEnabled) {
+            writeRedis(key, authorization, expiresAt, readStamp);
+        }
+    }
+
+    public void evict(String authorizationId) {
+        evictAll(List.of(authorizationId));
+    }
+
+    /**
+     * Evicts a batch of authorizations with one tombstone pipeline and one invalidation message.
+     */
+    public void evictAll(Collection<String> authorizationIds) {
+        if (authorizationIds.isEmpty()) return;
+        authorizationIds.forEach(this::evictLocal);
+        if (!redisEnabled) return;
+        try {
+            tombstoneRedis(authorizationIds);
+            redis.convertAndSend(CHANNEL, ID_MESSAGE + String.join(ID_SEPARATOR, authorizationIds));
+        } catch (RuntimeException e) {
+            log.warn("Authorization cache: failed to evict {} authorization(s) from Redis — {}",
+                    authorizationIds.size(), e.getMessage());
+        }
+    }
+
+    public void evictPrincipal(String principalName) {
+        evictLocalPrincipal(principalName);
+        if (!redisEnabled) return;
+        try {
+            String principalKey = KEY_PREFIX + "principal:" + principalName;
+            Set<String> ids = redis.opsForSet().members(principalKey);
+            if (ids != null && !ids.isEmpty()) {
+                tombstoneRedis(ids);
+            }
+            redis.delete(principalKey);
+            redis.convertAndSend(CHANNEL, PRINCIPAL_MESSAGE + principalName);
+        } catch (RuntimeException e) {
+            log.warn("Authorization cache: failed to evict principal '{}' from Redis — {}", principalName, e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorizationsRevoked(AuthorizationsRevokedEvent event) {
+        evictPrincipal(event.principalName());
+    }
+
+    // ── local tier ───────────────────────────────────────────────────
+
+    @Nullable
+    private Instant putLocal(String key, String token, @Nullable OAuth2TokenType tokenType,
+                             OAuth2Authorization authorization, long readStamp) {
+        OAuth2Authorization.Token<?> matched = OAuth2AuthorizationTokens.matchedToken(authorization, token, tokenType);
+        if (matched == null || !isCacheable(matched) || !matched.isActive()) return null;
+
+        Long evictedAt = localTombstones.getIfPresent(authorization.getId());
+        if (evictedAt != null && evictedAt >= readStamp) return null;
+
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(maxTtl);
+        Instant tokenExpiresAt = matched.getToken().getExpiresAt();
+        if (tokenExpiresAt != null && tokenExpiresAt.isBefore(expiresAt)) {
+            expiresAt = tokenExpiresAt;
+        }
+        if (!expiresAt.isAfter(now)) return null;
+
+        keysByAuthorizationId.computeIfAbsent(authorization.getId(), id -> ConcurrentHashMap.newKeySet()).add(key);
+        local.put(key, new CachedAuthorization(authorization, expiresAt));
+        return expiresAt;
+    }
+
+    private void evictLocal(String authorizationId) {
+        localTombstones.put(authorizationId, System.currentTimeMillis());
+        Set<String> keys = keysByAuthorizationId.remove(authorizationId);
+        if (keys != null) {
+            local.invalidateAll(keys);
+        }
+    }
+
+    private void evictLocalPrincipal(String principalName) {
+        List<String> ids = new ArrayList<>();
+        local.asMap().values().forEach(cached -> {
+            if (principalName.equals(cached.authorization().getPrincipalName())) {
+                ids.add(cached.authorization().getId());
+            }
+        });
+        ids.forEach(this::evictLocal);
+    }
+
+    private void unindex(String authorizationId, String key) {
+        keysByAuthorizationId.computeIfPresent(authorizationId, (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private void onInvalidation(Message message) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.startsWith(ID_MESSAGE)) {
+            for (String id : body.substring(ID_MESSAGE.length()).split(ID_SEPARATOR)) {
+                evictLocal(id);
+            }
+        } else if (body.startsWith(PRINCIPAL_MESSAGE)) {
+            evictLocalPrincipal(body.substring(PRINCIPAL_MESSAGE.length()));
+        }
+    }
+
+    // ── redis tier ───────────────────────────────────────────────────
+
+    @Nullable
+    private OAuth2Authorization readRedis(String key, String token, @Nullable OAuth2TokenType tokenType) {
+        try {
+            String authorizationId = redis.opsForValue().get(KEY_PREFIX + "token:" + key);
+            if (authorizationId == null) return null;
+
+            Map<String, String> hash = redis.<String, String>opsForHash().entries(authorizationKey(authorizationId));
+            if (hash.isEmpty()) return null;
+
+            OAuth2Authorization authorization = hashMapper.fromHash(hash);
+            return OAuth2AuthorizationTokens.matches(authorization, token, tokenType) ? authorization : null;
+        } catch (RuntimeException e) {
+            log.warn("Authorization cache: Redis read failed — {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, OAuth2Authorization authorization, Instant expiresAt, long readStamp) {
+        try {
+            long pointerTtl = Math.max(1, Duration.between(Instant.now(), expiresAt).toMillis());
+            List<String> args = new ArrayList<>();
+            args.add(Long.toString(readStamp - CLOCK_SKEW.toMillis()));
+            args.add(Long.toString(maxTtl.toMillis()));
+            hashMapper.toHash(authorization).forEach((field, value) -> {
+                args.add(field);
+                args.add(value);
+            });
+            Long filled = redis.execute(FILL_SCRIPT,
+                    List.of(authorizationKey(authorization.getId()), tombstoneKey(authorization.getId())), args.toArray());
+            if (filled == null || filled == 0) return;
+
+            // A pointer outliving an eviction that lands in between only ever resolves to a miss
+            String principalKey = KEY_PREFIX + "principal:" + authorization.getPrincipalName();
+            redis.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection commands = new DefaultStringRedisConnection(connection);
+                commands.pSetEx(KEY_PREFIX + "token:" + key, pointerTtl, authorization.getId());
+                commands.sAdd(principalKey, authorization.getId());
+                commands.pExpire(principalKey, maxTtl.toMillis());
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Authorization cache: Redis write failed — {}", e.getMessage());
+        }
+    }
+
+    private void tombstoneRedis(Iterable<String> authorizationIds) {
+        String now = Long.toString(System.currentTimeMillis());
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection commands = new DefaultStringRedisConnection(connection);
+            for (String id : authorizationIds) {
+                commands.del(authorizationKey(id), LEGACY_AUTHORIZATION_PREFIX + id);
+                commands.pSetEx(tombstoneKey(id), TOMBSTONE_TTL.toMillis(), now);
+            }
+            return null;
+        });
+    }
+
+    // ── helpers ──────────────────────────────────────────────────────
+
+    private static String authorizationKey(String authorizationId) {
+        return KEY_PREFIX + "authorization:{" + authorizationId + "}";
+    }
+
+    private static String tombstoneKey(String authorizationId) {
+        return KEY_PREFIX + "evicted:{" + authorizationId + "}";
+    }
+
+    private static boolean isCacheable(OAuth2Authorization.Token<?> token) {
+        return token.getToken() instanceof OAuth2AccessToken || token.getToken() instanceof OidcIdToken;
+    }
+
+    private static String key(String token, @Nullable OAuth2TokenType tokenType) {
+        String type = tokenType != null ? tokenType.getValue() : "any";
+        return type + ":" + OAuth2AuthorizationTokens.sha256Base64Url(token);
+    }
+
+    private static Counter counter(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("auth.authorization.cache.requests")
+                .description("Authorization lookups served by each cache tier")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record CachedAuthorization(OAuth2Authorization authorization, Instant expiresAt) {
+    }
+
+    private static final class ExpireWithToken implements Expiry<String, CachedAuthorization> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedAuthorization value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedAuthorization value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedAuthorization value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
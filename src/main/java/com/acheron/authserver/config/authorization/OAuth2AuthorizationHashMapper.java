@@ -0,0 +1,163 @@
+package com.acheron.authserver.config.authorization;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.redis.hash.HashMapper;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.util.StringUtils;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flattens an {@link OAuth2Authorization} into a Redis hash of strings and back.
+ * <p>
+ * Field layout mirrors the {@code oauth2_authorization} table: one field per column,
+ * with token columns grouped under a prefix ({@code access.value}, {@code access.expiresAt}, …).
+ * Attributes and token metadata use the same polymorphic {@link JsonMapper} as the JDBC store,
+ * so an authorization read from Redis is indistinguishable from one read from Postgres.
+ */
+public class OAuth2AuthorizationHashMapper implements HashMapper<OAuth2Authorization, String, String> {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private static final String ID = "id";
+    private static final String REGISTERED_CLIENT_ID = "registeredClientId";
+    private static final String PRINCIPAL_NAME = "principalName";
+    private static final String GRANT_TYPE = "grantType";
+    private static final String SCOPES = "scopes";
+    private static final String ATTRIBUTES = "attributes";
+
+    private static final String CODE = "code";
+    private static final String ACCESS = "access";
+    private static final String ID_TOKEN = "idToken";
+    private static final String REFRESH = "refresh";
+    private static final String USER_CODE = "userCode";
+    private static final String DEVICE_CODE = "deviceCode";
+
+    private final RegisteredClientRepository registeredClientRepository;
+    private final JsonMapper jsonMapper;
+
+    public OAuth2AuthorizationHashMapper(RegisteredClientRepository registeredClientRepository, JsonMapper jsonMapper) {
+        this.registeredClientRepository = registeredClientRepository;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public Map<String, String> toHash(OAuth2Authorization authorization) {
+        Map<String, String> hash = new HashMap<>();
+        hash.put(ID, authorization.getId());
+        hash.put(REGISTERED_CLIENT_ID, authorization.getRegisteredClientId());
+        hash.put(PRINCIPAL_NAME, authorization.getPrincipalName());
+        hash.put(GRANT_TYPE, authorization.getAuthorizationGrantType().getValue());
+        hash.put(SCOPES, StringUtils.collectionToCommaDelimitedString(authorization.getAuthorizedScopes()));
+        hash.put(ATTRIBUTES, jsonMapper.writeValueAsString(authorization.getAttributes()));
+
+        putToken(hash, CODE, authorization.getToken(OAuth2AuthorizationCode.class));
+        OAuth2Authorization.Token<OAuth2AccessToken> accessToken = authorization.getToken(OAuth2AccessToken.class);
+        if (putToken(hash, ACCESS, accessToken)) {
+            hash.put(ACCESS + ".type", accessToken.getToken().getTokenType().getValue());
+            hash.put(ACCESS + ".scopes", StringUtils.collectionToCommaDelimitedString(accessToken.getToken().getScopes()));
+        }
+        putToken(hash, ID_TOKEN, authorization.getToken(OidcIdToken.class));
+        putToken(hash, REFRESH, authorization.getToken(OAuth2RefreshToken.class));
+        putToken(hash, USER_CODE, authorization.getToken(OAuth2UserCode.class));
+        putToken(hash, DEVICE_CODE, authorization.getToken(OAuth2DeviceCode.class));
+        return hash;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public OAuth2Authorization fromHash(Map<String, String> hash) {
+        String registeredClientId = hash.get(REGISTERED_CLIENT_ID);
+        RegisteredClient registeredClient = registeredClientRepository.findById(registeredClientId);
+        if (registeredClient == null) {
+            throw new DataRetrievalFailureException("The RegisteredClient with id '" + registeredClientId
+                    + "' was not found in the RegisteredClientRepository.");
+        }
+
+        OAuth2Authorization.Builder builder = OAuth2Authorization.withRegisteredClient(registeredClient)
+                .id(hash.get(ID))
+                .principalName(hash.get(PRINCIPAL_NAME))
+                .authorizationGrantType(new AuthorizationGrantType(hash.get(GRANT_TYPE)))
+                .authorizedScopes(StringUtils.commaDelimitedListToSet(hash.get(SCOPES)))
+                .attributes(attributes -> attributes.putAll(readMap(hash.get(ATTRIBUTES))));
+
+        if (hash.containsKey(CODE + ".value")) {
+            builder.token(new OAuth2AuthorizationCode(hash.get(CODE + ".value"),
+                            instant(hash, CODE + ".issuedAt"), instant(hash, CODE + ".expiresAt")),
+                    metadata -> metadata.putAll(readMap(hash.get(CODE + ".metadata"))));
+        }
+        if (hash.containsKey(ACCESS + ".value")) {
+            OAuth2AccessToken.TokenType tokenType = OAuth2AccessToken.TokenType.DPOP.getValue()
+                    .equalsIgnoreCase(hash.get(ACCESS + ".type"))
+                    ? OAuth2AccessToken.TokenType.DPOP
+                    : OAuth2AccessToken.TokenType.BEARER;
+            Set<String> scopes = StringUtils.commaDelimitedListToSet(hash.get(ACCESS + ".scopes"));
+            builder.token(new OAuth2AccessToken(tokenType, hash.get(ACCESS + ".value"),
+                            instant(hash, ACCESS + ".issuedAt"), instant(hash, ACCESS + ".expiresAt"), scopes),
+                    metadata -> metadata.putAll(readMap(hash.get(ACCESS + ".metadata"))));
+        }
+        if (hash.containsKey(ID_TOKEN + ".value")) {
+            Map<String, Object> metadata = readMap(hash.get(ID_TOKEN + ".metadata"));
+            builder.token(new OidcIdToken(hash.get(ID_TOKEN + ".value"),
+                            instant(hash, ID_TOKEN + ".issuedAt"), instant(hash, ID_TOKEN + ".expiresAt"),
+                            (Map<String, Object>) metadata.get(OAuth2Authorization.Token.CLAIMS_METADATA_NAME)),
+                    m -> m.putAll(metadata));
+        }
+        if (hash.containsKey(REFRESH + ".value")) {
+            builder.token(new OAuth2RefreshToken(hash.get(REFRESH + ".value"),
+                            instant(hash, REFRESH + ".issuedAt"), instant(hash, REFRESH + ".expiresAt")),
+                    metadata -> metadata.putAll(readMap(hash.get(REFRESH + ".metadata"))));
+        }
+        if (hash.containsKey(USER_CODE + ".value")) {
+            builder.token(new OAuth2UserCode(hash.get(USER_CODE + ".value"),
+                            instant(hash, USER_CODE + ".issuedAt"), instant(hash, USER_CODE + ".expiresAt")),
+                    metadata -> metadata.putAll(readMap(hash.get(USER_CODE + ".metadata"))));
+        }
+        if (hash.containsKey(DEVICE_CODE + ".value")) {
+            builder.token(new OAuth2DeviceCode(hash.get(DEVICE_CODE + ".value"),
+                            instant(hash, DEVICE_CODE + ".issuedAt"), instant(hash, DEVICE_CODE + ".expiresAt")),
+                    metadata -> metadata.putAll(readMap(hash.get(DEVICE_CODE + ".metadata"))));
+        }
+        return builder.build();
+    }
+
+    private boolean putToken(Map<String, String> hash, String prefix, OAuth2Authorization.Token<? extends OAuth2Token> token) {
+        if (token == null) return false;
+        hash.put(prefix + ".value", token.getToken().getTokenValue());
+        putInstant(hash, prefix + ".issuedAt", token.getToken().getIssuedAt());
+        putInstant(hash, prefix + ".expiresAt", token.getToken().getExpiresAt());
+        hash.put(prefix + ".metadata", jsonMapper.writeValueAsString(token.getMetadata()));
+        return true;
+    }
+
+    private static void putInstant(Map<String, String> hash, String field, Instant value) {
+        if (value != null) {
+            hash.put(field, value.toString());
+        }
+    }
+
+    private static Instant instant(Map<String, String> hash, String field) {
+        String value = hash.get(field);
+        return value != null ? Instant.parse(value) : null;
+    }
+
+    private Map<String, Object> readMap(String json) {
+        return json != null ? jsonMapper.readValue(json, MAP_TYPE) : Map.of();
+    }
+}
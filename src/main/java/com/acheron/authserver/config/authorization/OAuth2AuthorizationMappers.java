@@ -0,0 +1,52 @@
+package com.acheron.authserver.config.authorization;
+
+import com.acheron.authserver.entity.User;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import org.springframework.security.jackson.SecurityJacksonModules;
+import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationService;
+import tools.jackson.databind.DefaultTyping;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.cfg.MapperBuilder;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Mappers for authorization attributes and token metadata. Deliberately not beans:
+ * their default typing must never leak into the application-wide {@link JsonMapper}.
+ */
+public final class OAuth2AuthorizationMappers {
+
+    private OAuth2AuthorizationMappers() {
+    }
+
+    public static JsonMapper jsonMapper() {
+        return configure(JsonMapper.builder());
+    }
+
+    /**
+     * Same typing and allow-list as {@link #jsonMapper()}, in Jackson's binary Smile format.
+     */
+    public static SmileMapper smileMapper() {
+        return configure(SmileMapper.builder());
+    }
+
+    private static <M extends ObjectMapper, B extends MapperBuilder<M, B>> M configure(B builder) {
+        ClassLoader classLoader = JdbcOAuth2AuthorizationService.class.getClassLoader();
+
+        BasicPolymorphicTypeValidator.Builder typeValidatorBuilder = BasicPolymorphicTypeValidator.builder()
+                .allowIfBaseType(User.class)
+                .allowIfSubType("com.acheron.authserver.entity")
+                .allowIfSubType("java.util")
+                .allowIfSubType("org.springframework.security");
+
+        var securityModules = SecurityJacksonModules.getModules(classLoader, typeValidatorBuilder);
+
+        return builder
+                .addModules(securityModules)
+                .activateDefaultTyping(typeValidatorBuilder.build(),
+                        DefaultTyping.NON_FINAL,
+                        JsonTypeInfo.As.PROPERTY)
+                .build();
+    }
+}
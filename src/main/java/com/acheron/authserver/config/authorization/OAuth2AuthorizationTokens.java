@@ -0,0 +1,113 @@
+package com.acheron.authserver.config.authorization;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Token helpers shared by the authorization stores and caches.
+ * <p>
+ * Token values are never used as keys directly — stores key by their SHA-256 digest,
+ * so a leaked cache or index does not leak usable bearer tokens.
+ */
+public final class OAuth2AuthorizationTokens {
+
+    private static final OAuth2TokenType STATE_TOKEN_TYPE = new OAuth2TokenType(OAuth2ParameterNames.STATE);
+    private static final OAuth2TokenType CODE_TOKEN_TYPE = new OAuth2TokenType(OAuth2ParameterNames.CODE);
+    private static final OAuth2TokenType ID_TOKEN_TOKEN_TYPE = new OAuth2TokenType(OidcParameterNames.ID_TOKEN);
+    private static final OAuth2TokenType USER_CODE_TOKEN_TYPE = new OAuth2TokenType(OAuth2ParameterNames.USER_CODE);
+    private static final OAuth2TokenType DEVICE_CODE_TOKEN_TYPE = new OAuth2TokenType(OAuth2ParameterNames.DEVICE_CODE);
+
+    private static final List<Class<? extends OAuth2Token>> TOKEN_CLASSES = List.of(
+            OAuth2AuthorizationCode.class, OAuth2AccessToken.class, OidcIdToken.class,
+            OAuth2RefreshToken.class, OAuth2UserCode.class, OAuth2DeviceCode.class);
+
+    private OAuth2AuthorizationTokens() {
+    }
+
+    public static byte[] sha256(String tokenValue) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(tokenValue.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static String sha256Hex(String tokenValue) {
+        return HexFormat.of().formatHex(sha256(tokenValue));
+    }
+
+    public static String sha256Base64Url(String tokenValue) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(tokenValue));
+    }
+
+    /**
+     * Same matching rules as the in-memory and JDBC services: a {@code null} type
+     * matches the state or any token held by the authorization.
+     */
+    public static boolean matches(OAuth2Authorization authorization, String token, @Nullable OAuth2TokenType tokenType) {
+        if (tokenType == null) {
+            return matchesState(authorization, token) || findMatching(authorization, token) != null;
+        }
+        if (STATE_TOKEN_TYPE.equals(tokenType)) {
+            return matchesState(authorization, token);
+        }
+        return matchesToken(tokenOfType(authorization, tokenType), token);
+    }
+
+    /**
+     * The token a lookup matched on, or {@code null} for state lookups and misses.
+     */
+    @Nullable
+    public static OAuth2Authorization.Token<?> matchedToken(OAuth2Authorization authorization, String token,
+                                                            @Nullable OAuth2TokenType tokenType) {
+        OAuth2Authorization.Token<?> candidate = tokenType != null
+                ? tokenOfType(authorization, tokenType)
+                : findMatching(authorization, token);
+        return matchesToken(candidate, token) ? candidate : null;
+    }
+
+    @Nullable
+    private static OAuth2Authorization.Token<?> tokenOfType(OAuth2Authorization authorization, OAuth2TokenType tokenType) {
+        if (CODE_TOKEN_TYPE.equals(tokenType)) return authorization.getToken(OAuth2AuthorizationCode.class);
+        if (OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) return authorization.getToken(OAuth2AccessToken.class);
+        if (ID_TOKEN_TOKEN_TYPE.equals(tokenType)) return authorization.getToken(OidcIdToken.class);
+        if (OAuth2TokenType.REFRESH_TOKEN.equals(tokenType)) return authorization.getToken(OAuth2RefreshToken.class);
+        if (USER_CODE_TOKEN_TYPE.equals(tokenType)) return authorization.getToken(OAuth2UserCode.class);
+        if (DEVICE_CODE_TOKEN_TYPE.equals(tokenType)) return authorization.getToken(OAuth2DeviceCode.class);
+        return null;
+    }
+
+    @Nullable
+    private static OAuth2Authorization.Token<?> findMatching(OAuth2Authorization authorization, String token) {
+        for (Class<? extends OAuth2Token> type : TOKEN_CLASSES) {
+            OAuth2Authorization.Token<?> candidate = authorization.getToken(type);
+            if (matchesToken(candidate, token)) return candidate;
+        }
+        return null;
+    }
+
+    private static boolean matchesState(OAuth2Authorization authorization, String token) {
+        return token.equals(authorization.getAttribute(OAuth2ParameterNames.STATE));
+    }
+
+    private static boolean matchesToken(@Nullable OAuth2Authorization.Token<?> authorizationToken, String token) {
+        return authorizationToken != null && authorizationToken.getToken().getTokenValue().equals(token);
+    }
+}
@@ -0,0 +1,282 @@
+package com.acheron.authserver.config.authorization;
+
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * {@link JdbcOAuth2AuthorizationService} that looks tokens up by their SHA-256 digest.
+ * <p>
+ * The stock service filters on the raw {@code *_value} text columns, which are unindexed, so every
+ * {@code findByToken} is a sequential scan. Here each token column has a {@code bytea} digest twin
+ * (see {@code db-changelog-006}) with a partial b-tree index; reads filter on them, re-checking the
+ * raw value on the matched row. A trigger fills the digests on every write, so rows written by any
+ * service that only knows the {@code *_value} columns — an older node during a rolling deploy — are
+ * found too.
+ * <p>
+ * Attributes and token metadata are written to the JSON text columns older nodes read and to their
+ * {@code *_compact} twins (see {@code db-changelog-008}); reads select both, which the stock
+ * {@code findById} query does not, so it is overridden here.
+ * <p>
+ * Saves are a single {@code INSERT ... ON CONFLICT (id) DO UPDATE} instead of the stock
+ * find-then-insert-or-update. Only the token groups present on the authorization are written; the
+ * authorization server never drops a token from an authorization, it only invalidates it through
+ * metadata, so an absent group is one the stored row does not have either. The statement for each
+ * combination of present tokens is built once. {@link #saveAll} sends many saves as JDBC batches.
+ * <p>
+ * {@link #removeBatch} deletes through the {@code principal_name} and {@code registered_client_id}
+ * indexes (see {@code db-changelog-009}), one bounded chunk per statement.
+ */
+public class PostgresOAuth2AuthorizationService extends JdbcOAuth2AuthorizationService
+        implements RevocableOAuth2AuthorizationService {
+
+    private static final String COLUMN_NAMES = String.join(", ",
+            "id", "registered_client_id", "principal_name", "authorization_grant_type",
+            "authorized_scopes", "attributes", "attributes_compact", "state",
+            "authorization_code_value", "authorization_code_issued_at", "authorization_code_expires_at",
+            "authorization_code_metadata", "authorization_code_metadata_compact",
+            "access_token_value", "access_token_issued_at", "access_token_expires_at",
+            "access_token_metadata", "access_token_metadata_compact", "access_token_type", "access_token_scopes",
+            "oidc_id_token_value", "oidc_id_token_issued_at", "oidc_id_token_expires_at",
+            "oidc_id_token_metadata", "oidc_id_token_metadata_compact",
+            "refresh_token_value", "refresh_token_issued_at", "refresh_token_expires_at",
+            "refresh_token_metadata", "refresh_token_metadata_compact",
+            "user_code_value", "user_code_issued_at", "user_code_expires_at",
+            "user_code_metadata", "user_code_metadata_compact",
+            "device_code_value", "device_code_issued_at", "device_code_expires_at",
+            "device_code_metadata", "device_code_metadata_compact");
+
+    /** Leading columns of the parameters mapper output that are written on every save. */
+    private static final List<String> HEADER_COLUMNS = List.of(
+            "id", "registered_client_id", "principal_name", "authorization_grant_type",
+            "authorized_scopes", "attributes", "attributes_compact", "state");
+
+    private static final String AUTHORIZATION_CODE_DIGEST = "authorization_code_digest";
+    private static final String ACCESS_TOKEN_DIGEST = "access_token_digest";
+    private static final String OIDC_ID_TOKEN_DIGEST = "oidc_id_token_digest";
+    private static final String REFRESH_TOKEN_DIGEST = "refresh_token_digest";
+    private static final String USER_CODE_DIGEST = "user_code_digest";
+    private static final String DEVICE_CODE_DIGEST = "device_code_digest";
+
+    /** Token column groups, in parameters mapper order. */
+    private static final List<TokenColumns> TOKEN_COLUMNS = List.of(
+            new TokenColumns(OAuth2AuthorizationCode.class,
+                    "authorization_code_value", "authorization_code_issued_at", "authorization_code_expires_at",
+                    "authorization_code_metadata", "authorization_code_metadata_compact"),
+            new TokenColumns(OAuth2AccessToken.class,
+                    "access_token_value", "access_token_issued_at", "access_token_expires_at",
+                    "access_token_metadata", "access_token_metadata_compact", "access_token_type", "access_token_scopes"),
+            new TokenColumns(OidcIdToken.class,
+                    "oidc_id_token_value", "oidc_id_token_issued_at", "oidc_id_token_expires_at",
+                    "oidc_id_token_metadata", "oidc_id_token_metadata_compact"),
+            new TokenColumns(OAuth2RefreshToken.class,
+                    "refresh_token_value", "refresh_token_issued_at", "refresh_token_expires_at",
+                    "refresh_token_metadata", "refresh_token_metadata_compact"),
+            new TokenColumns(OAuth2UserCode.class,
+                    "user_code_value", "user_code_issued_at", "user_code_expires_at",
+                    "user_code_metadata", "user_code_metadata_compact"),
+            new TokenColumns(OAuth2DeviceCode.class,
+                    "device_code_value", "device_code_issued_at", "device_code_expires_at",
+                    "device_code_metadata", "device_code_metadata_compact"));
+
+    private static final String TABLE_NAME = "oauth2_authorization";
+
+    private static final String LOAD_AUTHORIZATION_SQL = "SELECT " + COLUMN_NAMES + " FROM " + TABLE_NAME + " WHERE ";
+
+    /** Upsert statement per combination of present tokens, indexed by {@link #tokenMask}. */
+    private static final String[] UPSERT_AUTHORIZATION_SQL = IntStream.range(0, 1 << TOKEN_COLUMNS.size())
+            .mapToObj(PostgresOAuth2AuthorizationService::upsertSql)
+            .toArray(String[]::new);
+
+    private static final String REMOVE_BY_PRINCIPAL_SQL = "DELETE FROM " + TABLE_NAME + " WHERE principal_name = ?";
+
+    private static final Map<RevocationTarget.Scope, String> REMOVE_BATCH_SQL = Map.of(
+            RevocationTarget.Scope.PRINCIPAL, removeBatchSql("principal_name = ?"),
+            RevocationTarget.Scope.CLIENT, removeBatchSql("registered_client_id = ?"),
+            RevocationTarget.Scope.ALL, removeBatchSql("TRUE"));
+
+    private static final String STATE_FILTER = "state = ?";
+
+    private static final String UNKNOWN_TOKEN_TYPE_FILTER = STATE_FILTER
+            + " OR " + AUTHORIZATION_CODE_DIGEST + " = ?"
+            + " OR " + ACCESS_TOKEN_DIGEST + " = ?"
+            + " OR " + OIDC_ID_TOKEN_DIGEST + " = ?"
+            + " OR " + REFRESH_TOKEN_DIGEST + " = ?"
+            + " OR " + USER_CODE_DIGEST + " = ?"
+            + " OR " + DEVICE_CODE_DIGEST + " = ?";
+
+    private static final Map<String, String> DIGEST_COLUMN_BY_TOKEN_TYPE = Map.of(
+            OAuth2ParameterNames.CODE, AUTHORIZATION_CODE_DIGEST,
+            OAuth2TokenType.ACCESS_TOKEN.getValue(), ACCESS_TOKEN_DIGEST,
+            OidcParameterNames.ID_TOKEN, OIDC_ID_TOKEN_DIGEST,
+            OAuth2TokenType.REFRESH_TOKEN.getValue(), REFRESH_TOKEN_DIGEST,
+            OAuth2ParameterNames.USER_CODE, USER_CODE_DIGEST,
+            OAuth2ParameterNames.DEVICE_CODE, DEVICE_CODE_DIGEST);
+
+    public PostgresOAuth2AuthorizationService(JdbcOperations jdbcOperations,
+                                              RegisteredClientRepository registeredClientRepository) {
+        super(jdbcOperations, registeredClientRepository);
+    }
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        int mask = tokenMask(authorization);
+        getJdbcOperations().update(UPSERT_AUTHORIZATION_SQL[mask], upsertParameters(authorization, mask));
+    }
+
+    /**
+     * Saves the authorizations in one JDBC batch per combination of present tokens, so a bulk
+     * import or re-encode costs a handful of round trips instead of one per row.
+     */
+    public void saveAll(Collection<OAuth2Authorization> authorizations) {
+        Map<Integer, List<Object[]>> batches = new TreeMap<>();
+        for (OAuth2Authorization authorization : authorizations) {
+            int mask = tokenMask(authorization);
+            batches.computeIfAbsent(mask, k -> new ArrayList<>()).add(upsertParameters(authorization, mask));
+        }
+        batches.forEach((mask, batch) -> getJdbcOperations().batchUpdate(UPSERT_AUTHORIZATION_SQL[mask],
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        new ArgumentPreparedStatementSetter(batch.get(i)).setValues(ps);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                }));
+    }
+
+    @Override
+    public void removeByPrincipalName(String principalName) {
+        getJdbcOperations().update(REMOVE_BY_PRINCIPAL_SQL, principalName);
+    }
+
+    @Override
+    public List<String> removeBatch(RevocationTarget target, int limit) {
+        String sql = REMOVE_BATCH_SQL.get(target.scope());
+        return target.value() != null
+                ? getJdbcOperations().queryForList(sql, String.class, target.value(), limit)
+                : getJdbcOperations().queryForList(sql, String.class, limit);
+    }
+
+    @Override
+    @Nullable
+    public OAuth2Authorization findById(String id) {
+        List<OAuth2Authorization> result = getJdbcOperations().query(
+                LOAD_AUTHORIZATION_SQL + "id = ?", getAuthorizationRowMapper(), id);
+        return result.isEmpty() ? null : result.getFirst();
+    }
+
+    @Override
+    @Nullable
+    public OAuth2Authorization findByToken(String token, @Nullable OAuth2TokenType tokenType) {
+        List<SqlParameterValue> parameters = new ArrayList<>();
+        String filter;
+        if (tokenType == null) {
+            SqlParameterValue digest = digestParameter(token);
+            parameters.add(new SqlParameterValue(Types.VARCHAR, token));
+            for (int i = 0; i < TOKEN_COLUMNS.size(); i++) {
+                parameters.add(digest);
+            }
+            filter = UNKNOWN_TOKEN_TYPE_FILTER;
+        } else if (OAuth2ParameterNames.STATE.equals(tokenType.getValue())) {
+            parameters.add(new SqlParameterValue(Types.VARCHAR, token));
+            filter = STATE_FILTER;
+        } else {
+            String column = DIGEST_COLUMN_BY_TOKEN_TYPE.get(tokenType.getValue());
+            if (column == null) return null;
+            parameters.add(digestParameter(token));
+            filter = column + " = ?";
+        }
+
+        List<OAuth2Authorization> result = getJdbcOperations().query(
+                LOAD_AUTHORIZATION_SQL + filter, getAuthorizationRowMapper(), parameters.toArray());
+        for (OAuth2Authorization authorization : result) {
+            if (OAuth2AuthorizationTokens.matches(authorization, token, tokenType)) {
+                return authorization;
+            }
+        }
+        return null;
+    }
+
+    private Object[] upsertParameters(OAuth2Authorization authorization, int mask) {
+        List<SqlParameterValue> mapped = getAuthorizationParametersMapper().apply(authorization);
+        List<SqlParameterValue> parameters = new ArrayList<>(mapped.subList(0, HEADER_COLUMNS.size()));
+        int offset = HEADER_COLUMNS.size();
+        for (int i = 0; i < TOKEN_COLUMNS.size(); i++) {
+            TokenColumns group = TOKEN_COLUMNS.get(i);
+            if ((mask & (1 << i)) != 0) {
+                parameters.addAll(mapped.subList(offset, offset + group.columns().size()));
+            }
+            offset += group.columns().size();
+        }
+        return parameters.toArray();
+    }
+
+    private static int tokenMask(OAuth2Authorization authorization) {
+        int mask = 0;
+        for (int i = 0; i < TOKEN_COLUMNS.size(); i++) {
+            if (authorization.getToken(TOKEN_COLUMNS.get(i).tokenClass()) != null) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    private static String upsertSql(int mask) {
+        List<String> columns = new ArrayList<>(HEADER_COLUMNS);
+        for (int i = 0; i < TOKEN_COLUMNS.size(); i++) {
+            if ((mask & (1 << i)) != 0) {
+                columns.addAll(TOKEN_COLUMNS.get(i).columns());
+            }
+        }
+        return "INSERT INTO " + TABLE_NAME + " (" + String.join(", ", columns) + ")"
+                + " VALUES (" + "?, ".repeat(columns.size() - 1) + "?)"
+                + " ON CONFLICT (id) DO UPDATE SET "
+                + columns.stream().skip(1).map(c -> c + " = EXCLUDED." + c).collect(Collectors.joining(", "));
+    }
+
+    private static String removeBatchSql(String filter) {
+        return "DELETE FROM " + TABLE_NAME + " WHERE id IN ("
+                + "SELECT id FROM " + TABLE_NAME + " WHERE " + filter + " LIMIT ? FOR UPDATE) RETURNING id";
+    }
+
+    private static SqlParameterValue digestParameter(String tokenValue) {
+        return new SqlParameterValue(Types.BINARY, OAuth2AuthorizationTokens.sha256(tokenValue));
+    }
+
+    private record TokenColumns(Class<? extends OAuth2Token> tokenClass, List<String> columns) {
+
+        TokenColumns(Class<? extends OAuth2Token> tokenClass, String... columns) {
+            this(tokenClass, List.of(columns));
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.acheron.authserver.config.authorization;
+
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * {@link RevocableOAuth2AuthorizationService} kept entirely in Redis, selected with
+ * {@code app.authorization.store=redis}.
+ * <p>
+ * Each authorization is a hash laid out by {@link OAuth2AuthorizationHashMapper}. Every token it holds
+ * — and the {@code state} of a pending consent — gets an index key
+ * {@code index:<type>:<sha256>} pointing back at the id, so lookups never scan. Keys carry native
+ * TTLs: an index lives as long as its token, the hash as long as its longest-lived token
+ * (or {@code app.authorization.redis.pending-ttl} while it has none), so nothing needs reaping.
+ * A set per principal and a sorted set per registered client, scored by expiry, let bulk
+ * revocations find their authorizations without scanning the keyspace.
+ * <p>
+ * Every script touches the single key it declares, so the store runs unchanged on Redis Cluster,
+ * where the index keys, the sets and the hash of one authorization land in different slots.
+ * The hash and its {@code indexes} field are replaced atomically; index keys and set memberships
+ * follow as separate commands. A stale index left behind by a failure or a concurrent save is
+ * harmless: lookups check the token against the hash it points at, and the index expires with
+ * the token it was written for.
+ */
+public class RedisOAuth2AuthorizationService implements RevocableOAuth2AuthorizationService {
+
+    private static final String KEY_PREFIX = "auth:authorization:";
+
+    /*
+     * KEYS: authorization
+     * ARGV: authorization ttl, index keys (space separated), hash field/value pairs…
+     * Returns the index keys the previous version held, so the caller can drop the ones it no longer needs.
+     */
+    private static final RedisScript<String> SAVE_SCRIPT = RedisScript.of("""
+            local previous = redis.call('HGET', KEYS[1], 'indexes')
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], 'indexes', ARGV[2], unpack(ARGV, 3))
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            return previous
+            """, String.class);
+
+    /*
+     * KEYS: principal set
+     * ARGV: authorization id, authorization ttl
+     */
+    private static final RedisScript<Long> ADD_PRINCIPAL_MEMBER_SCRIPT = RedisScript.of("""
+            redis.call('SADD', KEYS[1], ARGV[1])
+            if redis.call('PTTL', KEYS[1]) < tonumber(ARGV[2]) then
+                redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    /*
+     * KEYS: client set
+     * ARGV: authorization id, authorization ttl, expiry (epoch ms), now (epoch ms)
+     * The client set is scored by expiry and pruned of lapsed members on every write.
+     */
+    private static final RedisScript<Long> ADD_CLIENT_MEMBER_SCRIPT = RedisScript.of("""
+            redis.call('ZADD', KEYS[1], ARGV[3], ARGV[1])
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[4])
+            if redis.call('PTTL', KEYS[1]) < tonumber(ARGV[2]) then
+                redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    /*
+     * KEYS: authorization
+     * Deletes the hash and returns its index keys, principal name and registered client id —
+     * nil for each when the hash already expired.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REMOVE_SCRIPT = RedisScript.of("""
+            local fields = redis.call('HMGET', KEYS[1], 'indexes', 'principalName', 'registeredClientId')
+            redis.call('DEL', KEYS[1])
+            return fields
+            """, List.class);
+
+    /** Index name per token class, in the order an untyped lookup probes them. */
+    private static final Map<Class<? extends OAuth2Token>, String> INDEX_BY_TOKEN = new LinkedHashMap<>();
+
+    static {
+        INDEX_BY_TOKEN.put(OAuth2AuthorizationCode.class, OAuth2ParameterNames.CODE);
+        INDEX_BY_TOKEN.put(OAuth2AccessToken.class, OAuth2TokenType.ACCESS_TOKEN.getValue());
+        INDEX_BY_TOKEN.put(OidcIdToken.class, OidcParameterNames.ID_TOKEN);
+        INDEX_BY_TOKEN.put(OAuth2RefreshToken.class, OAuth2TokenType.REFRESH_TOKEN.getValue());
+        INDEX_BY_TOKEN.put(OAuth2UserCode.class, OAuth2ParameterNames.USER_CODE);
+        INDEX_BY_TOKEN.put(OAuth2DeviceCode.class, OAuth2ParameterNames.DEVICE_CODE);
+    }
+
+    private static final int REMOVE_ALL_BATCH_SIZE = 1000;
+
+    private static final Set<String> INDEXES = Set.of(OAuth2ParameterNames.STATE, OAuth2ParameterNames.CODE,
+            OAuth2TokenType.ACCESS_TOKEN.getValue(), OidcParameterNames.ID_TOKEN,
+            OAuth2TokenType.REFRESH_TOKEN.getValue(), OAuth2ParameterNames.USER_CODE, OAuth2ParameterNames.DEVICE_CODE);
+
+    private final StringRedisTemplate redis;
+    private final OAuth2AuthorizationHashMapper hashMapper;
+    private final Duration pendingTtl;
+
+    public RedisOAuth2AuthorizationService(StringRedisTemplate redis,
+                                           OAuth2AuthorizationHashMapper hashMapper,
+                                           Duration pendingTtl) {
+        this.redis = redis;
+        this.hashMapper = hashMapper;
+        this.pendingTtl = pendingTtl;
+    }
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        Instant now = Instant.now();
+
+        List<String> indexKeys = new ArrayList<>();
+        List<Long> indexTtls = new ArrayList<>();
+        Instant expiresAt = null;
+
+        String state = authorization.getAttribute(OAuth2ParameterNames.STATE);
+        if (state != null) {
+            expiresAt = now.plus(pendingTtl);
+            indexKeys.add(indexKey(OAuth2ParameterNames.STATE, state));
+            indexTtls.add(pendingTtl.toMillis());
+        }
+        for (Map.Entry<Class<? extends OAuth2Token>, String> index : INDEX_BY_TOKEN.entrySet()) {
+            OAuth2Authorization.Token<? extends OAuth2Token> token = authorization.getToken(index.getKey());
+            if (token == null) continue;
+            Instant tokenExpiresAt = token.getToken().getExpiresAt() != null
+                    ? token.getToken().getExpiresAt()
+                    : now.plus(pendingTtl);
+            if (!tokenExpiresAt.isAfter(now)) continue;
+            indexKeys.add(indexKey(index.getValue(), token.getToken().getTokenValue()));
+            indexTtls.add(Duration.between(now, tokenExpiresAt).toMillis());
+            if (expiresAt == null || tokenExpiresAt.isAfter(expiresAt)) {
+                expiresAt = tokenExpiresAt;
+            }
+        }
+        if (expiresAt == null) {
+            if (hasTokens(authorization)) {
+                // every token already expired — nothing left worth storing
+                remove(authorization);
+                return;
+            }
+            expiresAt = now.plus(pendingTtl);
+        }
+
+        String id = authorization.getId();
+        long ttl = Math.max(1, Duration.between(now, expiresAt).toMillis());
+        List<String> args = new ArrayList<>();
+        args.add(Long.toString(ttl));
+        args.add(String.join(" ", indexKeys));
+        hashMapper.toHash(authorization).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        String previous = redis.execute(SAVE_SCRIPT, List.of(authorizationKey(id)), args.toArray());
+
+        for (int i = 0; i < indexKeys.size(); i++) {
+            redis.opsForValue().set(indexKeys.get(i), id, Duration.ofMillis(indexTtls.get(i)));
+        }
+        if (previous != null && !previous.isBlank()) {
+            List<String> stale = Arrays.stream(previous.split(" ")).filter(key -> !indexKeys.contains(key)).toList();
+            if (!stale.isEmpty()) redis.delete(stale);
+        }
+        redis.execute(ADD_PRINCIPAL_MEMBER_SCRIPT, List.of(principalKey(authorization.getPrincipalName())),
+                id, Long.toString(ttl));
+        redis.execute(ADD_CLIENT_MEMBER_SCRIPT, List.of(clientKey(authorization.getRegisteredClientId())),
+                id, Long.toString(ttl), Long.toString(expiresAt.toEpochMilli()), Long.toString(now.toEpochMilli()));
+    }
+
+    @Override
+    public void remove(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        String id = authorization.getId();
+        List<String> fields = removeHash(id);
+        if (fields.get(0) != null && !fields.get(0).isBlank()) {
+            redis.delete(Arrays.asList(fields.get(0).split(" ")));
+        }
+        redis.opsForSet().remove(principalKey(authorization.getPrincipalName()), id);
+        redis.opsForZSet().remove(clientKey(authorization.getRegisteredClientId()), id);
+    }
+
+    @Override
+    public void removeByPrincipalName(String principalName) {
+        Assert.hasText(principalName, "principalName cannot be empty");
+        RevocationTarget target = RevocationTarget.principal(principalName);
+        List<String> removed;
+        do {
+            removed = removeBatch(target, REMOVE_ALL_BATCH_SIZE);
+        } while (removed.size() == REMOVE_ALL_BATCH_SIZE);
+    }
+
+    /**
+     * Principal and client revocations drain the matching set. {@link RevocationTarget.Scope#ALL}
+     * walks the client sets, which together hold every stored authorization.
+     */
+    @Override
+    public List<String> removeBatch(RevocationTarget target, int limit) {
+        Assert.isTrue(limit > 0, "limit must be positive");
+        return switch (target.scope()) {
+            case PRINCIPAL -> removeBatch(principalKey(target.value()), false, limit);
+            case CLIENT -> removeBatch(clientKey(target.value()), true, limit);
+            case ALL -> {
+                List<String> removed = new ArrayList<>();
+                ScanOptions options = ScanOptions.scanOptions().match(clientKey("*")).count(100).build();
+                try (Cursor<String> clientKeys = redis.scan(options)) {
+                    while (removed.size() < limit && clientKeys.hasNext()) {
+                        removed.addAll(removeBatch(clientKeys.next(), true, limit - removed.size()));
+                    }
+                }
+                yield removed;
+            }
+        };
+    }
+
+    @Override
+    @Nullable
+    public OAuth2Authorization findById(String id) {
+        Assert.hasText(id, "id cannot be empty");
+        Map<String, String> hash = redis.<String, String>opsForHash().entries(authorizationKey(id));
+        return hash.isEmpty() ? null : hashMapper.fromHash(hash);
+    }
+
+    @Override
+    @Nullable
+    public OAuth2Authorization findByToken(String token, @Nullable OAuth2TokenType tokenType) {
+        Assert.hasText(token, "token cannot be empty");
+        String authorizationId;
+        if (tokenType == null) {
+            List<String> keys = INDEXES.stream().map(index -> indexKey(index, token)).toList();
+            List<String> ids = redis.opsForValue().multiGet(keys);
+            authorizationId = ids == null ? null : ids.stream().filter(Objects::nonNull).findFirst().orElse(null);
+        } else if (INDEXES.contains(tokenType.getValue())) {
+            authorizationId = redis.opsForValue().get(indexKey(tokenType.getValue(), token));
+        } else {
+            return null;
+        }
+        if (authorizationId == null) return null;
+
+        OAuth2Authorization authorization = findById(authorizationId);
+        return authorization != null && OAuth2AuthorizationTokens.matches(authorization, token, tokenType)
+                ? authorization
+                : null;
+    }
+
+    private static boolean hasTokens(OAuth2Authorization authorization) {
+        return INDEX_BY_TOKEN.keySet().stream().anyMatch(tokenClass -> authorization.getToken(tokenClass) != null);
+    }
+
+    private static String authorizationKey(String id) {
+        return KEY_PREFIX + "authorization:" + id;
+    }
+
+    /**
+     * Removes up to {@code limit} members of a principal set or client set — hash, index keys and
+     * every set membership — and returns their ids. Members whose hash already expired are dropped
+     * and returned too.
+     */
+    private List<String> removeBatch(String setKey, boolean sorted, int limit) {
+        Set<String> members = sorted
+                ? redis.opsForZSet().range(setKey, 0, limit - 1)
+                : redis.opsForSet().distinctRandomMembers(setKey, limit);
+        if (members == null || members.isEmpty()) return List.of();
+
+        List<String> indexKeys = new ArrayList<>();
+        Map<String, List<String>> principalMembers = new LinkedHashMap<>();
+        Map<String, List<String>> clientMembers = new LinkedHashMap<>();
+        (sorted ? clientMembers : principalMembers).put(setKey, new ArrayList<>(members));
+        for (String id : members) {
+            List<String> fields = removeHash(id);
+            if (fields.get(0) != null && !fields.get(0).isBlank()) {
+                indexKeys.addAll(Arrays.asList(fields.get(0).split(" ")));
+            }
+            addMember(principalMembers, fields.get(1) != null ? principalKey(fields.get(1)) : null, id);
+            addMember(clientMembers, fields.get(2) != null ? clientKey(fields.get(2)) : null, id);
+        }
+
+        if (!indexKeys.isEmpty()) redis.delete(indexKeys);
+        principalMembers.forEach((key, ids) -> redis.opsForSet().remove(key, ids.toArray()));
+        clientMembers.forEach((key, ids) -> redis.opsForZSet().remove(key, ids.toArray()));
+        return List.copyOf(members);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> removeHash(String id) {
+        List<String> fields = redis.execute(REMOVE_SCRIPT, List.of(authorizationKey(id)));
+        return fields != null ? fields : Arrays.asList(null, null, null);
+    }
+
+    private static void addMember(Map<String, List<String>> members, @Nullable String setKey, String id) {
+        if (setKey == null) return;
+        List<String> ids = members.computeIfAbsent(setKey, key -> new ArrayList<>());
+        if (!ids.contains(id)) ids.add(id);
+    }
+
+    private static String principalKey(String principalName) {
+        return KEY_PREFIX + "principal:" + principalName;
+    }
+
+    private static String clientKey(String registeredClientId) {
+        return KEY_PREFIX + "client:" + registeredClientId;
+    }
+
+    private static String indexKey(String index, String token) {
+        return KEY_PREFIX + "index:" + index + ":" + OAuth2AuthorizationTokens.sha256Base64Url(token);
+    }
+}
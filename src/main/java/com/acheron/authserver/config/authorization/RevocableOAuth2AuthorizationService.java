@@ -0,0 +1,22 @@
+package com.acheron.authserver.config.authorization;
+
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+
+import java.util.List;
+
+/**
+ * {@link OAuth2AuthorizationService} that can drop every authorization of a principal at once,
+ * whichever store backs it.
+ */
+public interface RevocableOAuth2AuthorizationService extends OAuth2AuthorizationService {
+
+    void removeByPrincipalName(String principalName);
+
+    /**
+     * Removes at most {@code limit} authorizations matching {@code target}, so a large revocation
+     * can be worked off in short steps. Fewer than {@code limit} ids means none are left.
+     *
+     * @return ids of the removed authorizations
+     */
+    List<String> removeBatch(RevocationTarget target, int limit);
+}
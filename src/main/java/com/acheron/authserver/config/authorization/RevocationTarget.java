@@ -0,0 +1,36 @@
+package com.acheron.authserver.config.authorization;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * The set of authorizations a bulk revocation removes: those of one principal, those issued to
+ * one registered client, or all of them.
+ *
+ * @param value principal name or registered client id; {@code null} for {@link Scope#ALL}
+ */
+public record RevocationTarget(Scope scope, @Nullable String value) {
+
+    public enum Scope {
+        PRINCIPAL, CLIENT, ALL
+    }
+
+    public RevocationTarget {
+        Assert.notNull(scope, "scope cannot be null");
+        Assert.isTrue(scope == Scope.ALL || (value != null && !value.isBlank()),
+                () -> scope + " revocation needs a target");
+        if (scope == Scope.ALL) value = null;
+    }
+
+    public static RevocationTarget principal(String principalName) {
+        return new RevocationTarget(Scope.PRINCIPAL, principalName);
+    }
+
+    public static RevocationTarget client(String registeredClientId) {
+        return new RevocationTarget(Scope.CLIENT, registeredClientId);
+    }
+
+    public static RevocationTarget all() {
+        return new RevocationTarget(Scope.ALL, null);
+    }
+}
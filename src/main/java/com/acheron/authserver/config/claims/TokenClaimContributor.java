@@ -0,0 +1,16 @@
+package com.acheron.authserver.config.claims;
+
+import com.acheron.authserver.dto.util.UserClaims;
+import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
+
+import java.util.Map;
+
+/**
+ * One step of the claim pipeline {@code Oauth2AccessTokenCustomizer} runs for authorization-code
+ * access and ID tokens. Contributors run in {@link org.springframework.core.annotation.Order} order
+ * and get the user already resolved — they must not look it up again.
+ */
+public interface TokenClaimContributor {
+
+    void contribute(JwtEncodingContext context, UserClaims user, Map<String, Object> claims);
+}
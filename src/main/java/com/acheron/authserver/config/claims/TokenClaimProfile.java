@@ -0,0 +1,61 @@
+package com.acheron.authserver.config.claims;
+
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Which user claims a client's tokens carry, and under which names. A client picks one through the
+ * {@value #TOKEN_SETTING} token setting; clients without it get {@link #FULL}.
+ * <p>
+ * Gateways relay the access token on every upstream call, so a client whose resource servers only
+ * need the user id can ask for {@link #MINIMAL} and send a noticeably smaller header.
+ */
+public enum TokenClaimProfile {
+
+    /** {@code user_id}, {@code roles} and {@code token_version}. */
+    FULL("user_id", "roles", "token_version"),
+    /** The same claims under short names: {@code uid}, {@code rol} and {@code tv}. */
+    COMPACT("uid", "rol", "tv"),
+    /** Only {@code uid}. */
+    MINIMAL("uid", null, null);
+
+    public static final String TOKEN_SETTING = "settings.token.claim-profile";
+
+    private final String userIdClaim;
+    private final String rolesClaim;
+    private final String tokenVersionClaim;
+
+    TokenClaimProfile(String userIdClaim, String rolesClaim, String tokenVersionClaim) {
+        this.userIdClaim = userIdClaim;
+        this.rolesClaim = rolesClaim;
+        this.tokenVersionClaim = tokenVersionClaim;
+    }
+
+    /** Name of the user id claim, or {@code null} when the profile leaves it out; likewise below. */
+    public String userIdClaim() {
+        return userIdClaim;
+    }
+
+    public String rolesClaim() {
+        return rolesClaim;
+    }
+
+    public String tokenVersionClaim() {
+        return tokenVersionClaim;
+    }
+
+    public static TokenClaimProfile from(String name) {
+        return Arrays.stream(values())
+                .filter(profile -> profile.name().equals(name.toUpperCase(Locale.ROOT)))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported claim profile '" + name
+                        + "' — expected one of " + Arrays.toString(values())));
+    }
+
+    public static TokenClaimProfile of(RegisteredClient registeredClient) {
+        String name = registeredClient.getTokenSettings().getSetting(TOKEN_SETTING);
+        return name != null ? from(name) : FULL;
+    }
+}
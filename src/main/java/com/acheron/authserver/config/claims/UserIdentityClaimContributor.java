@@ -0,0 +1,31 @@
+package com.acheron.authserver.config.claims;
+
+import com.acheron.authserver.dto.util.UserClaims;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Adds the user id, role and token version, named and filtered by the client's
+ * {@link TokenClaimProfile}.
+ */
+@Order(0)
+@Component
+public class UserIdentityClaimContributor implements TokenClaimContributor {
+
+    @Override
+    public void contribute(JwtEncodingContext context, UserClaims user, Map<String, Object> claims) {
+        TokenClaimProfile profile = TokenClaimProfile.of(context.getRegisteredClient());
+        put(claims, profile.userIdClaim(), user.userId().toString());
+        put(claims, profile.rolesClaim(), user.role().name());
+        put(claims, profile.tokenVersionClaim(), user.tokenVersion().toString());
+    }
+
+    private static void put(Map<String, Object> claims, String name, String value) {
+        if (name != null) {
+            claims.put(name, value);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.acheron.authserver.config.client;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * The {@link PasswordEncoder} client authentication checks secrets with: a successful check of the
+ * delegate is remembered in {@link ClientSecretVerificationCache}, and a repeat of the same secret
+ * against the same stored hash is answered from there.
+ */
+@RequiredArgsConstructor
+public class CachingClientSecretEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ClientSecretVerificationCache cache;
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+        if (cache.matches(encodedPassword, rawPassword)) {
+            return true;
+        }
+        boolean matches = delegate.matches(rawPassword, encodedPassword);
+        if (matches) {
+            cache.put(encodedPassword, rawPassword);
+        }
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,38 @@
+package com.acheron.authserver.config.client;
+
+import com.acheron.authserver.dto.util.RegisteredClientSavedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+
+/**
+ * Serves lookups from {@link RegisteredClientCache}. Every save goes to the delegate, then publishes
+ * a {@link RegisteredClientSavedEvent} that clears the cache on all nodes once the transaction commits.
+ */
+@RequiredArgsConstructor
+public class CachingRegisteredClientRepository implements RegisteredClientRepository {
+
+    private final RegisteredClientRepository delegate;
+    private final RegisteredClientCache cache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void save(RegisteredClient registeredClient) {
+        delegate.save(registeredClient);
+        eventPublisher.publishEvent(new RegisteredClientSavedEvent(registeredClient.getId(), registeredClient.getClientId()));
+    }
+
+    @Override
+    @Nullable
+    public RegisteredClient findById(String id) {
+        return cache.findById(id, () -> delegate.findById(id));
+    }
+
+    @Override
+    @Nullable
+    public RegisteredClient findByClientId(String clientId) {
+        return cache.findByClientId(clientId, () -> delegate.findByClientId(clientId));
+    }
+}
@@ -0,0 +1,84 @@
+package com.acheron.authserver.config.client;
+
+import com.acheron.authserver.dto.util.RegisteredClientSavedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * Remembers client secrets that recently passed a full hash check, so a confidential client that
+ * authenticates on every refresh pays for BCrypt once per {@code app.client.secret-cache.ttl}.
+ * <p>
+ * Entries are keyed by the stored secret hash and hold an HMAC-SHA256 of the secret that matched
+ * it, under a random key that never leaves this process — the secret itself is not kept. A rotated
+ * secret has a new hash, so old entries can no longer match; client saves also clear the cache.
+ * Failed checks are never cached.
+ */
+@Component
+public class ClientSecretVerificationCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final Cache<String, byte[]> verified;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ClientSecretVerificationCache(MeterRegistry meterRegistry,
+                                         @Value("${app.client.secret-cache.max-size:1000}") long maxSize,
+                                         @Value("${app.client.secret-cache.ttl:10m}") Duration ttl) {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.hits = Counter.builder("auth.client.secret.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("auth.client.secret.cache.requests").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Whether {@code rawSecret} is the secret that last matched {@code encodedSecret}.
+     */
+    public boolean matches(String encodedSecret, CharSequence rawSecret) {
+        byte[] expected = verified.getIfPresent(encodedSecret);
+        if (expected != null && MessageDigest.isEqual(expected, hmac(rawSecret))) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    public void put(String encodedSecret, CharSequence rawSecret) {
+        verified.put(encodedSecret, hmac(rawSecret));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientSaved(RegisteredClientSavedEvent event) {
+        verified.invalidateAll();
+    }
+
+    private byte[] hmac(CharSequence rawSecret) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(rawSecret.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.acheron.authserver.config.client;
+
+import com.acheron.authserver.dto.util.RegisteredClientSavedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Near-cache of {@link RegisteredClient}s by id and by client id, as parsed once from
+ * {@code oauth2_registered_client}. {@code RegisteredClient} is immutable, so one instance is shared
+ * by every request.
+ * <p>
+ * Clients change rarely, so any save clears both maps on every node through the {@value #CHANNEL}
+ * channel once the saving transaction commits; the TTL is only a safety net for a lost message. A
+ * lookup that started before an invalidation is not cached. Unknown ids are never cached.
+ */
+@Slf4j
+@Component
+public class RegisteredClientCache {
+
+    static final String CHANNEL = "auth:client-cache:invalidate";
+
+    private final StringRedisTemplate redis;
+    private final Cache<String, RegisteredClient> byId;
+    private final Cache<String, RegisteredClient> byClientId;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public RegisteredClientCache(StringRedisTemplate redis,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.client.cache.max-size:1000}") long maxSize,
+                                 @Value("${app.client.cache.ttl:10m}") Duration ttl) {
+        this.redis = redis;
+        this.byId = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+        this.byClientId = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+        this.hits = Counter.builder("auth.client.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("auth.client.cache.requests").tag("result", "miss").register(meterRegistry);
+
+        listenerContainer.addMessageListener(
+                (message, pattern) -> invalidateLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
+
+    @Nullable
+    public RegisteredClient findById(String id, Supplier<RegisteredClient> loader) {
+        return find(byId, id, loader);
+    }
+
+    @Nullable
+    public RegisteredClient findByClientId(String clientId, Supplier<RegisteredClient> loader) {
+        return find(byClientId, clientId, loader);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientSaved(RegisteredClientSavedEvent event) {
+        invalidateLocal(event.clientId());
+        try {
+            redis.convertAndSend(CHANNEL, event.clientId());
+        } catch (RuntimeException e) {
+            log.warn("Client cache: failed to publish invalidation for '{}' — {}", event.clientId(), e.getMessage());
+        }
+    }
+
+    @Nullable
+    private RegisteredClient find(Cache<String, RegisteredClient> cache, String key, Supplier<RegisteredClient> loader) {
+        RegisteredClient cached = cache.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        long generation = invalidations.get();
+        RegisteredClient client = loader.get();
+        if (client != null && invalidations.get() == generation) {
+            byId.put(client.getId(), client);
+            byClientId.put(client.getClientId(), client);
+        }
+        return client;
+    }
+
+    private void invalidateLocal(String clientId) {
+        invalidations.incrementAndGet();
+        // a save may have changed the client id itself, so clear everything
+        byId.invalidateAll();
+        byClientId.invalidateAll();
+        log.debug("Client cache cleared after a change to '{}'", clientId);
+    }
+}
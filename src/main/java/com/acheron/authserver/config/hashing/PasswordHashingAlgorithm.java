@@ -0,0 +1,37 @@
+package com.acheron.authserver.config.hashing;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Algorithms new password hashes can be written with, selected by
+ * {@code app.password-hashing.algorithm}. The id is the {@code {id}} prefix of the stored hash.
+ */
+public enum PasswordHashingAlgorithm {
+
+    BCRYPT("bcrypt"),
+    ARGON2ID("argon2");
+
+    private final String id;
+
+    PasswordHashingAlgorithm(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Parses {@code bcrypt}, {@code argon2id} or {@code argon2}, ignoring case.
+     */
+    public static PasswordHashingAlgorithm from(String name) {
+        for (PasswordHashingAlgorithm algorithm : values()) {
+            if (algorithm.name().equalsIgnoreCase(name) || algorithm.id.equalsIgnoreCase(name)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported password hashing algorithm '" + name + "', expected one of "
+                + Arrays.stream(values()).map(a -> a.name().toLowerCase()).collect(Collectors.joining(", ")));
+    }
+}
@@ -0,0 +1,137 @@
+package com.acheron.authserver.config.hashing;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Measures password hash latency on this host and recommends the strongest
+ * {@code app.password-hashing} parameters that stay within a latency target.
+ * <p>
+ * BCrypt is measured from strength 10 upwards, Argon2id over a grid of memory sizes and iteration
+ * counts at parallelism 1 — the hashing pool already runs one hash per core. After
+ * {@value #WARM_UP_HASHES} warm-up hashes of each algorithm, each candidate is timed as the median
+ * of {@value #SAMPLES} hashes. Run it on the host, or an identical one, that serves logins:
+ * <pre>
+ * ./gradlew calibratePasswordHashing -PtargetLatency=250ms
+ * java -cp auth-server.jar -Dloader.main=com.acheron.authserver.config.hashing.PasswordHashingCalibrator \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher 250ms
+ * </pre>
+ * Changing the parameters needs no password reset: older hashes are upgraded on the next login.
+ */
+public final class PasswordHashingCalibrator {
+
+    private static final int SAMPLES = 5;
+    private static final int WARM_UP_HASHES = 20;
+    private static final int[] BCRYPT_STRENGTHS = {10, 11, 12, 13, 14, 15, 16};
+    private static final int[] ARGON2_MEMORY_KIB = {19_456, 32_768, 47_104, 65_536, 131_072, 262_144};
+    private static final int[] ARGON2_ITERATIONS = {1, 2, 3, 4};
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private PasswordHashingCalibrator() {
+    }
+
+    public static void main(String[] args) {
+        Duration target = DurationStyle.detectAndParse(args.length > 0 ? args[0] : "250ms");
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("Target latency %d ms per hash, %d cores%n%n", target.toMillis(), cores);
+        warmUp();
+
+        List<Candidate> bcrypt = new ArrayList<>();
+        for (int strength : BCRYPT_STRENGTHS) {
+            Candidate candidate = measure(
+                    new PasswordHashingParameters(PasswordHashingAlgorithm.BCRYPT, strength, 0, 0, 1),
+                    1L << strength, "strength " + strength);
+            bcrypt.add(candidate);
+            if (candidate.latency().compareTo(target.multipliedBy(2)) > 0) break;
+        }
+
+        List<Candidate> argon2 = new ArrayList<>();
+        memory:
+        for (int memoryKib : ARGON2_MEMORY_KIB) {
+            for (int iterations : ARGON2_ITERATIONS) {
+                Candidate candidate = measure(
+                        new PasswordHashingParameters(PasswordHashingAlgorithm.ARGON2ID, 10, memoryKib, iterations, 1),
+                        (long) memoryKib * iterations, "memory " + memoryKib / 1024 + " MiB, iterations " + iterations);
+                argon2.add(candidate);
+                if (candidate.latency().compareTo(target.multipliedBy(2)) > 0) {
+                    if (iterations == ARGON2_ITERATIONS[0]) break memory;
+                    break;
+                }
+            }
+        }
+
+        print("BCrypt", bcrypt, cores);
+        print("Argon2id", argon2, cores);
+
+        Optional<Candidate> bestBcrypt = strongestWithin(bcrypt, target);
+        Optional<Candidate> bestArgon2 = strongestWithin(argon2, target);
+        System.out.println("Recommended application.yaml:");
+        System.out.println();
+        System.out.println("app:");
+        System.out.println("  password-hashing:");
+        System.out.println("    algorithm: " + (bestArgon2.isPresent() ? "argon2id" : "bcrypt"));
+        System.out.println("    bcrypt:");
+        System.out.println("      strength: " + bestBcrypt.map(c -> c.parameters().bcryptStrength()).orElse(10));
+        bestArgon2.ifPresent(c -> {
+            System.out.println("    argon2:");
+            System.out.println("      memory-kib: " + c.parameters().argon2MemoryKib());
+            System.out.println("      iterations: " + c.parameters().argon2Iterations());
+            System.out.println("      parallelism: " + c.parameters().argon2Parallelism());
+        });
+        if (bestBcrypt.isEmpty() && bestArgon2.isEmpty()) {
+            System.out.println();
+            System.out.println("No candidate hashes within " + target.toMillis() + " ms on this host; keep the defaults.");
+        }
+    }
+
+    private static void warmUp() {
+        PasswordHashingParameters parameters = new PasswordHashingParameters(PasswordHashingAlgorithm.BCRYPT,
+                BCRYPT_STRENGTHS[0], ARGON2_MEMORY_KIB[0], ARGON2_ITERATIONS[0], 1);
+        PasswordEncoder bcrypt = parameters.bcrypt();
+        PasswordEncoder argon2 = parameters.argon2();
+        for (int i = 0; i < WARM_UP_HASHES; i++) {
+            bcrypt.encode(PASSWORD);
+            argon2.encode(PASSWORD);
+        }
+    }
+
+    private static Candidate measure(PasswordHashingParameters parameters, long cost, String label) {
+        PasswordEncoder encoder = parameters.passwordEncoder();
+        encoder.encode(PASSWORD);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return new Candidate(parameters, cost, label, Duration.ofNanos(samples[SAMPLES / 2]));
+    }
+
+    private static Optional<Candidate> strongestWithin(List<Candidate> candidates, Duration target) {
+        return candidates.stream()
+                .filter(candidate -> candidate.latency().compareTo(target) <= 0)
+                .max(Comparator.comparingLong(Candidate::cost)
+                        .thenComparingInt(candidate -> candidate.parameters().argon2MemoryKib()));
+    }
+
+    private static void print(String algorithm, List<Candidate> candidates, int cores) {
+        System.out.println(algorithm);
+        for (Candidate candidate : candidates) {
+            double millis = candidate.latency().toNanos() / 1_000_000.0;
+            System.out.printf("  %-32s %8.1f ms   %7.1f hashes/s on %d threads%n",
+                    candidate.label(), millis, cores * 1000 / millis, cores);
+        }
+        System.out.println();
+    }
+
+    private record Candidate(PasswordHashingParameters parameters, long cost, String label, Duration latency) {
+    }
+}
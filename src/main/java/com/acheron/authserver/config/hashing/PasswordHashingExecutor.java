@@ -0,0 +1,103 @@
+package com.acheron.authserver.config.hashing;
+
+import com.acheron.authserver.exception.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead for CPU-bound password hashing: a fixed pool of platform threads, one per core unless
+ * {@code app.password-hashing.threads} says otherwise, behind a queue of
+ * {@code app.password-hashing.queue-capacity} tasks.
+ * <p>
+ * Request threads are virtual and unbounded; without this, a login storm runs as many BCrypt
+ * rounds at once as there are requests, and every one of them slows down. Here the callers park
+ * while their hash waits for a core, and once the queue is full they are turned away at once with
+ * a {@link PasswordHashingRejectedException} carrying {@code app.password-hashing.retry-after}.
+ * <p>
+ * Queue depth is reported as {@code auth.password.hashing.queue.depth}, the time a task waited for
+ * a thread as {@code auth.password.hashing.wait}, and rejections as
+ * {@code auth.password.hashing.rejected}.
+ */
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+    private final Timer waitTime;
+    private final Counter rejected;
+
+    public PasswordHashingExecutor(MeterRegistry meterRegistry,
+                                   @Value("${app.password-hashing.threads:0}") int threads,
+                                   @Value("${app.password-hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${app.password-hashing.retry-after:1s}") Duration retryAfter) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hashing-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfter = retryAfter;
+
+        Gauge.builder("auth.password.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks running")
+                .register(meterRegistry);
+        this.waitTime = Timer.builder("auth.password.hashing.wait")
+                .description("Time a password hashing task waited for a thread")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.hashing.rejected")
+                .description("Password hashing tasks turned away because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code task} on a hashing thread and waits for its result.
+     *
+     * @throws PasswordHashingRejectedException when the queue is full
+     */
+    public <T> T execute(Supplier<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTime.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return task.get();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException(retryAfter);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,44 @@
+package com.acheron.authserver.config.hashing;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+/**
+ * Cost parameters for password hashing, under {@code app.password-hashing}.
+ * <p>
+ * {@link #passwordEncoder()} writes new hashes with {@link #algorithm()} and reads hashes of
+ * either algorithm. Hashes stored before the {@code {id}} prefix was introduced are plain BCrypt
+ * and are matched as such. Any hash written with another algorithm or a lower cost reports
+ * {@code upgradeEncoding}, so it is rehashed on the next successful login.
+ */
+public record PasswordHashingParameters(PasswordHashingAlgorithm algorithm,
+                                        int bcryptStrength,
+                                        int argon2MemoryKib,
+                                        int argon2Iterations,
+                                        int argon2Parallelism) {
+
+    private static final int ARGON2_SALT_LENGTH = 16;
+    private static final int ARGON2_HASH_LENGTH = 32;
+
+    public PasswordEncoder passwordEncoder() {
+        BCryptPasswordEncoder bcrypt = bcrypt();
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm.id(), Map.of(
+                PasswordHashingAlgorithm.BCRYPT.id(), bcrypt,
+                PasswordHashingAlgorithm.ARGON2ID.id(), argon2()));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    public BCryptPasswordEncoder bcrypt() {
+        return new BCryptPasswordEncoder(bcryptStrength);
+    }
+
+    public Argon2PasswordEncoder argon2() {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH,
+                argon2Parallelism, argon2MemoryKib, argon2Iterations);
+    }
+}
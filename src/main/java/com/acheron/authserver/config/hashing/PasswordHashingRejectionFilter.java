@@ -0,0 +1,41 @@
+package com.acheron.authserver.config.hashing;
+
+import com.acheron.authserver.exception.PasswordHashingRejectedException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Turns a {@link PasswordHashingRejectedException} thrown inside the security filter chain — form
+ * login, client authentication — into a 503 with {@code Retry-After}, instead of the 500 it would
+ * otherwise surface as. Controllers are covered by the global exception handler.
+ */
+public class PasswordHashingRejectionFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } catch (PasswordHashingRejectedException e) {
+            reject(response, e);
+        } catch (ServletException e) {
+            if (!(e.getCause() instanceof PasswordHashingRejectedException rejected)) throw e;
+            reject(response, rejected);
+        }
+    }
+
+    private static void reject(HttpServletResponse response, PasswordHashingRejectedException e) throws IOException {
+        if (response.isCommitted()) {
+            throw e;
+        }
+        response.reset();
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(e.retryAfterSeconds()));
+        response.sendError(e.getStatus().value(), e.getMessage());
+    }
+}
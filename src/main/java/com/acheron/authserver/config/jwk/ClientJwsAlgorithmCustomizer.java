@@ -0,0 +1,19 @@
+package com.acheron.authserver.config.jwk;
+
+import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenCustomizer;
+
+/**
+ * Signs every JWT issued to a client — access and ID tokens alike — with the algorithm in its
+ * {@value JwkSigningAlgorithm#TOKEN_SETTING} token setting. Clients without the setting keep the
+ * header {@code JwtGenerator} chose.
+ */
+public class ClientJwsAlgorithmCustomizer implements OAuth2TokenCustomizer<JwtEncodingContext> {
+
+    @Override
+    public void customize(JwtEncodingContext context) {
+        if (context.getRegisteredClient().getTokenSettings().getSetting(JwkSigningAlgorithm.TOKEN_SETTING) != null) {
+            context.getJwsHeader().algorithm(JwkSigningAlgorithm.of(context.getRegisteredClient()));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.acheron.authserver.config.jwk;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * {@link DefaultJWSVerifierFactory} plus EdDSA over Ed25519.
+ * <p>
+ * Nimbus verifies Ed25519 with an {@link OctetKeyPair}, but JWT processing hands the factory a
+ * {@link java.security.Key}, and Nimbus cannot convert between the two. The key selector passes
+ * Ed25519 keys as JDK {@link EdECPublicKey}s (see {@link #toPublicKey}) and this factory turns them
+ * back; both directions go through the fixed X.509 encoding of an Ed25519 public key.
+ */
+public class Ed25519JwsVerifierFactory extends DefaultJWSVerifierFactory {
+
+    // SubjectPublicKeyInfo header for id-Ed25519, followed by the 32-byte public key
+    private static final byte[] X509_PREFIX = {0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00};
+
+    @Override
+    public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+        Set<JWSAlgorithm> algorithms = new HashSet<>(super.supportedJWSAlgorithms());
+        algorithms.add(JWSAlgorithm.EdDSA);
+        return algorithms;
+    }
+
+    @Override
+    public JWSVerifier createJWSVerifier(JWSHeader header, Key key) throws JOSEException {
+        if (!JWSAlgorithm.EdDSA.equals(header.getAlgorithm())) {
+            return super.createJWSVerifier(header, key);
+        }
+        if (!(key instanceof EdECPublicKey edKey)) {
+            throw new JOSEException("EdDSA verification needs an Ed25519 public key");
+        }
+        byte[] encoded = edKey.getEncoded();
+        byte[] x = Arrays.copyOfRange(encoded, X509_PREFIX.length, encoded.length);
+        return new Ed25519Verifier(new OctetKeyPair.Builder(Curve.Ed25519, Base64URL.encode(x)).build());
+    }
+
+    static PublicKey toPublicKey(OctetKeyPair jwk) throws JOSEException {
+        if (!Curve.Ed25519.equals(jwk.getCurve())) {
+            throw new JOSEException("Unsupported OKP curve " + jwk.getCurve());
+        }
+        byte[] x = jwk.getDecodedX();
+        byte[] encoded = Arrays.copyOf(X509_PREFIX, X509_PREFIX.length + x.length);
+        System.arraycopy(x, 0, encoded, X509_PREFIX.length, x.length);
+        try {
+            return KeyFactory.getInstance("Ed25519").generatePublic(new X509EncodedKeySpec(encoded));
+        } catch (GeneralSecurityException e) {
+            throw new JOSEException("Ed25519 public key cannot be converted", e);
+        }
+    }
+}
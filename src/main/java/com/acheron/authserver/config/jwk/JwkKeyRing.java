@@ -0,0 +1,190 @@
+package com.acheron.authserver.config.jwk;
+
+import com.acheron.authserver.entity.JwkKey;
+import com.acheron.authserver.repository.JwkKeyRepository;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.oauth2.jose.jws.JwsAlgorithm;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The signing keys of this node, as last loaded from {@code jwk_key}.
+ * <p>
+ * Everything a request needs is precomputed into an immutable snapshot: the {@link JWKSet} handed
+ * to decoders, the key to sign with per {@link JwkSigningAlgorithm}, and the serialized
+ * public JWKS with its ETag. Only the signing keys' private parts are decrypted. The snapshot is
+ * rebuilt from the loaded rows when a key activates, retires or expires, so the switch to a new key
+ * does not wait for the next reload; reloads every {@code app.jwk.refresh-interval} only pick up
+ * keys another node has created.
+ */
+@Slf4j
+@Component
+public class JwkKeyRing implements JWKSource<SecurityContext> {
+
+    private final JwkKeyRepository jwkKeyRepository;
+    private final BytesEncryptor encryptor;
+    private final List<JwkSigningAlgorithm> algorithms;
+    private volatile Snapshot snapshot;
+
+    public JwkKeyRing(JwkKeyRepository jwkKeyRepository,
+                      @Qualifier("jwkKeyEncryptor") BytesEncryptor encryptor,
+                      @Value("${app.jwk.algorithms:RS256,ES256,EdDSA}") List<String> algorithms) {
+        this.jwkKeyRepository = jwkKeyRepository;
+        this.encryptor = encryptor;
+        this.algorithms = algorithms.stream().map(JwkSigningAlgorithm::from).toList();
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+        return jwkSelector.select(current().jwkSet());
+    }
+
+    /**
+     * The key that currently signs for {@code algorithm}, with its private part.
+     */
+    public JWK signingKey(JwsAlgorithm algorithm) {
+        JWK key = current().signingKeys().get(algorithm.getName());
+        if (key == null) {
+            throw new IllegalStateException("No " + algorithm.getName() + " signing key in the JWK key ring");
+        }
+        return key;
+    }
+
+    /**
+     * The algorithms of {@code app.jwk.algorithms} — the only ones {@code JwkKeyRotator} keeps a
+     * signing key for, so the only ones a client may be registered with.
+     */
+    public List<JwkSigningAlgorithm> algorithms() {
+        return algorithms;
+    }
+
+    public boolean supports(JwkSigningAlgorithm algorithm) {
+        return algorithms.contains(algorithm);
+    }
+
+    public PublishedJwkSet publishedJwkSet() {
+        return current().published();
+    }
+
+    public boolean hasSigningKey(JwkSigningAlgorithm algorithm) {
+        Snapshot current = this.snapshot;
+        return current != null && current.signingKeys().containsKey(algorithm.getName());
+    }
+
+    @Scheduled(initialDelayString = "${app.jwk.refresh-interval:1m}", fixedDelayString = "${app.jwk.refresh-interval:1m}")
+    public void refresh() {
+        List<JwkKey> keys = jwkKeyRepository.findAllByExpiresAtAfterOrderByActivatesAtDesc(Instant.now());
+        this.snapshot = build(keys, Instant.now());
+    }
+
+    private Snapshot current() {
+        Snapshot current = this.snapshot;
+        if (current == null) {
+            throw new IllegalStateException("JWK key ring has not been loaded");
+        }
+        if (current.validUntil().isAfter(Instant.now())) {
+            return current;
+        }
+        synchronized (this) {
+            if (this.snapshot == current) {
+                this.snapshot = build(current.keys(), Instant.now());
+            }
+            return this.snapshot;
+        }
+    }
+
+    private Snapshot build(List<JwkKey> loaded, Instant now) {
+        List<JwkKey> keys = loaded.stream().filter(key -> key.getExpiresAt().isAfter(now)).toList();
+
+        // keys arrive newest first, so the first match per algorithm wins
+        Map<String, JwkKey> signing = new LinkedHashMap<>();
+        for (JwkKey key : keys) {
+            if (!key.getActivatesAt().isAfter(now) && key.getRetiresAt().isAfter(now)) {
+                signing.putIfAbsent(key.getAlgorithm(), key);
+            }
+        }
+        for (JwkKey key : keys) {
+            // keep signing with the newest key until rotation catches up; it is still published
+            if (!key.getActivatesAt().isAfter(now) && !signing.containsKey(key.getAlgorithm())) {
+                log.warn("JWK {} retired at {} and no newer {} key is active; still signing with it",
+                        key.getKid(), key.getRetiresAt(), key.getAlgorithm());
+                signing.put(key.getAlgorithm(), key);
+            }
+        }
+
+        List<JWK> jwks = new ArrayList<>(keys.size());
+        Map<String, JWK> signingKeys = new HashMap<>();
+        for (JwkKey key : signing.values()) {
+            JWK jwk = decrypt(key);
+            jwks.add(jwk);
+            signingKeys.put(key.getAlgorithm(), jwk);
+        }
+        for (JwkKey key : keys) {
+            if (!signing.containsValue(key)) {
+                jwks.add(parse(key.getPublicJwk()));
+            }
+        }
+        JWKSet jwkSet = new JWKSet(jwks);
+
+        Instant validUntil = keys.stream()
+                .flatMap(key -> Stream.of(key.getActivatesAt(), key.getRetiresAt(), key.getExpiresAt()))
+                .filter(instant -> instant.isAfter(now))
+                .min(Instant::compareTo)
+                .orElse(Instant.MAX);
+
+        return new Snapshot(keys, jwkSet, Map.copyOf(signingKeys),
+                PublishedJwkSet.of(jwkSet.toString(true).getBytes(StandardCharsets.UTF_8)), validUntil);
+    }
+
+    private JWK decrypt(JwkKey key) {
+        return parse(new String(encryptor.decrypt(key.getPrivateJwk()), StandardCharsets.UTF_8));
+    }
+
+    private static JWK parse(String json) {
+        try {
+            return JWK.parse(json);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Stored JWK cannot be parsed", e);
+        }
+    }
+
+    private record Snapshot(List<JwkKey> keys, JWKSet jwkSet, Map<String, JWK> signingKeys,
+                            PublishedJwkSet published, Instant validUntil) {
+    }
+
+    /**
+     * The public JWKS as served from {@code /oauth2/jwks}, with a strong ETag over its bytes.
+     */
+    public record PublishedJwkSet(byte[] json, String etag) {
+
+        static PublishedJwkSet of(byte[] json) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+                return new PublishedJwkSet(json, "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
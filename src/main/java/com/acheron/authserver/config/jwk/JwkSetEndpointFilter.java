@@ -0,0 +1,57 @@
+package com.acheron.authserver.config.jwk;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Serves the JWK Set endpoint from the bytes {@link JwkKeyRing} precomputed, ahead of the
+ * authorization server's own filter that would select and serialize the set on every request.
+ * <p>
+ * Responses carry an ETag and a public {@code Cache-Control} max-age, so resource servers
+ * revalidate with {@code If-None-Match} and get a 304 until the key ring changes. New keys are
+ * published {@code app.jwk.publish-ahead} before they sign, which must exceed that max-age.
+ */
+public class JwkSetEndpointFilter extends OncePerRequestFilter {
+
+    private final JwkKeyRing keyRing;
+    private final RequestMatcher requestMatcher;
+    private final String cacheControl;
+
+    public JwkSetEndpointFilter(JwkKeyRing keyRing, String jwkSetEndpoint, Duration maxAge) {
+        this.keyRing = keyRing;
+        this.requestMatcher = PathPatternRequestMatcher.withDefaults().matcher(HttpMethod.GET, jwkSetEndpoint);
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic().getHeaderValue();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if (!requestMatcher.matches(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        JwkKeyRing.PublishedJwkSet jwkSet = keyRing.publishedJwkSet();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (new ServletWebRequest(request, response).checkNotModified(jwkSet.etag())) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(jwkSet.json().length);
+        response.getOutputStream().write(jwkSet.json());
+    }
+}
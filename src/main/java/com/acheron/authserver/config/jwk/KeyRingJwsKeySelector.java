@@ -0,0 +1,64 @@
+package com.acheron.authserver.config.jwk;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.AsymmetricJWK;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.KeyType;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Selects verification keys for every {@link JwkSigningAlgorithm}. Nimbus'
+ * {@code JWSVerificationKeySelector} only matches RSA and EC keys; this one matches on key type,
+ * {@code kid} and {@code alg} for any algorithm, and hands Ed25519 keys on as JDK keys for
+ * {@link Ed25519JwsVerifierFactory}.
+ */
+public class KeyRingJwsKeySelector implements JWSKeySelector<SecurityContext> {
+
+    private final JWKSource<SecurityContext> jwkSource;
+    private final Set<JWSAlgorithm> algorithms;
+
+    public KeyRingJwsKeySelector(JWKSource<SecurityContext> jwkSource, Set<JWSAlgorithm> algorithms) {
+        this.jwkSource = jwkSource;
+        this.algorithms = algorithms;
+    }
+
+    @Override
+    public List<? extends Key> selectJWSKeys(JWSHeader header, SecurityContext context) throws KeySourceException {
+        JWSAlgorithm algorithm = header.getAlgorithm();
+        if (!algorithms.contains(algorithm)) {
+            return List.of();
+        }
+        JWKMatcher matcher = new JWKMatcher.Builder()
+                .keyType(KeyType.forAlgorithm(algorithm))
+                .keyID(header.getKeyID())
+                .keyUses(KeyUse.SIGNATURE, null)
+                .algorithms(algorithm, null)
+                .build();
+
+        List<Key> keys = new ArrayList<>();
+        for (JWK jwk : jwkSource.get(new JWKSelector(matcher), context)) {
+            try {
+                keys.add(jwk instanceof OctetKeyPair okp
+                        ? Ed25519JwsVerifierFactory.toPublicKey(okp)
+                        : ((AsymmetricJWK) jwk).toPublicKey());
+            } catch (JOSEException e) {
+                throw new KeySourceException("JWK " + jwk.getKeyID() + " cannot be used for verification", e);
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,149 @@
+package com.acheron.authserver.config.jwk;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.factories.DefaultJWSSignerFactory;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.springframework.security.oauth2.jose.jws.JwsAlgorithm;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtEncodingException;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Signs JWTs with the key the ring currently holds for the header's algorithm.
+ * <p>
+ * {@code NimbusJwtEncoder} finds its key by matching the JWK set against the header and cannot build
+ * a matcher for EdDSA, so this encoder looks the key up by algorithm instead and signs through
+ * Nimbus directly. The header always carries the signing key's {@code kid}.
+ * <p>
+ * Per algorithm it keeps the {@link JWSSigner} of the current key and the base64url-encoded
+ * protected headers it has produced with it, so issuing a token only serializes and signs the
+ * claims. Both are replaced the first time the ring hands out a key with a different {@code kid},
+ * i.e. on rotation. Nimbus signers are thread-safe.
+ */
+public class KeyRingJwtEncoder implements JwtEncoder {
+
+    private static final Set<String> HEADERS = Set.of("alg", "kid", "typ", "cty");
+    // bounds the header cache should a customizer ever put per-token values into the header
+    private static final int MAX_CACHED_HEADERS = 16;
+
+    private final Function<JwsAlgorithm, JWK> signingKeys;
+    private final DefaultJWSSignerFactory signerFactory = new DefaultJWSSignerFactory();
+    private final Map<String, SigningState> states = new ConcurrentHashMap<>();
+
+    public KeyRingJwtEncoder(Function<JwsAlgorithm, JWK> signingKeys) {
+        this.signingKeys = signingKeys;
+    }
+
+    @Override
+    public Jwt encode(JwtEncoderParameters parameters) {
+        JwsHeader headers = parameters.getJwsHeader() != null
+                ? parameters.getJwsHeader()
+                : JwsHeader.with(SignatureAlgorithm.RS256).build();
+        JwtClaimsSet claims = parameters.getClaims();
+
+        SigningState state = state(headers.getAlgorithm());
+        EncodedHeader header = state.header(headers);
+        String signingInput = header.encoded() + '.' + claims(claims).toPayload().toBase64URL();
+        try {
+            Base64URL signature = state.signer().sign(header.header(), signingInput.getBytes(StandardCharsets.US_ASCII));
+            return Jwt.withTokenValue(signingInput + '.' + signature)
+                    .headers(h -> {
+                        h.putAll(headers.getHeaders());
+                        h.put("kid", state.kid());
+                    })
+                    .claims(c -> c.putAll(claims.getClaims()))
+                    .build();
+        } catch (JOSEException e) {
+            throw new JwtEncodingException("Failed to sign the JWT with key " + state.kid(), e);
+        }
+    }
+
+    private SigningState state(JwsAlgorithm algorithm) {
+        JWK key = signingKeys.apply(algorithm);
+        SigningState state = states.get(algorithm.getName());
+        if (state == null || !state.kid().equals(key.getKeyID())) {
+            try {
+                state = new SigningState(key.getKeyID(), signerFactory.createJWSSigner(key), new ConcurrentHashMap<>());
+            } catch (JOSEException e) {
+                throw new JwtEncodingException("Failed to create a signer for key " + key.getKeyID(), e);
+            }
+            states.put(algorithm.getName(), state);
+        }
+        return state;
+    }
+
+    private static JWSHeader header(JwsHeader headers, String kid) {
+        JWSHeader.Builder builder = new JWSHeader.Builder(JWSAlgorithm.parse(headers.getAlgorithm().getName()))
+                .keyID(kid);
+        if (headers.getType() != null) {
+            builder.type(new JOSEObjectType(headers.getType()));
+        }
+        if (headers.getContentType() != null) {
+            builder.contentType(headers.getContentType());
+        }
+        headers.getHeaders().forEach((name, value) -> {
+            if (!HEADERS.contains(name)) {
+                builder.customParam(name, value);
+            }
+        });
+        return builder.build();
+    }
+
+    private static JWTClaimsSet claims(JwtClaimsSet claims) {
+        JWTClaimsSet.Builder builder = new JWTClaimsSet.Builder();
+        claims.getClaims().forEach((name, value) -> builder.claim(name, claimValue(value)));
+        return builder.build();
+    }
+
+    private static Object claimValue(Object value) {
+        return switch (value) {
+            case Instant instant -> Date.from(instant);
+            case URL url -> url.toExternalForm();
+            case Map<?, ?> map -> {
+                Map<Object, Object> converted = new LinkedHashMap<>();
+                map.forEach((k, v) -> converted.put(k, claimValue(v)));
+                yield converted;
+            }
+            default -> value;
+        };
+    }
+
+    private record SigningState(String kid, JWSSigner signer, Map<Map<String, Object>, EncodedHeader> headers) {
+
+        EncodedHeader header(JwsHeader jwsHeader) {
+            EncodedHeader header = headers.get(jwsHeader.getHeaders());
+            if (header != null) {
+                return header;
+            }
+            JWSHeader built = KeyRingJwtEncoder.header(jwsHeader, kid);
+            header = new EncodedHeader(built, built.toBase64URL().toString());
+            if (headers.size() < MAX_CACHED_HEADERS) {
+                headers.putIfAbsent(jwsHeader.getHeaders(), header);
+            }
+            return header;
+        }
+    }
+
+    private record EncodedHeader(JWSHeader header, String encoded) {
+    }
+}
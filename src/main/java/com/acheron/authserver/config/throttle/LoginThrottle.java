@@ -0,0 +1,161 @@
+package com.acheron.authserver.config.throttle;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Rate limit for form-login attempts, checked before the password is hashed or the user is loaded:
+ * every attempt takes a token from the bucket of its client IP and then from the bucket of the
+ * submitted username. An IP spraying many usernames runs out of the first, a username attacked
+ * from many IPs out of the second.
+ * <p>
+ * The buckets live in {@link TokenBuckets} on this node, one per IP and one per username. With
+ * {@code app.login-throttle.redis-enabled} an attempt this node admits is also charged against
+ * buckets in Redis — the IP's, then the username's, each its own single-key script — so the limits
+ * hold across the cluster; a Redis rejection drains the local bucket, and the attacker's next
+ * attempts are turned away here without the round trip. Redis failures never fail a login — the
+ * throttle falls back to the local buckets.
+ * <p>
+ * Attempts are counted as {@code auth.login.throttle.requests}, tagged with the {@code result} and
+ * the {@code limit} that dropped them.
+ */
+@Slf4j
+@Component
+public class LoginThrottle {
+
+    private static final String KEY_PREFIX = "auth:login-throttle:";
+
+    /** Longest username a user can hold; a longer one submitted is charged by its prefix. */
+    private static final int MAX_USERNAME_LENGTH = 255;
+
+    /*
+     * KEYS: bucket
+     * ARGV: refill interval (ms), refill period (ms)
+     * Returns 0 when a token was taken, otherwise the milliseconds until one is free. One key per
+     * call keeps every acquisition on a single Redis Cluster slot.
+     */
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = RedisScript.of("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local interval = tonumber(ARGV[1])
+            local period = tonumber(ARGV[2])
+            local full_at = math.max(tonumber(redis.call('GET', KEYS[1]) or '0'), now) + interval
+            if full_at - now > period then return full_at - now - period end
+            redis.call('SET', KEYS[1], full_at, 'PX', full_at - now)
+            return 0
+            """, Long.class);
+
+    private final TokenBuckets ipBuckets;
+    private final TokenBuckets usernameBuckets;
+    private final StringRedisTemplate redis;
+    private final boolean redisEnabled;
+    private final Object[] ipRedisArgs;
+    private final Object[] usernameRedisArgs;
+    private final long origin = System.nanoTime();
+
+    private final Counter admitted;
+    private final Counter droppedByIp;
+    private final Counter droppedByUsername;
+
+    public LoginThrottle(StringRedisTemplate redis,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.login-throttle.max-keys:100000}") long maxKeys,
+                         @Value("${app.login-throttle.ip.capacity:30}") int ipCapacity,
+                         @Value("${app.login-throttle.ip.refill-period:1m}") Duration ipRefillPeriod,
+                         @Value("${app.login-throttle.username.capacity:10}") int usernameCapacity,
+                         @Value("${app.login-throttle.username.refill-period:5m}") Duration usernameRefillPeriod,
+                         @Value("${app.login-throttle.redis-enabled:false}") boolean redisEnabled) {
+        this.ipBuckets = new TokenBuckets(maxKeys, ipCapacity, ipRefillPeriod);
+        this.usernameBuckets = new TokenBuckets(maxKeys, usernameCapacity, usernameRefillPeriod);
+        this.redis = redis;
+        this.redisEnabled = redisEnabled;
+        this.ipRedisArgs = redisArgs(ipCapacity, ipRefillPeriod);
+        this.usernameRedisArgs = redisArgs(usernameCapacity, usernameRefillPeriod);
+
+        this.admitted = counter(meterRegistry, "admitted", "none");
+        this.droppedByIp = counter(meterRegistry, "dropped", "ip");
+        this.droppedByUsername = counter(meterRegistry, "dropped", "username");
+    }
+
+    /**
+     * Charges a login attempt for {@code username} from {@code ip}.
+     *
+     * @return {@code null} when the attempt may proceed, otherwise how long the client should wait
+     */
+    @Nullable
+    public Duration acquire(String ip, @Nullable String username) {
+        String user = username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+        if (user.length() > MAX_USERNAME_LENGTH) user = user.substring(0, MAX_USERNAME_LENGTH);
+        long now = System.nanoTime() - origin;
+
+        long wait = ipBuckets.tryAcquire(ip, now);
+        if (wait > 0) {
+            droppedByIp.increment();
+            return Duration.ofNanos(wait);
+        }
+        wait = usernameBuckets.tryAcquire(user, now);
+        if (wait > 0) {
+            droppedByUsername.increment();
+            return Duration.ofNanos(wait);
+        }
+
+        if (redisEnabled) {
+            Duration shared = acquireShared(ip, user, now);
+            if (shared != null) return shared;
+        }
+        admitted.increment();
+        return null;
+    }
+
+    @Nullable
+    private Duration acquireShared(String ip, String user, long now) {
+        try {
+            Duration wait = acquireShared(KEY_PREFIX + "ip:" + ip, ipRedisArgs);
+            if (wait != null) {
+                ipBuckets.drain(ip, now, wait);
+                droppedByIp.increment();
+                return wait;
+            }
+            wait = acquireShared(KEY_PREFIX + "user:" + user, usernameRedisArgs);
+            if (wait != null) {
+                usernameBuckets.drain(user, now, wait);
+                droppedByUsername.increment();
+                return wait;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Login throttle: Redis check failed, using local limits only — {}", e.getMessage());
+        }
+        return null;
+    }
+
+    @Nullable
+    private Duration acquireShared(String key, Object[] args) {
+        Long wait = redis.execute(ACQUIRE_SCRIPT, List.of(key), args);
+        return wait != null && wait > 0 ? Duration.ofMillis(wait) : null;
+    }
+
+    private static Object[] redisArgs(int capacity, Duration refillPeriod) {
+        return new Object[] {
+                Long.toString(Math.max(1, refillPeriod.toMillis() / capacity)),
+                Long.toString(refillPeriod.toMillis())
+        };
+    }
+
+    private static Counter counter(MeterRegistry registry, String result, String limit) {
+        return Counter.builder("auth.login.throttle.requests")
+                .description("Form-login attempts admitted or dropped before password hashing")
+                .tag("result", result)
+                .tag("limit", limit)
+                .register(registry);
+    }
+}
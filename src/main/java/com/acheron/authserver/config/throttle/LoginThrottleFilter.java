@@ -0,0 +1,50 @@
+package com.acheron.authserver.config.throttle;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Puts form-login submissions through the {@link LoginThrottle} and answers the ones it drops with
+ * a 429 and {@code Retry-After}, before the request reaches the session, CSRF or authentication
+ * filters. Other requests pass untouched.
+ */
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    private static final RequestMatcher LOGIN = PathPatternRequestMatcher.withDefaults()
+            .matcher(HttpMethod.POST, "/login");
+
+    private final LoginThrottle loginThrottle;
+
+    public LoginThrottleFilter(LoginThrottle loginThrottle) {
+        this.loginThrottle = loginThrottle;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !LOGIN.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Duration wait = loginThrottle.acquire(request.getRemoteAddr(), request.getParameter("username"));
+        if (wait == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long seconds = Math.max(1, (wait.toMillis() + 999) / 1000);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many login attempts");
+    }
+}
@@ -0,0 +1,65 @@
+package com.acheron.authserver.config.throttle;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed exactly, held in a bounded map and updated with a single CAS each.
+ * <p>
+ * Each bucket holds {@code capacity} tokens and regains them evenly over {@code refillPeriod}. It
+ * is stored as one {@code long} — the generic cell rate form of a token bucket, the time at which
+ * the bucket would be full again — so taking a token is a compare-and-set with no lock. Keys never
+ * share a bucket, so an attacker draining their own buckets cannot lock anyone else out.
+ * <p>
+ * A bucket idle for {@code refillPeriod} is full again, so it expires then without losing state.
+ * Memory is bounded by {@code maxKeys}: past it, the map's frequency-based admission keeps the
+ * buckets under attack, which are hit most often, and turns away one-off keys of a spray. A bucket
+ * evicted under that pressure starts full again — the throttle fails open for that key rather than
+ * closed for an unrelated one.
+ */
+final class TokenBuckets {
+
+    private final Cache<String, AtomicLong> fullAt;
+    private final long interval;
+    private final long period;
+
+    TokenBuckets(long maxKeys, int capacity, Duration refillPeriod) {
+        this.period = refillPeriod.toNanos();
+        this.interval = Math.max(1, period / capacity);
+        this.fullAt = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(refillPeriod)
+                .build();
+    }
+
+    /**
+     * Takes a token for {@code key} at {@code now} nanoseconds.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until the next one
+     */
+    long tryAcquire(String key, long now) {
+        AtomicLong bucket = bucket(key);
+        while (true) {
+            long current = bucket.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - period;
+            if (wait > 0) return wait;
+            if (bucket.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    /**
+     * Empties the bucket of {@code key} so that it stays empty for {@code duration} from {@code now}.
+     */
+    void drain(String key, long now, Duration duration) {
+        long drained = now + period - interval + duration.toNanos();
+        bucket(key).accumulateAndGet(drained, Math::max);
+    }
+
+    private AtomicLong bucket(String key) {
+        return fullAt.get(key, k -> new AtomicLong());
+    }
+}
@@ -13,6 +13,8 @@ public record ClientRegistrationRequest(
         boolean requirePkce,
         boolean requireConsent,
         long accessTokenTtlMinutes,
-        long refreshTokenTtlDays
+        long refreshTokenTtlDays,
+        String signingAlgorithm,
+        String claimProfile
 ) {
 }
@@ -0,0 +1,11 @@
+package com.acheron.authserver.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Whether each identifier in an availability check is free to register; {@code null} for an
+ * identifier that was not asked about.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AvailabilityResponse(Boolean usernameAvailable, Boolean emailAvailable) {
+}
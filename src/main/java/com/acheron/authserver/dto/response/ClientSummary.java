@@ -0,0 +1,17 @@
+package com.acheron.authserver.dto.response;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * The columns of {@code oauth2_registered_client} the admin client listing shows.
+ */
+public record ClientSummary(
+        String id,
+        String clientId,
+        String clientName,
+        Instant clientIdIssuedAt,
+        Set<String> redirectUris,
+        Set<String> scopes
+) {
+}
@@ -0,0 +1,33 @@
+package com.acheron.authserver.dto.response;
+
+import com.acheron.authserver.dto.util.PageCursor;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One keyset page, newest first, with the cursor of the page after it — {@code null} on the last
+ * page. There is no total: counting would read every row the cursor lets a page skip.
+ */
+public record CursorPage<T>(List<T> items, @Nullable String nextCursor) {
+
+    public static final int MAX_SIZE = 100;
+
+    /**
+     * The requested page size, clamped to {@code [1, MAX_SIZE]}.
+     */
+    public static int pageSize(int requested) {
+        return Math.clamp(requested, 1, MAX_SIZE);
+    }
+
+    /**
+     * The first {@code size} of {@code rows}, fetched with a limit of {@code size + 1} so that one
+     * extra row tells whether another page follows.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, PageCursor> cursor) {
+        if (rows.size() <= size) return new CursorPage<>(rows, null);
+        List<T> items = List.copyOf(rows.subList(0, size));
+        return new CursorPage<>(items, cursor.apply(items.getLast()).encode());
+    }
+}
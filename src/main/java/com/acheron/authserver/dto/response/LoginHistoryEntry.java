@@ -0,0 +1,14 @@
+package com.acheron.authserver.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record LoginHistoryEntry(
+        UUID id,
+        LocalDateTime timestamp,
+        String ipAddress,
+        String userAgent,
+        String location,
+        String loginMethod
+) {
+}
@@ -0,0 +1,43 @@
+package com.acheron.authserver.dto.response;
+
+import com.acheron.authserver.config.authorization.RevocationTarget;
+import com.acheron.authserver.entity.RevocationJob;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record RevocationJobResponse(
+        UUID id,
+        RevocationTarget.Scope scope,
+        String target,
+        RevocationJob.Status status,
+        String requestedBy,
+        long authorizationsRemoved,
+        long consentsRemoved,
+        String error,
+        int attempts,
+        Instant createdAt,
+        Instant startedAt,
+        Instant finishedAt
+) {
+
+    public static RevocationJobResponse fromEntity(RevocationJob job) {
+        if (job == null) {
+            return null;
+        }
+        return new RevocationJobResponse(
+                job.getId(),
+                job.getScope(),
+                job.getTarget(),
+                job.getStatus(),
+                job.getRequestedBy(),
+                job.getAuthorizationsRemoved(),
+                job.getConsentsRemoved(),
+                job.getError(),
+                job.getAttempts(),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt()
+        );
+    }
+}
@@ -0,0 +1,9 @@
+package com.acheron.authserver.dto.response;
+
+import java.util.List;
+
+/**
+ * A user and their most recent logins, newest first, as the admin detail view shows them.
+ */
+public record UserDetailResponse(UserSummary user, List<LoginHistoryEntry> loginHistory) {
+}
@@ -0,0 +1,23 @@
+package com.acheron.authserver.dto.response;
+
+import com.acheron.authserver.entity.Role;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The columns of {@code users} the admin views show, selected directly rather than through a
+ * {@link com.acheron.authserver.entity.User} entity.
+ */
+public record UserSummary(
+        UUID id,
+        String email,
+        String username,
+        boolean emailVerified,
+        boolean enabled,
+        boolean locked,
+        boolean mfaEnabled,
+        Role role,
+        Instant createdAt
+) {
+}
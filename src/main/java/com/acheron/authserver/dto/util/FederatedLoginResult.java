@@ -0,0 +1,14 @@
+package com.acheron.authserver.dto.util;
+
+import java.util.UUID;
+
+/**
+ * Outcome of {@code UserRepository.upsertFederatedLogin}: the local user a social login resolved to,
+ * and whether that user was created by it.
+ */
+public interface FederatedLoginResult {
+
+    UUID getUserId();
+
+    boolean getCreated();
+}
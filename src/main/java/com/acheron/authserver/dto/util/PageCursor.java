@@ -0,0 +1,69 @@
+package com.acheron.authserver.dto.util;
+
+import com.acheron.authserver.exception.AppException;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position of the last row a page returned — its sort timestamp and id — and the opaque,
+ * URL-safe token clients pass back for the next page. Pages run newest first, so the next page
+ * holds the rows strictly before this position; {@link #START} sorts after every row.
+ */
+public record PageCursor(Instant timestamp, String id) {
+
+    public static final PageCursor START =
+            new PageCursor(Instant.parse("9999-12-31T23:59:59Z"), "ffffffff-ffff-ffff-ffff-ffffffffffff");
+
+    private static final char SEPARATOR = '|';
+
+    public static PageCursor of(LocalDateTime timestamp, UUID id) {
+        return new PageCursor(timestamp.toInstant(ZoneOffset.UTC), id.toString());
+    }
+
+    /**
+     * The cursor a client sent back, or {@link #START} when it sent none.
+     */
+    public static PageCursor decode(@Nullable String token) {
+        if (token == null || token.isBlank()) return START;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            return new PageCursor(Instant.parse(decoded.substring(0, separator)), decoded.substring(separator + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw invalid();
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((timestamp.toString() + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The timestamp as stored in a {@code TIMESTAMP WITHOUT TIME ZONE} column mapped to
+     * {@link LocalDateTime}; the inverse of {@link #of(LocalDateTime, UUID)}.
+     */
+    public LocalDateTime localTimestamp() {
+        return LocalDateTime.ofInstant(timestamp, ZoneOffset.UTC);
+    }
+
+    public UUID uuid() {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+
+    private static AppException invalid() {
+        return new AppException("Invalid cursor", HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,6 @@
+package com.acheron.authserver.dto.util;
+
+import java.util.UUID;
+
+public record RevocationJobSubmittedEvent(UUID jobId) {
+}
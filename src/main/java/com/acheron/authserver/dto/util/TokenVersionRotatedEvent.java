@@ -0,0 +1,4 @@
+package com.acheron.authserver.dto.util;
+
+public record TokenVersionRotatedEvent(String username) {
+}
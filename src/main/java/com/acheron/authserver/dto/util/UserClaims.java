@@ -0,0 +1,11 @@
+package com.acheron.authserver.dto.util;
+
+import com.acheron.authserver.entity.Role;
+
+import java.util.UUID;
+
+/**
+ * What token customization needs to know about the user a token is minted for.
+ */
+public record UserClaims(UUID userId, String username, Role role, UUID tokenVersion) {
+}
@@ -0,0 +1,51 @@
+package com.acheron.authserver.dto.util;
+
+import com.acheron.authserver.entity.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * What form login needs to check a password attempt, without the {@code User} entity: the hash,
+ * the lock and enabled flags and whether a second factor is required.
+ */
+public record UserCredentials(UUID userId,
+                              String username,
+                              String passwordHash,
+                              Role role,
+                              boolean enabled,
+                              boolean locked,
+                              boolean mfaEnabled) implements UserDetails {
+
+    public UserCredentials withPasswordHash(String passwordHash) {
+        return new UserCredentials(userId, username, passwordHash, role, enabled, locked, mfaEnabled);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Set.of(role);
+    }
+
+    @Override
+    public String getPassword() {
+        return passwordHash;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return !locked;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,44 @@
+package com.acheron.authserver.dto.util;
+
+import com.acheron.authserver.entity.Role;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One row of {@code UserRepository.findDetailRows}: the user's columns, repeated on every row, next
+ * to one of their recent logins — all login columns {@code null} when there are none.
+ */
+public interface UserDetailRow {
+
+    UUID getId();
+
+    String getEmail();
+
+    String getUsername();
+
+    boolean getEmailVerified();
+
+    boolean getEnabled();
+
+    boolean getLocked();
+
+    boolean getMfaEnabled();
+
+    Role getRole();
+
+    Instant getCreatedAt();
+
+    UUID getLoginId();
+
+    LocalDateTime getLoginTimestamp();
+
+    String getIpAddress();
+
+    String getUserAgent();
+
+    String getLocation();
+
+    String getLoginMethod();
+}
@@ -0,0 +1,15 @@
+package com.acheron.authserver.dto.util;
+
+/**
+ * A username and email that a user now holds, or — when {@code released} — no longer holds.
+ */
+public record UserIdentifiersChangedEvent(String username, String email, boolean released) {
+
+    public static UserIdentifiersChangedEvent claimed(String username, String email) {
+        return new UserIdentifiersChangedEvent(username, email, false);
+    }
+
+    public static UserIdentifiersChangedEvent released(String username, String email) {
+        return new UserIdentifiersChangedEvent(username, email, true);
+    }
+}
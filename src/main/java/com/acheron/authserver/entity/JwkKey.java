@@ -0,0 +1,44 @@
+package com.acheron.authserver.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One signing key of the ring. It is published from creation until {@code expiresAt}, signs between
+ * {@code activatesAt} and {@code retiresAt}, and its private part is only ever stored encrypted.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "jwk_key")
+public class JwkKey {
+    @Id
+    @Column(length = 100)
+    private String kid;
+
+    @Column(nullable = false, length = 16)
+    private String algorithm;
+
+    @Column(name = "public_jwk", nullable = false, columnDefinition = "TEXT")
+    private String publicJwk;
+
+    @Column(name = "private_jwk", nullable = false)
+    private byte[] privateJwk;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "activates_at", nullable = false)
+    private Instant activatesAt;
+
+    @Column(name = "retires_at", nullable = false)
+    private Instant retiresAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,67 @@
+package com.acheron.authserver.entity;
+
+import com.acheron.authserver.config.authorization.RevocationTarget;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "revocation_job")
+public class RevocationJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private RevocationTarget.Scope scope;
+
+    @Column(length = 200)
+    private String target;
+
+    @Column(nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(name = "requested_by", length = 200)
+    private String requestedBy;
+
+    @Column(name = "authorizations_removed", nullable = false)
+    private long authorizationsRemoved;
+
+    @Column(name = "consents_removed", nullable = false)
+    private long consentsRemoved;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    public RevocationTarget toTarget() {
+        return new RevocationTarget(scope, target);
+    }
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+}
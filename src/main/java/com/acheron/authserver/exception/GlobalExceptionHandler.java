@@ -4,6 +4,7 @@ import com.acheron.authserver.dto.util.ApiError;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -30,6 +31,25 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(apiError, ex.getStatus());
     }
 
+    /**
+     * Handles a full password-hashing queue (registration, password changes).
+     * Returns 503 Service Unavailable with Retry-After.
+     */
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<ApiError> handlePasswordHashingRejected(PasswordHashingRejectedException ex, HttpServletRequest request) {
+        log.warn("Password hashing queue full at {}", request.getRequestURI());
+
+        ApiError apiError = new ApiError(
+                ex.getStatus().value(),
+                ex.getStatus().getReasonPhrase(),
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.retryAfterSeconds()))
+                .body(apiError);
+    }
+
     /**
      * Handles validation errors (@Valid, @NotNull, etc.).
      * Returns 400 Bad Request.
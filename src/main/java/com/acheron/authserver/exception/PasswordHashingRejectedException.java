@@ -0,0 +1,24 @@
+package com.acheron.authserver.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+/**
+ * The password-hashing queue is full; the request is rejected before any hashing work is done.
+ */
+@Getter
+public class PasswordHashingRejectedException extends AppException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingRejectedException(Duration retryAfter) {
+        super("Too many password checks in progress, retry later", HttpStatus.SERVICE_UNAVAILABLE);
+        this.retryAfter = retryAfter;
+    }
+
+    public long retryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
@@ -5,14 +5,19 @@ import com.acheron.authserver.entity.FederatedIdentity;
 import com.acheron.authserver.entity.OAuthProvider;
 import com.acheron.authserver.entity.Role;
 import com.acheron.authserver.entity.User;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.util.HashMap;
 import java.util.Map;
 
 @Component
+@RequiredArgsConstructor
 public class UserMapper {
 
+    private final JsonMapper jsonMapper;
+
     public User toUserEntity(UnifiedUserDto dto) {
         return User.builder()
                 .email(dto.getEmail())
@@ -44,6 +49,10 @@ public class UserMapper {
                 .build();
     }
 
+    public String toJson(Map<String, Object> providerMetadata) {
+        return providerMetadata == null ? null : jsonMapper.writeValueAsString(providerMetadata);
+    }
+
     private OAuthProvider resolveProvider(String providerId) {
         if (providerId == null) {
             throw new IllegalArgumentException("Provider ID cannot be null");
@@ -1,12 +1,30 @@
 package com.acheron.authserver.repository;
 
+import com.acheron.authserver.dto.response.LoginHistoryEntry;
 import com.acheron.authserver.entity.AuthHistory;
 import com.acheron.authserver.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 public interface AuthHistoryRepository extends JpaRepository<AuthHistory, UUID> {
     List<AuthHistory> findTop10ByUserOrderByTimestampDesc(User user);
+
+    /**
+     * The user's logins strictly before {@code (timestamp, id)}, newest first, read as a range of
+     * {@code idx_auth_history_user_time_id}.
+     */
+    @Query("SELECT new com.acheron.authserver.dto.response.LoginHistoryEntry(" +
+           "h.id, h.timestamp, h.ipAddress, h.userAgent, h.location, h.loginMethod) " +
+           "FROM AuthHistory h WHERE h.user.id = :userId AND (h.timestamp, h.id) < (:timestamp, :id) " +
+           "ORDER BY h.timestamp DESC, h.id DESC")
+    List<LoginHistoryEntry> findEntriesBefore(@Param("userId") UUID userId,
+                                              @Param("timestamp") LocalDateTime timestamp,
+                                              @Param("id") UUID id,
+                                              Limit limit);
 }
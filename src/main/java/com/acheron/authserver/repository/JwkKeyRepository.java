@@ -0,0 +1,23 @@
+package com.acheron.authserver.repository;
+
+import com.acheron.authserver.entity.JwkKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface JwkKeyRepository extends JpaRepository<JwkKey, String> {
+
+    List<JwkKey> findAllByExpiresAtAfterOrderByActivatesAtDesc(Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM JwkKey k WHERE k.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
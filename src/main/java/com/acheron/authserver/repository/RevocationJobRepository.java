@@ -0,0 +1,21 @@
+package com.acheron.authserver.repository;
+
+import com.acheron.authserver.entity.RevocationJob;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RevocationJobRepository extends JpaRepository<RevocationJob, UUID> {
+
+    Optional<RevocationJob> findFirstByStatusInAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(
+            Collection<RevocationJob.Status> statuses, Instant now);
+
+    Page<RevocationJob> findAllByOrderByCreatedAtDesc(Pageable pageable);
+}
@@ -1,13 +1,21 @@
 package com.acheron.authserver.repository;
 
+import com.acheron.authserver.dto.response.UserSummary;
+import com.acheron.authserver.dto.util.FederatedLoginResult;
+import com.acheron.authserver.dto.util.UserClaims;
+import com.acheron.authserver.dto.util.UserCredentials;
+import com.acheron.authserver.dto.util.UserDetailRow;
 import com.acheron.authserver.entity.User;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -21,8 +29,142 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     Optional<User> findUserByEmail(String email);
 
-    @Query("SELECT u FROM User u WHERE u.deletedAt IS NULL AND " +
-           "(:search IS NULL OR LOWER(u.username) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<User> findAllActive(@Param("search") String search, Pageable pageable);
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.username = :username")
+    Optional<UUID> findTokenVersionByUsername(@Param("username") String username);
+
+    @Query("SELECT new com.acheron.authserver.dto.util.UserClaims(u.id, u.username, u.role, u.tokenVersion) " +
+           "FROM User u WHERE u.username = :username")
+    Optional<UserClaims> findClaimsByUsername(@Param("username") String username);
+
+    @Query("SELECT new com.acheron.authserver.dto.util.UserCredentials(" +
+           "u.id, u.username, u.passwordHash, u.role, u.enabled, u.locked, u.mfaEnabled) " +
+           "FROM User u WHERE u.username = :username")
+    Optional<UserCredentials> findCredentialsByUsername(@Param("username") String username);
+
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.username = :username")
+    int updatePasswordHash(@Param("username") String username, @Param("passwordHash") String passwordHash);
+
+    /**
+     * Resolves the local user of a social login in one statement: the active user already linked to
+     * the provider account, otherwise the active user with that email — inserted when there is none —
+     * which the provider account is then linked to. Concurrent first logins converge on the same rows
+     * through the partial unique indexes on {@code users (email)} and
+     * {@code federated_identity (provider, provider_user_id)}; a link left on a soft-deleted user
+     * moves to the resolved one.
+     */
+    @Query(value = """
+            WITH linked AS (
+                SELECT fi.user_id FROM federated_identity fi
+                JOIN users u ON u.id = fi.user_id AND u.deleted_at IS NULL
+                WHERE fi.provider = :provider AND fi.provider_user_id = :providerUserId AND fi.deleted_at IS NULL
+            ), resolved AS (
+                INSERT INTO users (email, username, email_verified, role, created_at, updated_at)
+                SELECT :email, :username, :emailVerified, :role, :now, :now
+                WHERE NOT EXISTS (SELECT 1 FROM linked)
+                ON CONFLICT (email) WHERE deleted_at IS NULL DO UPDATE SET email = EXCLUDED.email
+                RETURNING id, xmax = 0 AS created
+            ), link AS (
+                INSERT INTO federated_identity (provider, provider_user_id, provider_username, provider_metadata,
+                                                user_id, created_at, updated_at)
+                SELECT :provider, :providerUserId, :providerUsername, CAST(:providerMetadata AS JSONB), id, :now, :now
+                FROM resolved
+                ON CONFLICT (provider, provider_user_id) WHERE deleted_at IS NULL
+                DO UPDATE SET user_id = EXCLUDED.user_id, updated_at = EXCLUDED.updated_at
+            )
+            SELECT user_id AS "userId", FALSE AS "created" FROM linked
+            UNION ALL
+            SELECT id, created FROM resolved
+            """, nativeQuery = true)
+    FederatedLoginResult upsertFederatedLogin(@Param("provider") String provider,
+                                              @Param("providerUserId") String providerUserId,
+                                              @Param("providerUsername") String providerUsername,
+                                              @Param("providerMetadata") String providerMetadata,
+                                              @Param("email") String email,
+                                              @Param("username") String username,
+                                              @Param("emailVerified") boolean emailVerified,
+                                              @Param("role") String role,
+                                              @Param("now") Instant now);
+
+    @Query("SELECT new com.acheron.authserver.dto.response.UserSummary(" +
+           "u.id, u.email, u.username, u.emailVerified, u.enabled, u.locked, u.mfaEnabled, u.role, u.createdAt) " +
+           "FROM User u WHERE u.deletedAt IS NULL")
+    List<UserSummary> findSummaries(Pageable pageable);
+
+    /**
+     * Active users whose lower-cased username or email matches a {@code LIKE} pattern escaped with
+     * {@code \}. Served by the trigram indexes for {@code %term%} of three characters or more and
+     * the pattern-ops indexes for {@code term%}.
+     */
+    @Query("SELECT new com.acheron.authserver.dto.response.UserSummary(" +
+           "u.id, u.email, u.username, u.emailVerified, u.enabled, u.locked, u.mfaEnabled, u.role, u.createdAt) " +
+           "FROM User u WHERE u.deletedAt IS NULL AND " +
+           "(LOWER(u.username) LIKE :pattern ESCAPE '\\' OR LOWER(u.email) LIKE :pattern ESCAPE '\\')")
+    List<UserSummary> searchSummaries(@Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * Active users strictly before {@code (createdAt, id)}, newest first: a range scan of
+     * {@code idx_users_created_at_id} that costs the same on every page.
+     */
+    @Query("SELECT new com.acheron.authserver.dto.response.UserSummary(" +
+           "u.id, u.email, u.username, u.emailVerified, u.enabled, u.locked, u.mfaEnabled, u.role, u.createdAt) " +
+           "FROM User u WHERE u.deletedAt IS NULL AND (u.createdAt, u.id) < (:createdAt, :id) " +
+           "ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserSummary> findSummariesBefore(@Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    /**
+     * {@link #findSummariesBefore} narrowed to the users matching {@link #searchSummaries}.
+     */
+    @Query("SELECT new com.acheron.authserver.dto.response.UserSummary(" +
+           "u.id, u.email, u.username, u.emailVerified, u.enabled, u.locked, u.mfaEnabled, u.role, u.createdAt) " +
+           "FROM User u WHERE u.deletedAt IS NULL AND (u.createdAt, u.id) < (:createdAt, :id) AND " +
+           "(LOWER(u.username) LIKE :pattern ESCAPE '\\' OR LOWER(u.email) LIKE :pattern ESCAPE '\\') " +
+           "ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserSummary> searchSummariesBefore(@Param("pattern") String pattern,
+                                            @Param("createdAt") Instant createdAt,
+                                            @Param("id") UUID id,
+                                            Limit limit);
+
+    /**
+     * Number of active users, counting no further than {@code cap}.
+     */
+    @Query(value = "SELECT count(*) FROM (SELECT 1 FROM users WHERE deleted_at IS NULL LIMIT :cap) active",
+           nativeQuery = true)
+    long countActiveUpTo(@Param("cap") int cap);
+
+    /**
+     * Number of users matching {@link #searchSummaries}, counting no further than {@code cap}.
+     */
+    @Query(value = "SELECT count(*) FROM (SELECT 1 FROM users WHERE deleted_at IS NULL AND " +
+                   "(lower(username) LIKE :pattern ESCAPE '\\' OR lower(email) LIKE :pattern ESCAPE '\\') " +
+                   "LIMIT :cap) matches",
+           nativeQuery = true)
+    long countMatchesUpTo(@Param("pattern") String pattern, @Param("cap") int cap);
+
+    @Query("SELECT new com.acheron.authserver.dto.response.UserSummary(" +
+           "u.id, u.email, u.username, u.emailVerified, u.enabled, u.locked, u.mfaEnabled, u.role, u.createdAt) " +
+           "FROM User u WHERE u.id = :id")
+    Optional<UserSummary> findSummaryById(@Param("id") UUID id);
+
+    /**
+     * The user and up to {@code historySize} of their latest logins in one round trip: a lateral
+     * join walks {@code idx_auth_history_user_time_id} backwards from the newest login.
+     */
+    @Query(value = """
+            SELECT u.id, u.email, u.username, u.email_verified AS "emailVerified", u.enabled, u.locked,
+                   u.mfa_enabled AS "mfaEnabled", u.role, u.created_at AS "createdAt",
+                   h.id AS "loginId", h.timestamp AS "loginTimestamp", h.ip_address AS "ipAddress", h.user_agent AS "userAgent",
+                   h.location, h.login_method AS "loginMethod"
+            FROM users u
+            LEFT JOIN LATERAL (
+                SELECT ah.id, ah.timestamp, ah.ip_address, ah.user_agent, ah.location, ah.login_method
+                FROM auth_history ah
+                WHERE ah.user_id = u.id
+                ORDER BY ah.timestamp DESC, ah.id DESC
+                LIMIT :historySize
+            ) h ON TRUE
+            WHERE u.id = :id AND u.deleted_at IS NULL
+            ORDER BY h.timestamp DESC, h.id DESC
+            """, nativeQuery = true)
+    List<UserDetailRow> findDetailRows(@Param("id") UUID id, @Param("historySize") int historySize);
 }
\ No newline at end of file
@@ -1,13 +1,19 @@
 package com.acheron.authserver.service;
 
+import com.acheron.authserver.dto.response.CursorPage;
+import com.acheron.authserver.dto.response.LoginHistoryEntry;
+import com.acheron.authserver.dto.util.PageCursor;
 import com.acheron.authserver.entity.AuthHistory;
 import com.acheron.authserver.entity.User;
 import com.acheron.authserver.repository.AuthHistoryRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -30,6 +36,16 @@ public class AuthHistoryService {
         authHistoryRepository.save(history);
     }
 
+    /**
+     * The user's logins after {@code cursor}, newest first.
+     */
+    public CursorPage<LoginHistoryEntry> findLoginHistory(UUID userId, PageCursor cursor, int size) {
+        int pageSize = CursorPage.pageSize(size);
+        List<LoginHistoryEntry> rows = authHistoryRepository.findEntriesBefore(
+                userId, cursor.localTimestamp(), cursor.uuid(), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, entry -> PageCursor.of(entry.timestamp(), entry.id()));
+    }
+
     private static String resolveClientIp(HttpServletRequest request) {
         String forwarded = request.getHeader("X-Forwarded-For");
         if (forwarded != null && !forwarded.isBlank()) {
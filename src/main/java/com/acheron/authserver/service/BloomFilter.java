@@ -0,0 +1,81 @@
+package com.acheron.authserver.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings, safe for concurrent {@link #put} and {@link #mightContain}
+ * without locking: bits are set with a CAS on one word each and never cleared.
+ * <p>
+ * Sized for {@code expectedInsertions} at {@code falsePositiveRate}; the k bit positions of a value
+ * come from two 64-bit hashes of its UTF-8 bytes combined as {@code h1 + i·h2}.
+ */
+final class BloomFilter {
+
+    private static final long SEED_1 = 0x9e3779b97f4a7c15L;
+    private static final long SEED_2 = 0xc2b2ae3d27d4eb4fL;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = (int) Math.max(1, Math.min(16, Math.round((double) bitCount / n * ln2)));
+    }
+
+    void put(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long h1 = hash(bytes, SEED_1);
+        long h2 = hash(bytes, SEED_2);
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, set) -> current | set);
+            }
+            combined += h2;
+        }
+    }
+
+    /**
+     * {@code false} only if {@code value} was never {@link #put}.
+     */
+    boolean mightContain(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long h1 = hash(bytes, SEED_1);
+        long h2 = hash(bytes, SEED_2);
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            combined += h2;
+        }
+        return true;
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+
+    /** FNV-1a over the bytes, finished with the MurmurHash3 64-bit mix. */
+    private static long hash(byte[] bytes, long seed) {
+        long h = seed ^ bytes.length;
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb3f99e7d6cb3L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
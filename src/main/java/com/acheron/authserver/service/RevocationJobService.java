@@ -0,0 +1,77 @@
+package com.acheron.authserver.service;
+
+import com.acheron.authserver.config.authorization.RevocationTarget;
+import com.acheron.authserver.dto.util.RevocationJobSubmittedEvent;
+import com.acheron.authserver.entity.RevocationJob;
+import com.acheron.authserver.exception.AppException;
+import com.acheron.authserver.repository.RevocationJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Records bulk revocations as {@link RevocationJob}s. The caller gets the job back at once; the
+ * authorizations themselves are deleted in chunks by
+ * {@link com.acheron.authserver.service.maintenance.RevocationJobRunner}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RevocationJobService {
+    private final RevocationJobRepository revocationJobRepository;
+    private final RegisteredClientRepository registeredClientRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public RevocationJob submit(RevocationTarget target) {
+        Instant now = Instant.now();
+        RevocationJob job = revocationJobRepository.save(RevocationJob.builder()
+                .scope(target.scope())
+                .target(target.value())
+                .status(RevocationJob.Status.PENDING)
+                .requestedBy(currentPrincipalName())
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+        log.info("Revocation job {} submitted for {} {}", job.getId(), target.scope(), target.value());
+        eventPublisher.publishEvent(new RevocationJobSubmittedEvent(job.getId()));
+        return job;
+    }
+
+    @Transactional
+    public RevocationJob submitForClient(String clientId) {
+        RegisteredClient client = registeredClientRepository.findByClientId(clientId);
+        if (client == null) {
+            throw new AppException("Client not found", HttpStatus.NOT_FOUND);
+        }
+        return submit(RevocationTarget.client(client.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public RevocationJob findById(UUID id) {
+        return revocationJobRepository.findById(id)
+                .orElseThrow(() -> new AppException("Revocation job not found", HttpStatus.NOT_FOUND));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<RevocationJob> findAll(Pageable pageable) {
+        return revocationJobRepository.findAllByOrderByCreatedAtDesc(pageable);
+    }
+
+    private static String currentPrincipalName() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+}
@@ -1,7 +1,11 @@
 package com.acheron.authserver.service;
 
+import com.acheron.authserver.config.authorization.RevocationTarget;
+import com.acheron.authserver.dto.util.TokenVersionRotatedEvent;
+import com.acheron.authserver.entity.RevocationJob;
 import com.acheron.authserver.entity.User;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,11 +16,17 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class SessionManagementService {
     private final JdbcTemplate jdbcTemplate;
+    private final RevocationJobService revocationJobService;
+    private final ApplicationEventPublisher eventPublisher;
 
+    /**
+     * Rotates the token version at once — refresh tokens of the user stop working immediately — and
+     * queues the deletion of their authorizations and consents as a {@link RevocationJob}.
+     */
     @Transactional
-    public void revokeAllSessions(User user) {
+    public RevocationJob revokeAllSessions(User user) {
         rotateTokenVersion(user);
-        revokeAllAuthorizations(user);
+        return revokeAllAuthorizations(user);
     }
 
     @Transactional
@@ -24,11 +34,11 @@ public class SessionManagementService {
         UUID newVersion = UUID.randomUUID();
         jdbcTemplate.update("UPDATE users SET token_version = ? WHERE id = ?", newVersion, user.getId());
         user.setTokenVersion(newVersion);
+        eventPublisher.publishEvent(new TokenVersionRotatedEvent(user.getUsername()));
     }
 
     @Transactional
-    public void revokeAllAuthorizations(User user) {
-        jdbcTemplate.update("DELETE FROM oauth2_authorization WHERE principal_name = ?", user.getUsername());
-        jdbcTemplate.update("DELETE FROM oauth2_authorization_consent WHERE principal_name = ?", user.getUsername());
+    public RevocationJob revokeAllAuthorizations(User user) {
+        return revocationJobService.submit(RevocationTarget.principal(user.getUsername()));
     }
 }
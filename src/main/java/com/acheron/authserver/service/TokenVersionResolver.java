@@ -0,0 +1,109 @@
+package com.acheron.authserver.service;
+
+import com.acheron.authserver.dto.util.TokenVersionRotatedEvent;
+import com.acheron.authserver.dto.util.UserDetailsChangedEvent;
+import com.acheron.authserver.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Near-cache of principal → {@code users.token_version}.
+ * <p>
+ * Misses read only the version column. Rotations — and deletes, renames, locks and anything else
+ * that can end the user's sessions — invalidate the entry on every node through the
+ * {@value #CHANNEL} channel once the changing transaction commits; the TTL is only a safety net
+ * for a lost message. A lookup that started before an invalidation is not cached, so a concurrent
+ * refresh cannot put the pre-rotation version back.
+ */
+@Slf4j
+@Service
+public class TokenVersionResolver {
+
+    static final String CHANNEL = "auth:token-version:invalidate";
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redis;
+    private final Cache<String, UUID> versions;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public TokenVersionResolver(UserRepository userRepository,
+                                StringRedisTemplate redis,
+                                RedisMessageListenerContainer listenerContainer,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.token-version.cache.max-size:100000}") long maxSize,
+                                @Value("${app.token-version.cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.redis = redis;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.hits = Counter.builder("auth.token_version.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("auth.token_version.cache.requests").tag("result", "miss").register(meterRegistry);
+
+        listenerContainer.addMessageListener(
+                (message, pattern) -> invalidateLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Current token version of the principal, or empty when no active user has that username.
+     */
+    public Optional<UUID> resolve(String principalName) {
+        UUID cached = versions.getIfPresent(principalName);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+
+        long generation = invalidations.get();
+        Optional<UUID> version = userRepository.findTokenVersionByUsername(principalName);
+        if (version.isPresent() && invalidations.get() == generation) {
+            versions.put(principalName, version.get());
+        }
+        return version;
+    }
+
+    public void invalidate(String principalName) {
+        invalidateLocal(principalName);
+        try {
+            redis.convertAndSend(CHANNEL, principalName);
+        } catch (RuntimeException e) {
+            log.warn("Token version cache: failed to publish invalidation for '{}' — {}", principalName, e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTokenVersionRotated(TokenVersionRotatedEvent event) {
+        invalidate(event.username());
+    }
+
+    /** Deleted, renamed (published under the old username), locked or disabled users resolve anew. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDetailsChanged(UserDetailsChangedEvent event) {
+        invalidate(event.username());
+    }
+
+    private void invalidateLocal(String principalName) {
+        invalidations.incrementAndGet();
+        versions.invalidate(principalName);
+    }
+}
@@ -0,0 +1,232 @@
+package com.acheron.authserver.service;
+
+import com.acheron.authserver.dto.util.UserIdentifiersChangedEvent;
+import com.acheron.authserver.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Answers "is this username / email taken?" for registration and the availability endpoint, going
+ * to Postgres only when a {@link BloomFilter} of every active user's identifiers says "maybe".
+ * <p>
+ * The filters are built from {@code users} on startup, in keyset-ordered pages, and rebuilt every
+ * {@code app.user-availability.rebuild-interval}. Identifiers a user claims are added once the
+ * transaction commits, here and — through the {@value #CHANNEL} channel — on every other node.
+ * A Bloom filter cannot forget, so identifiers that a deleted or renamed user released only mark
+ * the filters stale; they keep answering "maybe", which costs a query but is never wrong, until the
+ * next {@code app.user-availability.refresh-interval} tick rebuilds them. That rebuild, and the
+ * periodic one, also repair any claim lost with a pub/sub message.
+ * <p>
+ * Until the first build completes every check goes to the database. Checks are counted as
+ * {@code auth.user.availability.requests}, tagged with the {@code identifier} and whether the
+ * filter answered alone, the database confirmed a match, or the filter gave a false positive.
+ */
+@Slf4j
+@Service
+public class UserAvailabilityIndex implements SmartInitializingSingleton {
+
+    static final String CHANNEL = "auth:user-availability:changed";
+
+    private static final String RELEASED = "released";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redis;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final Duration rebuildInterval;
+    private final int batchSize;
+
+    private volatile Filters filters;
+    @Nullable
+    private Filters building;
+    private volatile boolean stale;
+
+    private final Counters usernames;
+    private final Counters emails;
+
+    public UserAvailabilityIndex(UserRepository userRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 StringRedisTemplate redis,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.user-availability.expected-users:1000000}") long expectedUsers,
+                                 @Value("${app.user-availability.false-positive-rate:0.01}") double falsePositiveRate,
+                                 @Value("${app.user-availability.rebuild-interval:1h}") Duration rebuildInterval,
+                                 @Value("${app.user-availability.batch-size:10000}") int batchSize) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.redis = redis;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildInterval = rebuildInterval;
+        this.batchSize = batchSize;
+        this.usernames = new Counters(meterRegistry, "username");
+        this.emails = new Counters(meterRegistry, "email");
+
+        listenerContainer.addMessageListener(
+                (message, pattern) -> apply(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
+
+    public boolean usernameTaken(String username) {
+        return taken(Filters::usernames, username, userRepository::existsUserByUsername, usernames);
+    }
+
+    public boolean emailTaken(String email) {
+        return taken(Filters::emails, email, userRepository::existsUserByEmail, emails);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("User availability index: initial build failed, checks go to the database — {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.user-availability.refresh-interval:1m}",
+            fixedDelayString = "${app.user-availability.refresh-interval:1m}")
+    public void refresh() {
+        Filters current = filters;
+        if (current == null || stale || current.builtAt().plus(rebuildInterval).isBefore(Instant.now())) {
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdentifiersChanged(UserIdentifiersChangedEvent event) {
+        String message = event.released() ? RELEASED
+                : Objects.toString(event.username(), "") + "\n" + Objects.toString(event.email(), "");
+        apply(message);
+        try {
+            redis.convertAndSend(CHANNEL, message);
+        } catch (RuntimeException e) {
+            log.warn("User availability index: failed to publish change — {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Scans the active users into fresh filters and swaps them in. Claims that arrive meanwhile go
+     * into both the serving and the new filters, so none is lost between the scan and the swap.
+     */
+    void rebuild() {
+        Long active = jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE deleted_at IS NULL", Long.class);
+        long capacity = Math.max(expectedUsers, 2 * (active != null ? active : 0));
+        Filters next = new Filters(new BloomFilter(capacity, falsePositiveRate), new BloomFilter(capacity, falsePositiveRate),
+                Instant.now());
+        synchronized (this) {
+            building = next;
+            stale = false;
+        }
+        try {
+            UUID after = null;
+            int loaded;
+            long total = 0;
+            do {
+                Object[] args = after == null ? new Object[]{batchSize} : new Object[]{after, batchSize};
+                String sql = "SELECT id, username, email FROM users WHERE deleted_at IS NULL"
+                        + (after == null ? "" : " AND id > ?") + " ORDER BY id LIMIT ?";
+                UUID[] last = {null};
+                loaded = jdbcTemplate.query(sql, rs -> {
+                    int rows = 0;
+                    while (rs.next()) {
+                        next.put(rs.getString("username"), rs.getString("email"));
+                        last[0] = rs.getObject("id", UUID.class);
+                        rows++;
+                    }
+                    return rows;
+                }, args);
+                after = last[0];
+                total += loaded;
+            } while (loaded == batchSize);
+
+            synchronized (this) {
+                filters = next;
+                building = null;
+            }
+            log.debug("User availability index rebuilt from {} users ({} bits per filter)",
+                    total, next.usernames().bitCount());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                building = null;
+                stale = true;
+            }
+            throw e;
+        }
+    }
+
+    private boolean taken(Function<Filters, BloomFilter> select, String value, Predicate<String> database,
+                          Counters counters) {
+        Filters current = filters;
+        if (current != null && !select.apply(current).mightContain(value)) {
+            counters.filtered.increment();
+            return false;
+        }
+        boolean taken = database.test(value);
+        (taken ? counters.confirmed : counters.falsePositive).increment();
+        return taken;
+    }
+
+    private synchronized void apply(String message) {
+        if (RELEASED.equals(message)) {
+            stale = true;
+            return;
+        }
+        int separator = message.indexOf('\n');
+        if (separator < 0) return;
+        String username = message.substring(0, separator);
+        String email = message.substring(separator + 1);
+        if (filters != null) filters.put(username, email);
+        if (building != null) building.put(username, email);
+    }
+
+    private record Filters(BloomFilter usernames, BloomFilter emails, Instant builtAt) {
+
+        void put(String username, String email) {
+            if (username != null && !username.isEmpty()) usernames.put(username);
+            if (email != null && !email.isEmpty()) emails.put(email);
+        }
+    }
+
+    private static final class Counters {
+
+        final Counter filtered;
+        final Counter confirmed;
+        final Counter falsePositive;
+
+        Counters(MeterRegistry registry, String identifier) {
+            this.filtered = counter(registry, identifier, "filtered");
+            this.confirmed = counter(registry, identifier, "taken");
+            this.falsePositive = counter(registry, identifier, "false_positive");
+        }
+
+        private static Counter counter(MeterRegistry registry, String identifier, String result) {
+            return Counter.builder("auth.user.availability.requests")
+                    .description("Username and email availability checks, by how they were answered")
+                    .tag("identifier", identifier)
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
+}
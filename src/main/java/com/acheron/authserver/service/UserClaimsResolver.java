@@ -0,0 +1,117 @@
+package com.acheron.authserver.service;
+
+import com.acheron.authserver.dto.util.UserClaims;
+import com.acheron.authserver.dto.util.UserDetailsChangedEvent;
+import com.acheron.authserver.entity.User;
+import com.acheron.authserver.exception.AppException;
+import com.acheron.authserver.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the {@link UserClaims} of the principal a token is minted for, without a query when it can.
+ * <p>
+ * Every principal — our {@link User} after a form login, or a federated login — only supplies the
+ * username; id and role are looked up by it in a local cache, and only a miss reads the database. A
+ * {@link User} principal is the one saved with the authorization and reused on every refresh, so its
+ * role is never trusted: it would outlive a role change for the lifetime of the refresh token. The
+ * token version always comes from {@link TokenVersionResolver}, which is
+ * invalidated on rotation, so a token never carries a revoked version. A {@link UserDetailsChangedEvent}
+ * evicts the user on this node; on other nodes a cached role can lag a role change by up to
+ * {@code app.token-claims.cache.ttl}.
+ * <p>
+ * Resolution latency is recorded as {@code auth.token.claims.resolve}, tagged with the source that
+ * answered.
+ */
+@Service
+public class UserClaimsResolver {
+
+    private final UserRepository userRepository;
+    private final TokenVersionResolver tokenVersionResolver;
+    private final Cache<String, UserClaims> claims;
+    private final Timer fromCache;
+    private final Timer fromDatabase;
+
+    public UserClaimsResolver(UserRepository userRepository,
+                              TokenVersionResolver tokenVersionResolver,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.token-claims.cache.max-size:100000}") long maxSize,
+                              @Value("${app.token-claims.cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.tokenVersionResolver = tokenVersionResolver;
+        this.claims = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.fromCache = timer(meterRegistry, "cache");
+        this.fromDatabase = timer(meterRegistry, "database");
+    }
+
+    /**
+     * Claims of the authenticated user, or empty for a principal that is not one of our users.
+     *
+     * @throws AppException when the user no longer exists
+     */
+    public Optional<UserClaims> resolve(Authentication authentication) {
+        long start = System.nanoTime();
+        String username = username(authentication.getPrincipal());
+        if (username == null) {
+            return Optional.empty();
+        }
+
+        UserClaims cached = claims.getIfPresent(username);
+        if (cached != null) {
+            UserClaims resolved = new UserClaims(cached.userId(), username, cached.role(), currentTokenVersion(username));
+            fromCache.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(resolved);
+        }
+
+        UserClaims loaded = userRepository.findClaimsByUsername(username)
+                .orElseThrow(() -> new AppException("User not found", HttpStatus.NOT_FOUND));
+        claims.put(username, loaded);
+        fromDatabase.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return Optional.of(loaded);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDetailsChanged(UserDetailsChangedEvent event) {
+        claims.invalidate(event.username());
+    }
+
+    private UUID currentTokenVersion(String username) {
+        return tokenVersionResolver.resolve(username)
+                .orElseThrow(() -> new AppException("User not found", HttpStatus.NOT_FOUND));
+    }
+
+    private static String username(Object principal) {
+        if (principal instanceof UserDetails userDetails) {
+            return userDetails.getUsername();
+        }
+        if (principal instanceof DefaultOAuth2User oAuth2User) {
+            return oAuth2User.getAttribute("login") != null
+                    ? oAuth2User.getAttribute("login")
+                    : oAuth2User.getAttribute("name");
+        }
+        return null;
+    }
+
+    private static Timer timer(MeterRegistry registry, String source) {
+        return Timer.builder("auth.token.claims.resolve")
+                .tag("source", source)
+                .register(registry);
+    }
+}
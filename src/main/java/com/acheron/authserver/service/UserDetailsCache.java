@@ -0,0 +1,213 @@
+package com.acheron.authserver.service;
+
+import com.acheron.authserver.dto.util.UserCredentials;
+import com.acheron.authserver.dto.util.UserDetailsChangedEvent;
+import com.acheron.authserver.entity.Role;
+import com.acheron.authserver.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier near-cache of username → {@link UserCredentials} for form login: a bounded in-process
+ * map in front of Redis, both in front of a single-row projection of {@code users}.
+ * <p>
+ * A login attempt — failed ones included — reads the password hash, lock and enabled flags from
+ * here; only a miss on both tiers queries the database. Every {@link UserService} mutator publishes
+ * a {@link UserDetailsChangedEvent}, which evicts the entry from Redis and, through the
+ * {@value #CHANNEL} channel, from every node once the transaction commits. A fill that raced an
+ * eviction is dropped: locally through a generation counter, in Redis through a short tombstone.
+ * The TTL is only a safety net for a lost message.
+ * <p>
+ * Unknown usernames are not cached, so a registration is visible to the next login. Redis failures
+ * never fail a login — the cache degrades to the local tier and the database.
+ * <p>
+ * The Redis tier is off by default ({@code app.user-details.cache.redis-enabled}): an entry there
+ * holds the password hash, so enabling it trades a database read on a cold node for copies of every
+ * active user's hash in Redis, readable by anyone with access to it. Enable it only where Redis is
+ * as trusted as the database.
+ */
+@Slf4j
+@Service
+public class UserDetailsCache {
+
+    static final String CHANNEL = "auth:user-details:invalidate";
+
+    private static final String KEY_PREFIX = "auth:user-details:";
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(1);
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(1);
+
+    private static final RedisScript<Long> FILL_SCRIPT = RedisScript.of("""
+            local evicted = redis.call('GET', KEYS[2])
+            if evicted and tonumber(evicted) >= tonumber(ARGV[1]) then return 0 end
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], unpack(ARGV, 3))
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redis;
+    private final Duration ttl;
+    private final boolean redisEnabled;
+    private final Cache<String, UserCredentials> local;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    public UserDetailsCache(UserRepository userRepository,
+                            StringRedisTemplate redis,
+                            RedisMessageListenerContainer listenerContainer,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.user-details.cache.local-max-size:100000}") long localMaxSize,
+                            @Value("${app.user-details.cache.ttl:5m}") Duration ttl,
+                            @Value("${app.user-details.cache.redis-enabled:false}") boolean redisEnabled) {
+        this.userRepository = userRepository;
+        this.redis = redis;
+        this.ttl = ttl;
+        this.redisEnabled = redisEnabled;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.localHits = counter(meterRegistry, "local", "hit");
+        this.localMisses = counter(meterRegistry, "local", "miss");
+        this.redisHits = counter(meterRegistry, "redis", "hit");
+        this.redisMisses = counter(meterRegistry, "redis", "miss");
+
+        listenerContainer.addMessageListener(
+                (message, pattern) -> invalidateLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Credentials of the active user with that username, or empty when there is none.
+     */
+    public Optional<UserCredentials> load(String username) {
+        UserCredentials cached = local.getIfPresent(username);
+        if (cached != null) {
+            localHits.increment();
+            return Optional.of(cached);
+        }
+        localMisses.increment();
+
+        long generation = invalidations.get();
+        long readStamp = System.currentTimeMillis();
+        if (redisEnabled) {
+            UserCredentials shared = readRedis(username);
+            if (shared != null) {
+                redisHits.increment();
+                putLocal(username, shared, generation);
+                return Optional.of(shared);
+            }
+            redisMisses.increment();
+        }
+
+        Optional<UserCredentials> loaded = userRepository.findCredentialsByUsername(username);
+        loaded.ifPresent(credentials -> {
+            if (putLocal(username, credentials, generation) && redisEnabled) {
+                writeRedis(username, credentials, readStamp);
+            }
+        });
+        return loaded;
+    }
+
+    public void invalidate(String username) {
+        invalidateLocal(username);
+        if (!redisEnabled) return;
+        try {
+            redis.opsForValue().set(KEY_PREFIX + "evicted:" + username,
+                    Long.toString(System.currentTimeMillis()), TOMBSTONE_TTL);
+            redis.delete(KEY_PREFIX + "user:" + username);
+            redis.convertAndSend(CHANNEL, username);
+        } catch (RuntimeException e) {
+            log.warn("User details cache: failed to publish invalidation for '{}' — {}", username, e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDetailsChanged(UserDetailsChangedEvent event) {
+        invalidate(event.username());
+    }
+
+    // ── local tier ───────────────────────────────────────────────────
+
+    private boolean putLocal(String username, UserCredentials credentials, long generation) {
+        if (invalidations.get() != generation) return false;
+        local.put(username, credentials);
+        return true;
+    }
+
+    private void invalidateLocal(String username) {
+        invalidations.incrementAndGet();
+        local.invalidate(username);
+    }
+
+    // ── redis tier ───────────────────────────────────────────────────
+
+    @Nullable
+    private UserCredentials readRedis(String username) {
+        try {
+            Map<String, String> hash = redis.<String, String>opsForHash().entries(KEY_PREFIX + "user:" + username);
+            if (hash == null || hash.isEmpty()) return null;
+            String passwordHash = hash.get("password");
+            return new UserCredentials(
+                    UUID.fromString(hash.get("id")),
+                    username,
+                    passwordHash == null || passwordHash.isEmpty() ? null : passwordHash,
+                    Role.valueOf(hash.get("role")),
+                    Boolean.parseBoolean(hash.get("enabled")),
+                    Boolean.parseBoolean(hash.get("locked")),
+                    Boolean.parseBoolean(hash.get("mfa")));
+        } catch (RuntimeException e) {
+            log.warn("User details cache: Redis read failed — {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String username, UserCredentials credentials, long readStamp) {
+        try {
+            redis.execute(FILL_SCRIPT, List.of(KEY_PREFIX + "user:" + username, KEY_PREFIX + "evicted:" + username),
+                    Long.toString(readStamp - CLOCK_SKEW.toMillis()),
+                    Long.toString(ttl.toMillis()),
+                    "id", credentials.userId().toString(),
+                    "password", credentials.passwordHash() != null ? credentials.passwordHash() : "",
+                    "role", credentials.role().name(),
+                    "enabled", Boolean.toString(credentials.enabled()),
+                    "locked", Boolean.toString(credentials.locked()),
+                    "mfa", Boolean.toString(credentials.mfaEnabled()));
+        } catch (RuntimeException e) {
+            log.warn("User details cache: Redis write failed — {}", e.getMessage());
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("auth.user_details.cache.requests")
+                .description("Form-login user lookups served by each cache tier")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -4,24 +4,37 @@ import com.acheron.authserver.config.oauth_provider_handlers.OAuth2UserHandler;
 import com.acheron.authserver.dto.request.MailDto;
 import com.acheron.authserver.dto.request.UserPatchRequest;
 import com.acheron.authserver.dto.request.UserPutRequest;
+import com.acheron.authserver.dto.response.CursorPage;
+import com.acheron.authserver.dto.response.LoginHistoryEntry;
+import com.acheron.authserver.dto.response.UserDetailResponse;
 import com.acheron.authserver.dto.response.UserResponse;
+import com.acheron.authserver.dto.response.UserSummary;
+import com.acheron.authserver.dto.util.FederatedLoginResult;
+import com.acheron.authserver.dto.util.PageCursor;
 import com.acheron.authserver.dto.util.UnifiedUserDto;
+import com.acheron.authserver.dto.util.UserCredentials;
+import com.acheron.authserver.dto.util.UserDetailRow;
+import com.acheron.authserver.dto.util.UserDetailsChangedEvent;
+import com.acheron.authserver.dto.util.UserIdentifiersChangedEvent;
 import com.acheron.authserver.entity.*;
 import com.acheron.authserver.exception.AppException;
 import com.acheron.authserver.mapper.UserMapper;
-import com.acheron.authserver.repository.FederatedIdentityRepository;
 import com.acheron.authserver.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.NullMarked;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -34,25 +47,30 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
     private final TokenService tokenService;
     private final MailService mailService;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
-    private final FederatedIdentityRepository federatedIdentityRepository;
     private final List<OAuth2UserHandler> strategies;
+    private final UserDetailsCache userDetailsCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${app.base-url:http://localhost:9000}")
     private String baseUrl;
 
+    @Value("${app.admin.user-search.count-cap:1000}")
+    private int searchCountCap;
+
     // ── profile / self-service ───────────────────────────────────────────────
 
     public ResponseEntity<UserResponse> getUserInfo(User user) {
@@ -62,6 +80,8 @@ public class UserService implements UserDetailsService {
     @Transactional
     public ResponseEntity<UserResponse> updateUser(User currentUser, UserPutRequest request) {
         validateUniqueness(request.email(), request.username(), currentUser);
+        String previousUsername = currentUser.getUsername();
+        String previousEmail = currentUser.getEmail();
 
         if (!currentUser.getEmail().equals(request.email())) {
             currentUser.setEmailVerified(false);
@@ -73,6 +93,8 @@ public class UserService implements UserDetailsService {
         currentUser.setLocked(request.locked());
 
         User savedUser = userRepository.save(currentUser);
+        detailsChanged(previousUsername);
+        identifiersChanged(savedUser, previousUsername, previousEmail);
         log.info("User {} fully updated their profile", savedUser.getId());
         return ResponseEntity.ok(UserResponse.fromEntity(savedUser));
     }
@@ -81,6 +103,8 @@ public class UserService implements UserDetailsService {
     public ResponseEntity<UserResponse> patchUser(User currentUser, UserPatchRequest request) {
         String newEmail = request.email() != null ? request.email() : currentUser.getEmail();
         String newUsername = request.username() != null ? request.username() : currentUser.getUsername();
+        String previousUsername = currentUser.getUsername();
+        String previousEmail = currentUser.getEmail();
 
         if (request.email() != null || request.username() != null) {
             validateUniqueness(newEmail, newUsername, currentUser);
@@ -98,6 +122,8 @@ public class UserService implements UserDetailsService {
         if (request.mfaEnabled() != null) currentUser.setMfaEnabled(request.mfaEnabled());
 
         User savedUser = userRepository.save(currentUser);
+        detailsChanged(previousUsername);
+        identifiersChanged(savedUser, previousUsername, previousEmail);
         log.info("User {} patched their profile", savedUser.getId());
         return ResponseEntity.ok(UserResponse.fromEntity(savedUser));
     }
@@ -105,14 +131,69 @@ public class UserService implements UserDetailsService {
     @Transactional
     public ResponseEntity<Void> delete(User user) {
         userRepository.delete(user);
+        detailsChanged(user.getUsername());
+        eventPublisher.publishEvent(UserIdentifiersChangedEvent.released(user.getUsername(), user.getEmail()));
         log.info("User account deleted: {}", user.getId());
         return ResponseEntity.noContent().build();
     }
 
     // ── admin operations ─────────────────────────────────────────────────────
 
-    public Page<UserResponse> findAllPaged(String search, Pageable pageable) {
-        return userRepository.findAllActive(search, pageable).map(UserResponse::fromEntity);
+    /**
+     * A page of active users, optionally narrowed to those whose username or email contains
+     * {@code search} — or starts with it, when {@code prefix} is set. Terms shorter than a trigram
+     * have no index to use and are matched sequentially; the total counts no further than
+     * {@code app.admin.user-search.count-cap}, so neither they nor a broad search scan every match
+     * just to number the pages.
+     */
+    public Page<UserSummary> findAllPaged(String search, boolean prefix, Pageable pageable) {
+        if (!StringUtils.hasText(search)) {
+            return PageableExecutionUtils.getPage(userRepository.findSummaries(pageable), pageable,
+                    () -> userRepository.countActiveUpTo(searchCountCap));
+        }
+        String pattern = searchPattern(search.trim(), prefix);
+        return PageableExecutionUtils.getPage(userRepository.searchSummaries(pattern, pageable), pageable,
+                () -> userRepository.countMatchesUpTo(pattern, searchCountCap));
+    }
+
+    /**
+     * The active users after {@code cursor}, newest first, narrowed by {@code search} as in
+     * {@link #findAllPaged}. Each page seeks to the cursor in the index, so the millionth row costs
+     * no more than the first, and no total is counted.
+     */
+    public CursorPage<UserSummary> findPage(String search, boolean prefix, PageCursor cursor, int size) {
+        int pageSize = CursorPage.pageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<UserSummary> rows = StringUtils.hasText(search)
+                ? userRepository.searchSummariesBefore(
+                        searchPattern(search.trim(), prefix), cursor.timestamp(), cursor.uuid(), limit)
+                : userRepository.findSummariesBefore(cursor.timestamp(), cursor.uuid(), limit);
+        return CursorPage.of(rows, pageSize, user -> new PageCursor(user.createdAt(), user.id().toString()));
+    }
+
+    public UserSummary findSummaryById(UUID id) {
+        return userRepository.findSummaryById(id)
+                .orElseThrow(() -> new AppException("User not found", HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * The user with their latest {@code historySize} logins, read in a single query.
+     */
+    public UserDetailResponse findDetail(UUID id, int historySize) {
+        List<UserDetailRow> rows = userRepository.findDetailRows(id, historySize);
+        if (rows.isEmpty()) {
+            throw new AppException("User not found", HttpStatus.NOT_FOUND);
+        }
+        UserDetailRow first = rows.getFirst();
+        UserSummary user = new UserSummary(first.getId(), first.getEmail(), first.getUsername(),
+                first.getEmailVerified(), first.getEnabled(), first.getLocked(), first.getMfaEnabled(), first.getRole(),
+                first.getCreatedAt());
+        List<LoginHistoryEntry> loginHistory = rows.stream()
+                .filter(row -> row.getLoginTimestamp() != null)
+                .map(row -> new LoginHistoryEntry(row.getLoginId(), row.getLoginTimestamp(), row.getIpAddress(),
+                        row.getUserAgent(), row.getLocation(), row.getLoginMethod()))
+                .toList();
+        return new UserDetailResponse(user, loginHistory);
     }
 
     public User findById(UUID id) {
@@ -125,6 +206,7 @@ public class UserService implements UserDetailsService {
         User user = findById(id);
         user.setRole(role);
         User saved = userRepository.save(user);
+        detailsChanged(saved.getUsername());
         log.info("Admin changed role of user {} to {}", id, role);
         return saved;
     }
@@ -134,6 +216,7 @@ public class UserService implements UserDetailsService {
         User user = findById(id);
         user.setLocked(locked);
         User saved = userRepository.save(user);
+        detailsChanged(saved.getUsername());
         log.info("Admin {} user {}", locked ? "locked" : "unlocked", id);
         return saved;
     }
@@ -143,6 +226,7 @@ public class UserService implements UserDetailsService {
         User user = findById(id);
         user.setEnabled(enabled);
         User saved = userRepository.save(user);
+        detailsChanged(saved.getUsername());
         log.info("Admin {} user {}", enabled ? "enabled" : "disabled", id);
         return saved;
     }
@@ -151,28 +235,38 @@ public class UserService implements UserDetailsService {
     public void deleteById(UUID id) {
         User user = findById(id);
         userRepository.delete(user);
+        detailsChanged(user.getUsername());
+        eventPublisher.publishEvent(UserIdentifiersChangedEvent.released(user.getUsername(), user.getEmail()));
         log.info("Admin deleted user {}", id);
     }
 
     // ── oauth / federated ────────────────────────────────────────────────────
 
+    /**
+     * Finds or provisions the local user behind a social login and links the provider account to it,
+     * in one upsert statement plus the load of the user — see
+     * {@link UserRepository#upsertFederatedLogin}.
+     */
     @Transactional
     public User saveOauthUser(String providerId, OAuth2User oauth2User) {
         UnifiedUserDto dto = extractUserDto(providerId, oauth2User);
-        Optional<User> existingUser = userRepository.findUserByEmail(dto.getEmail());
-
-        User user;
-        if (existingUser.isPresent()) {
-            user = existingUser.get();
-        } else {
-            user = userMapper.toUserEntity(dto);
-            user = userRepository.save(user);
-        }
-
-        OAuthProvider provider = OAuthProvider.valueOf(providerId.toUpperCase());
-        if (!user.hasFederatedIdentity(provider)) {
-            FederatedIdentity identity = userMapper.toFederatedIdentity(dto, user);
-            federatedIdentityRepository.save(identity);
+        User template = userMapper.toUserEntity(dto);
+        FederatedIdentity identity = userMapper.toFederatedIdentity(dto, template);
+
+        FederatedLoginResult result = userRepository.upsertFederatedLogin(
+                identity.getProvider().name(),
+                identity.getProviderUserId(),
+                identity.getProviderUsername(),
+                userMapper.toJson(identity.getProviderMetadata()),
+                template.getEmail(),
+                template.getUsername(),
+                template.isEmailVerified(),
+                template.getRole().name(),
+                Instant.now());
+
+        User user = findById(result.getUserId());
+        if (result.getCreated()) {
+            eventPublisher.publishEvent(UserIdentifiersChangedEvent.claimed(user.getUsername(), user.getEmail()));
         }
         return user;
     }
@@ -186,11 +280,33 @@ public class UserService implements UserDetailsService {
                         "Login with " + registrationId + " is not supported."));
     }
 
+    /**
+     * Form-login lookup, served from {@link UserDetailsCache}: the returned {@link UserDetails} is a
+     * {@link com.acheron.authserver.dto.util.UserCredentials} snapshot, not the {@link User} entity.
+     */
     @Override
-    @Transactional(readOnly = true)
     @NullMarked
     public UserDetails loadUserByUsername(String username) {
-        return findByUsername(username);
+        return userDetailsCache.load(username)
+                .orElseThrow(() -> new AppException("User not found", HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Stores a hash re-encoded on login because the stored one used another algorithm or a lower
+     * cost than {@code app.password-hashing} now asks for.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordHash(user.getUsername(), newPassword);
+        detailsChanged(user.getUsername());
+        log.info("Password hash of user {} upgraded", user.getUsername());
+
+        if (user instanceof User entity) {
+            entity.setPasswordHash(newPassword);
+            return entity;
+        }
+        return user instanceof UserCredentials credentials ? credentials.withPasswordHash(newPassword) : user;
     }
 
     // ── email / password flows ───────────────────────────────────────────────
@@ -310,6 +426,32 @@ public class UserService implements UserDetailsService {
     }
 
     public User save(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        detailsChanged(saved.getUsername());
+        eventPublisher.publishEvent(UserIdentifiersChangedEvent.claimed(saved.getUsername(), saved.getEmail()));
+        return saved;
+    }
+
+    private void detailsChanged(String username) {
+        eventPublisher.publishEvent(new UserDetailsChangedEvent(username));
+    }
+
+    /**
+     * Lower-cased {@code LIKE} pattern for an admin search term, with its own wildcards escaped.
+     */
+    static String searchPattern(String term, boolean prefix) {
+        StringBuilder pattern = new StringBuilder(term.length() + 4);
+        if (!prefix) pattern.append('%');
+        for (char c : term.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (c == '%' || c == '_' || c == '\\') pattern.append('\\');
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    private void identifiersChanged(User user, String previousUsername, String previousEmail) {
+        if (user.getUsername().equals(previousUsername) && user.getEmail().equals(previousEmail)) return;
+        eventPublisher.publishEvent(UserIdentifiersChangedEvent.claimed(user.getUsername(), user.getEmail()));
+        eventPublisher.publishEvent(UserIdentifiersChangedEvent.released(previousUsername, previousEmail));
     }
 }
\ No newline at end of file
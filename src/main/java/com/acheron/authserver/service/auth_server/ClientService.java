@@ -1,10 +1,19 @@
 package com.acheron.authserver.service.auth_server;
 
+import com.acheron.authserver.config.claims.TokenClaimProfile;
+import com.acheron.authserver.config.jwk.JwkKeyRing;
+import com.acheron.authserver.config.jwk.JwkSigningAlgorithm;
 import com.acheron.authserver.dto.request.ClientRegistrationRequest;
+import com.acheron.authserver.dto.response.ClientSummary;
+import com.acheron.authserver.dto.response.CursorPage;
+import com.acheron.authserver.dto.util.PageCursor;
 import com.acheron.authserver.dto.util.ClientRegisteredEvent;
+import com.acheron.authserver.exception.AppException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
 import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
@@ -14,18 +23,32 @@ import org.springframework.security.oauth2.server.authorization.settings.ClientS
 import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.net.URI;
+import java.sql.Timestamp;
 import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ClientService {
+
+    private static final String CLIENT_PAGE_SQL = """
+            SELECT id, client_id, client_name, client_id_issued_at, redirect_uris, scopes
+            FROM oauth2_registered_client
+            WHERE (client_id_issued_at, id) < (?, ?)
+            ORDER BY client_id_issued_at DESC, id DESC
+            LIMIT ?
+            """;
+
     private final RegisteredClientRepository clientRepository;
+    private final JdbcTemplate jdbcTemplate;
     private final ApplicationEventPublisher eventPublisher;
     private final PasswordEncoder passwordEncoder;
+    private final JwkKeyRing jwkKeyRing;
 
     @Transactional
     public void registerNewClient(RegisteredClient registeredClient) {
@@ -46,6 +69,20 @@ public class ClientService {
     @Transactional
     public void registerNewClientFromRequest(ClientRegistrationRequest request) {
         boolean isPublic = request.clientSecret() == null || request.clientSecret().isBlank();
+        JwkSigningAlgorithm signingAlgorithm = signingAlgorithm(request.signingAlgorithm());
+        TokenClaimProfile claimProfile = claimProfile(request.claimProfile());
+
+        TokenSettings.Builder tokenSettings = TokenSettings.builder()
+                .accessTokenTimeToLive(Duration.ofMinutes(
+                        request.accessTokenTtlMinutes() > 0 ? request.accessTokenTtlMinutes() : 5))
+                .refreshTokenTimeToLive(Duration.ofDays(
+                        request.refreshTokenTtlDays() > 0 ? request.refreshTokenTtlDays() : 20))
+                .reuseRefreshTokens(false)
+                .setting(JwkSigningAlgorithm.TOKEN_SETTING, signingAlgorithm.getName())
+                .setting(TokenClaimProfile.TOKEN_SETTING, claimProfile.name());
+        if (signingAlgorithm.signatureAlgorithm() != null) {
+            tokenSettings.idTokenSignatureAlgorithm(signingAlgorithm.signatureAlgorithm());
+        }
 
         RegisteredClient.Builder builder = RegisteredClient.withId(UUID.randomUUID().toString())
                 .clientId(request.clientId())
@@ -53,13 +90,7 @@ public class ClientService {
                         ? ClientAuthenticationMethod.NONE
                         : ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
                 .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
-                .tokenSettings(TokenSettings.builder()
-                        .accessTokenTimeToLive(Duration.ofMinutes(
-                                request.accessTokenTtlMinutes() > 0 ? request.accessTokenTtlMinutes() : 5))
-                        .refreshTokenTimeToLive(Duration.ofDays(
-                                request.refreshTokenTtlDays() > 0 ? request.refreshTokenTtlDays() : 20))
-                        .reuseRefreshTokens(false)
-                        .build())
+                .tokenSettings(tokenSettings.build())
                 .clientSettings(ClientSettings.builder()
                         .requireProofKey(request.requirePkce())
                         .requireAuthorizationConsent(request.requireConsent())
@@ -85,6 +116,52 @@ public class ClientService {
         }
     }
 
+    /**
+     * Registered clients after {@code cursor}, most recently issued first, read as a range of
+     * {@code idx_oauth2_registered_client_issued_at_id}.
+     */
+    public CursorPage<ClientSummary> findClients(PageCursor cursor, int size) {
+        int pageSize = CursorPage.pageSize(size);
+        List<ClientSummary> rows = jdbcTemplate.query(CLIENT_PAGE_SQL, (rs, rowNum) -> new ClientSummary(
+                        rs.getString("id"),
+                        rs.getString("client_id"),
+                        rs.getString("client_name"),
+                        rs.getTimestamp("client_id_issued_at").toInstant(),
+                        StringUtils.commaDelimitedListToSet(rs.getString("redirect_uris")),
+                        StringUtils.commaDelimitedListToSet(rs.getString("scopes"))),
+                Timestamp.from(cursor.timestamp()), cursor.id(), pageSize + 1);
+        return CursorPage.of(rows, pageSize, client -> new PageCursor(client.clientIdIssuedAt(), client.id()));
+    }
+
+    /**
+     * The requested algorithm, RS256 by default, provided the key ring signs with it — a client
+     * registered with any other could never be issued a token.
+     */
+    private JwkSigningAlgorithm signingAlgorithm(String name) {
+        JwkSigningAlgorithm algorithm;
+        try {
+            algorithm = name == null || name.isBlank() ? JwkSigningAlgorithm.RS256 : JwkSigningAlgorithm.from(name);
+        } catch (IllegalArgumentException e) {
+            throw new AppException(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        if (!jwkKeyRing.supports(algorithm)) {
+            throw new AppException("Signing algorithm '" + algorithm.getName() + "' is not enabled — expected one of "
+                    + jwkKeyRing.algorithms().stream().map(JwkSigningAlgorithm::getName).toList(), HttpStatus.BAD_REQUEST);
+        }
+        return algorithm;
+    }
+
+    private static TokenClaimProfile claimProfile(String name) {
+        if (name == null || name.isBlank()) {
+            return TokenClaimProfile.FULL;
+        }
+        try {
+            return TokenClaimProfile.from(name);
+        } catch (IllegalArgumentException e) {
+            throw new AppException(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     private String extractClientDomain(String urlString) {
         try {
             if (urlString == null || urlString.isBlank()) {
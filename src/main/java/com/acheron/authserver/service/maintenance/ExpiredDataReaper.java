@@ -0,0 +1,175 @@
+package com.acheron.authserver.service.maintenance;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes rows nothing else ever deletes:
+ * <ul>
+ *     <li>{@code oauth2_authorization} rows whose every token expired more than
+ *     {@code app.reaper.authorization-retention} ago, and those that never got a token — requests
+ *     abandoned at the consent screen — that long after they were created;</li>
+ *     <li>{@code oauth2_authorization_consent} rows whose registered client no longer exists;</li>
+ *     <li>soft-deleted {@code token} and {@code mail} rows older than {@code app.reaper.soft-delete-retention}.</li>
+ * </ul>
+ * Each table is purged in batches of {@code app.reaper.batch-size}, every batch its own short
+ * transaction driven by an index on the expiry column (see {@code db-changelog-007} and {@code -014}), until the
+ * backlog is gone or the run exceeds {@code app.reaper.max-run-time}. Only one node runs at a time.
+ * <p>
+ * Metrics: {@code auth.reaper.rows.purged} per table, {@code auth.reaper.lag} — age of the oldest row
+ * that is due but still present after the last run — and {@code auth.reaper.run} timing.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.reaper.enabled", havingValue = "true", matchIfMissing = true)
+public class ExpiredDataReaper {
+
+    private static final String LOCK_NAME = "expired-data-reaper";
+
+    /** Latest token expiry, or the creation time of a row that has no token yet — see {@code db-changelog-014}. */
+    private static final String AUTHORIZATION_EXPIRY = "COALESCE(GREATEST(authorization_code_expires_at, access_token_expires_at, "
+            + "oidc_id_token_expires_at, refresh_token_expires_at, user_code_expires_at, device_code_expires_at), created_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostgresLeaderElection leaderElection;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final Duration maxRunTime;
+    private final Timer runTimer;
+    private final List<Purge> purges;
+
+    public ExpiredDataReaper(JdbcTemplate jdbcTemplate,
+                             PostgresLeaderElection leaderElection,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.reaper.batch-size:1000}") int batchSize,
+                             @Value("${app.reaper.batch-pause:50ms}") Duration batchPause,
+                             @Value("${app.reaper.max-run-time:2m}") Duration maxRunTime,
+                             @Value("${app.reaper.authorization-retention:1h}") Duration authorizationRetention,
+                             @Value("${app.reaper.soft-delete-retention:30d}") Duration softDeleteRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaderElection = leaderElection;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+        this.maxRunTime = maxRunTime;
+        this.runTimer = Timer.builder("auth.reaper.run")
+                .description("Duration of reaper runs on the node holding the lock")
+                .register(meterRegistry);
+
+        this.purges = List.of(
+                new Purge("oauth2_authorization", authorizationRetention,
+                        "DELETE FROM oauth2_authorization WHERE id IN ("
+                                + "SELECT id FROM oauth2_authorization WHERE " + AUTHORIZATION_EXPIRY + " < ? "
+                                + "ORDER BY " + AUTHORIZATION_EXPIRY + " LIMIT ? FOR UPDATE SKIP LOCKED)",
+                        "SELECT min(" + AUTHORIZATION_EXPIRY + ") FROM oauth2_authorization "
+                                + "WHERE " + AUTHORIZATION_EXPIRY + " < ?",
+                        meterRegistry),
+                new Purge("oauth2_authorization_consent", null,
+                        "DELETE FROM oauth2_authorization_consent WHERE (registered_client_id, principal_name) IN ("
+                                + "SELECT c.registered_client_id, c.principal_name FROM oauth2_authorization_consent c "
+                                + "WHERE NOT EXISTS (SELECT 1 FROM oauth2_registered_client r WHERE r.id = c.registered_client_id) "
+                                + "LIMIT ? FOR UPDATE SKIP LOCKED)",
+                        null,
+                        meterRegistry),
+                new Purge("token", softDeleteRetention,
+                        "DELETE FROM token WHERE id IN ("
+                                + "SELECT id FROM token WHERE deleted_at < ? ORDER BY deleted_at LIMIT ? FOR UPDATE SKIP LOCKED)",
+                        "SELECT min(deleted_at) FROM token WHERE deleted_at < ?",
+                        meterRegistry),
+                new Purge("mail", softDeleteRetention,
+                        "DELETE FROM mail WHERE id IN ("
+                                + "SELECT id FROM mail WHERE deleted_at < ? ORDER BY deleted_at LIMIT ? FOR UPDATE SKIP LOCKED)",
+                        "SELECT min(deleted_at) FROM mail WHERE deleted_at < ?",
+                        meterRegistry)
+        );
+    }
+
+    @Scheduled(initialDelayString = "${app.reaper.initial-delay:1m}", fixedDelayString = "${app.reaper.interval:5m}")
+    public void reap() {
+        leaderElection.runIfLeader(LOCK_NAME, () -> runTimer.record(this::purgeAll));
+    }
+
+    private void purgeAll() {
+        Instant deadline = Instant.now().plus(maxRunTime);
+        for (Purge purge : purges) {
+            try {
+                long deleted = purge(purge, deadline);
+                if (deleted > 0) {
+                    log.info("Reaper purged {} rows from {}", deleted, purge.table());
+                }
+                purge.updateLag(jdbcTemplate);
+            } catch (RuntimeException e) {
+                log.error("Reaper failed on {}", purge.table(), e);
+            }
+        }
+    }
+
+    private long purge(Purge purge, Instant deadline) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = purge.cutoff() != null
+                    ? jdbcTemplate.update(purge.deleteSql(), purge.cutoff(), batchSize)
+                    : jdbcTemplate.update(purge.deleteSql(), batchSize);
+            purge.purged().increment(deleted);
+            total += deleted;
+            if (deleted == batchSize) pause();
+        } while (deleted == batchSize && Instant.now().isBefore(deadline));
+        return total;
+    }
+
+    private void pause() {
+        if (batchPause.isZero()) return;
+        try {
+            Thread.sleep(batchPause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Purge(String table, Duration retention, String deleteSql, String lagSql,
+                         Counter purged, AtomicLong lagSeconds) {
+
+        Purge(String table, Duration retention, String deleteSql, String lagSql, MeterRegistry registry) {
+            this(table, retention, deleteSql, lagSql,
+                    Counter.builder("auth.reaper.rows.purged")
+                            .description("Rows deleted by the reaper")
+                            .tag("table", table)
+                            .register(registry),
+                    new AtomicLong());
+            if (lagSql != null) {
+                Gauge.builder("auth.reaper.lag", lagSeconds, AtomicLong::get)
+                        .description("Seconds since the oldest row still awaiting purge became due")
+                        .baseUnit("seconds")
+                        .tag("table", table)
+                        .register(registry);
+            }
+        }
+
+        Timestamp cutoff() {
+            return retention != null ? Timestamp.from(Instant.now().minus(retention)) : null;
+        }
+
+        void updateLag(JdbcTemplate jdbcTemplate) {
+            if (lagSql == null) return;
+            Timestamp cutoff = cutoff();
+            Timestamp oldest = jdbcTemplate.queryForObject(lagSql, Timestamp.class, cutoff);
+            lagSeconds.set(oldest != null
+                    ? Duration.between(oldest.toInstant(), cutoff.toInstant()).toSeconds()
+                    : 0);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.acheron.authserver.service.maintenance;
+
+import com.acheron.authserver.config.jwk.JwkKeyRing;
+import com.acheron.authserver.config.jwk.JwkSigningAlgorithm;
+import com.acheron.authserver.entity.JwkKey;
+import com.acheron.authserver.repository.JwkKeyRepository;
+import com.nimbusds.jose.jwk.JWK;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the {@code jwk_key} ring rotating on whichever node holds the lock.
+ * <p>
+ * Each algorithm in {@code app.jwk.algorithms} has its own line of keys. Every key signs for
+ * {@code app.jwk.rotation-interval}. Its successor is created {@code app.jwk.publish-ahead} before
+ * that, so it is in every published JWKS — and in every resource server's cache — by the time it
+ * starts signing. A retired key stays published for
+ * {@code app.jwk.grace-period}, which must cover the longest token lifetime, and is then deleted.
+ * <p>
+ * On startup the node waits until the ring has a signing key for every algorithm, creating the
+ * first ones itself when they are missing.
+ */
+@Slf4j
+@Service
+public class JwkKeyRotator implements SmartInitializingSingleton {
+
+    private static final String LOCK_NAME = "jwk-rotation";
+    private static final int STARTUP_ATTEMPTS = 50;
+    private static final Duration STARTUP_RETRY_DELAY = Duration.ofMillis(200);
+
+    private final JwkKeyRepository jwkKeyRepository;
+    private final JwkKeyRing keyRing;
+    private final BytesEncryptor encryptor;
+    private final PostgresLeaderElection leaderElection;
+    private final List<JwkSigningAlgorithm> algorithms;
+    private final Duration rotationInterval;
+    private final Duration publishAhead;
+    private final Duration gracePeriod;
+
+    public JwkKeyRotator(JwkKeyRepository jwkKeyRepository,
+                         JwkKeyRing keyRing,
+                         @Qualifier("jwkKeyEncryptor") BytesEncryptor encryptor,
+                         PostgresLeaderElection leaderElection,
+                         @Value("${app.jwk.algorithms:RS256,ES256,EdDSA}") List<String> algorithms,
+                         @Value("${app.jwk.rotation-interval:30d}") Duration rotationInterval,
+                         @Value("${app.jwk.publish-ahead:1h}") Duration publishAhead,
+                         @Value("${app.jwk.grace-period:1d}") Duration gracePeriod) {
+        this.jwkKeyRepository = jwkKeyRepository;
+        this.keyRing = keyRing;
+        this.encryptor = encryptor;
+        this.leaderElection = leaderElection;
+        this.algorithms = algorithms.stream().map(JwkSigningAlgorithm::from).toList();
+        this.rotationInterval = rotationInterval;
+        this.publishAhead = publishAhead;
+        this.gracePeriod = gracePeriod;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (int attempt = 0; attempt < STARTUP_ATTEMPTS; attempt++) {
+            keyRing.refresh();
+            if (algorithms.stream().allMatch(keyRing::hasSigningKey)) {
+                return;
+            }
+            if (!leaderElection.runIfLeader(LOCK_NAME, this::rotateNow)) {
+                sleep(STARTUP_RETRY_DELAY);
+            }
+        }
+        throw new IllegalStateException("JWK signing keys still missing after " + STARTUP_ATTEMPTS + " attempts");
+    }
+
+    @Scheduled(initialDelayString = "${app.jwk.rotation-check-interval:10m}", fixedDelayString = "${app.jwk.rotation-check-interval:10m}")
+    public void rotate() {
+        if (leaderElection.runIfLeader(LOCK_NAME, this::rotateNow)) {
+            keyRing.refresh();
+        }
+    }
+
+    private void rotateNow() {
+        Instant now = Instant.now();
+        List<JwkKey> keys = jwkKeyRepository.findAllByExpiresAtAfterOrderByActivatesAtDesc(now);
+
+        for (JwkSigningAlgorithm algorithm : algorithms) {
+            JwkKey newest = keys.stream()
+                    .filter(key -> key.getAlgorithm().equals(algorithm.getName()))
+                    .findFirst()
+                    .orElse(null);
+
+            if (newest == null || !newest.getRetiresAt().isAfter(now)) {
+                create(algorithm, now);
+            } else if (!newest.getActivatesAt().isAfter(now) && !newest.getRetiresAt().minus(publishAhead).isAfter(now)) {
+                create(algorithm, newest.getRetiresAt());
+            }
+        }
+
+        int deleted = jwkKeyRepository.deleteExpired(now);
+        if (deleted > 0) {
+            log.info("Deleted {} expired JWKs", deleted);
+        }
+    }
+
+    private void create(JwkSigningAlgorithm algorithm, Instant activatesAt) {
+        JWK key = algorithm.generate(UUID.randomUUID().toString());
+
+        Instant retiresAt = activatesAt.plus(rotationInterval);
+        jwkKeyRepository.save(JwkKey.builder()
+                .kid(key.getKeyID())
+                .algorithm(algorithm.getName())
+                .publicJwk(key.toPublicJWK().toJSONString())
+                .privateJwk(encryptor.encrypt(key.toJSONString().getBytes(StandardCharsets.UTF_8)))
+                .createdAt(Instant.now())
+                .activatesAt(activatesAt)
+                .retiresAt(retiresAt)
+                .expiresAt(retiresAt.plus(gracePeriod))
+                .build());
+        log.info("Created {} JWK {} signing from {} to {}", algorithm.getName(), key.getKeyID(), activatesAt, retiresAt);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the JWK key ring", e);
+        }
+    }
+}
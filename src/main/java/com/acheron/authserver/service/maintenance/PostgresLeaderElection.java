@@ -0,0 +1,68 @@
+package com.acheron.authserver.service.maintenance;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Picks one node per task through a session-level Postgres advisory lock.
+ * <p>
+ * The lock lives on a dedicated connection held for the duration of the task, so it is released
+ * when the task finishes — or when the node dies and its connection drops — and the next node
+ * to try takes over. Nothing needs to be configured per node.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostgresLeaderElection {
+
+    private final DataSource dataSource;
+
+    /**
+     * Runs {@code task} if no other node currently holds the lock named {@code lockName}.
+     *
+     * @return {@code false} when another node holds the lock and the task was skipped
+     */
+    public boolean runIfLeader(String lockName, Runnable task) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (!tryLock(connection, lockName)) {
+                log.debug("Skipping '{}' — another node holds the lock", lockName);
+                return false;
+            }
+            try {
+                task.run();
+                return true;
+            } finally {
+                unlock(connection, lockName);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Advisory lock '" + lockName + "' failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static boolean tryLock(Connection connection, String lockName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))")) {
+            statement.setString(1, lockName);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void unlock(Connection connection, String lockName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+            statement.setString(1, lockName);
+            statement.execute();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.acheron.authserver.service.maintenance;
+
+import com.acheron.authserver.config.authorization.RevocableOAuth2AuthorizationService;
+import com.acheron.authserver.config.authorization.RevocationTarget;
+import com.acheron.authserver.dto.util.AuthorizationsRevokedEvent;
+import com.acheron.authserver.dto.util.RevocationJobSubmittedEvent;
+import com.acheron.authserver.entity.RevocationJob;
+import com.acheron.authserver.repository.RevocationJobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Works off {@link RevocationJob}s one at a time on whichever node holds the lock.
+ * <p>
+ * Authorizations are removed through {@link RevocableOAuth2AuthorizationService#removeBatch}, then
+ * the matching consents, {@code app.revocation.batch-size} rows per step with a short pause in
+ * between, so even "revoke everyone" never holds long locks on the authorization table. Progress is
+ * written to the job after every step. A job left {@code RUNNING} by a node that died is resumed by
+ * the next one — removing already-removed rows is a no-op.
+ * <p>
+ * A failed attempt puts the job back to {@code PENDING}, due again after {@code app.revocation.retry-backoff},
+ * doubled on every further failure; jobs behind it are not held up meanwhile. After
+ * {@code app.revocation.max-attempts} the job is {@code FAILED} for good. Outcomes are counted in
+ * {@code auth.revocation.jobs}, tagged {@code completed}, {@code retried} or {@code exhausted}.
+ * <p>
+ * Submitted jobs start right after their transaction commits; the poll only picks up jobs the
+ * submitting node could not run because another node held the lock.
+ */
+@Slf4j
+@Service
+public class RevocationJobRunner {
+
+    private static final String LOCK_NAME = "revocation-jobs";
+    private static final List<RevocationJob.Status> OPEN = List.of(RevocationJob.Status.PENDING, RevocationJob.Status.RUNNING);
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int MAX_BACKOFF_DOUBLINGS = 20;
+
+    private static final Map<RevocationTarget.Scope, String> REMOVE_CONSENTS_SQL = Map.of(
+            RevocationTarget.Scope.PRINCIPAL, removeConsentsSql("principal_name = ?"),
+            RevocationTarget.Scope.CLIENT, removeConsentsSql("registered_client_id = ?"),
+            RevocationTarget.Scope.ALL, removeConsentsSql("TRUE"));
+
+    private final RevocationJobRepository revocationJobRepository;
+    private final RevocableOAuth2AuthorizationService authorizationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final PostgresLeaderElection leaderElection;
+    private final TaskScheduler taskScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Counter completed;
+    private final Counter retried;
+    private final Counter exhausted;
+
+    public RevocationJobRunner(RevocationJobRepository revocationJobRepository,
+                               RevocableOAuth2AuthorizationService authorizationService,
+                               JdbcTemplate jdbcTemplate,
+                               PostgresLeaderElection leaderElection,
+                               TaskScheduler taskScheduler,
+                               ApplicationEventPublisher eventPublisher,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.revocation.batch-size:1000}") int batchSize,
+                               @Value("${app.revocation.batch-pause:20ms}") Duration batchPause,
+                               @Value("${app.revocation.max-attempts:5}") int maxAttempts,
+                               @Value("${app.revocation.retry-backoff:1m}") Duration retryBackoff) {
+        this.revocationJobRepository = revocationJobRepository;
+        this.authorizationService = authorizationService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaderElection = leaderElection;
+        this.taskScheduler = taskScheduler;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.completed = counter(meterRegistry, "completed");
+        this.retried = counter(meterRegistry, "retried");
+        this.exhausted = counter(meterRegistry, "exhausted");
+    }
+
+    @Scheduled(initialDelayString = "${app.revocation.poll-interval:30s}", fixedDelayString = "${app.revocation.poll-interval:30s}")
+    public void poll() {
+        leaderElection.runIfLeader(LOCK_NAME, this::runOpenJobs);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobSubmitted(RevocationJobSubmittedEvent event) {
+        taskScheduler.schedule(this::poll, Instant.now());
+    }
+
+    private void runOpenJobs() {
+        Optional<RevocationJob> next;
+        while ((next = revocationJobRepository
+                .findFirstByStatusInAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(OPEN, Instant.now())).isPresent()) {
+            run(next.get());
+        }
+    }
+
+    private void run(RevocationJob job) {
+        RevocationTarget target = job.toTarget();
+        job.setStatus(RevocationJob.Status.RUNNING);
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(Instant.now());
+        }
+        job = revocationJobRepository.save(job);
+        try {
+            int removed;
+            do {
+                removed = authorizationService.removeBatch(target, batchSize).size();
+                job.setAuthorizationsRemoved(job.getAuthorizationsRemoved() + removed);
+                job = revocationJobRepository.save(job);
+                if (removed == batchSize) pause();
+            } while (removed == batchSize);
+
+            do {
+                removed = removeConsents(target);
+                job.setConsentsRemoved(job.getConsentsRemoved() + removed);
+                job = revocationJobRepository.save(job);
+                if (removed == batchSize) pause();
+            } while (removed == batchSize);
+
+            job.setStatus(RevocationJob.Status.COMPLETED);
+            job.setFinishedAt(Instant.now());
+            revocationJobRepository.save(job);
+            completed.increment();
+            log.info("Revocation job {} removed {} authorizations and {} consents for {} {}", job.getId(),
+                    job.getAuthorizationsRemoved(), job.getConsentsRemoved(), target.scope(), target.value());
+            if (target.scope() == RevocationTarget.Scope.PRINCIPAL) {
+                eventPublisher.publishEvent(new AuthorizationsRevokedEvent(target.value()));
+            }
+        } catch (RuntimeException e) {
+            job.setAttempts(job.getAttempts() + 1);
+            job.setError(abbreviate(String.valueOf(e.getMessage())));
+            if (job.getAttempts() < maxAttempts) {
+                Duration backoff = backoff(job.getAttempts());
+                log.warn("Revocation job {} failed on attempt {} of {}, retrying in {}", job.getId(),
+                        job.getAttempts(), maxAttempts, backoff, e);
+                job.setStatus(RevocationJob.Status.PENDING);
+                job.setNextAttemptAt(Instant.now().plus(backoff));
+                retried.increment();
+            } else {
+                log.error("Revocation job {} failed after {} attempts", job.getId(), job.getAttempts(), e);
+                job.setStatus(RevocationJob.Status.FAILED);
+                job.setFinishedAt(Instant.now());
+                exhausted.increment();
+            }
+            revocationJobRepository.save(job);
+        }
+    }
+
+    private int removeConsents(RevocationTarget target) {
+        String sql = REMOVE_CONSENTS_SQL.get(target.scope());
+        return target.value() != null
+                ? jdbcTemplate.update(sql, target.value(), batchSize)
+                : jdbcTemplate.update(sql, batchSize);
+    }
+
+    private Duration backoff(int attempts) {
+        return retryBackoff.multipliedBy(1L << Math.min(attempts - 1, MAX_BACKOFF_DOUBLINGS));
+    }
+
+    private void pause() {
+        if (batchPause.isZero()) return;
+        try {
+            Thread.sleep(batchPause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String removeConsentsSql(String filter) {
+        return "DELETE FROM oauth2_authorization_consent WHERE (registered_client_id, principal_name) IN ("
+                + "SELECT registered_client_id, principal_name FROM oauth2_authorization_consent "
+                + "WHERE " + filter + " LIMIT ? FOR UPDATE)";
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("auth.revocation.jobs")
+                .description("Revocation job runs by outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static String abbreviate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,118 @@
+--liquibase formatted sql
+
+--changeset acheron:1
+--comment SHA-256 digest columns for oauth2_authorization token lookups
+
+-- =================================================================================================
+-- 1. digest columns
+-- findByToken filters on these instead of the unindexed *_value text columns
+-- =================================================================================================
+ALTER TABLE oauth2_authorization
+    ADD COLUMN IF NOT EXISTS authorization_code_digest BYTEA,
+    ADD COLUMN IF NOT EXISTS access_token_digest       BYTEA,
+    ADD COLUMN IF NOT EXISTS oidc_id_token_digest      BYTEA,
+    ADD COLUMN IF NOT EXISTS refresh_token_digest      BYTEA,
+    ADD COLUMN IF NOT EXISTS user_code_digest          BYTEA,
+    ADD COLUMN IF NOT EXISTS device_code_digest        BYTEA;
+
+--changeset acheron:2 splitStatements:false
+--comment Fill token digests on every write, whichever node or service version wrote the row
+
+-- =================================================================================================
+-- 2. digest trigger
+-- Nodes that predate the digest columns write only *_value; the trigger keeps their rows findable
+-- =================================================================================================
+CREATE OR REPLACE FUNCTION oauth2_authorization_token_digests() RETURNS TRIGGER AS
+$$
+BEGIN
+    NEW.authorization_code_digest := sha256(convert_to(NEW.authorization_code_value, 'UTF8'));
+    NEW.access_token_digest       := sha256(convert_to(NEW.access_token_value, 'UTF8'));
+    NEW.oidc_id_token_digest      := sha256(convert_to(NEW.oidc_id_token_value, 'UTF8'));
+    NEW.refresh_token_digest      := sha256(convert_to(NEW.refresh_token_value, 'UTF8'));
+    NEW.user_code_digest          := sha256(convert_to(NEW.user_code_value, 'UTF8'));
+    NEW.device_code_digest        := sha256(convert_to(NEW.device_code_value, 'UTF8'));
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_oauth2_authorization_token_digests ON oauth2_authorization;
+
+CREATE TRIGGER trg_oauth2_authorization_token_digests
+    BEFORE INSERT OR UPDATE OF authorization_code_value, access_token_value, oidc_id_token_value,
+        refresh_token_value, user_code_value, device_code_value
+    ON oauth2_authorization
+    FOR EACH ROW
+EXECUTE FUNCTION oauth2_authorization_token_digests();
+
+--changeset acheron:3 splitStatements:false
+--comment Backfill procedure for token digests of rows written before the trigger
+
+-- =================================================================================================
+-- 3. backfill
+-- Walks the primary key in chunks so no single transaction holds row locks on the whole table
+-- =================================================================================================
+CREATE OR REPLACE PROCEDURE oauth2_authorization_backfill_token_digests(batch_size INTEGER DEFAULT 5000)
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    last_id   VARCHAR(100) := '';
+    chunk_end VARCHAR(100);
+BEGIN
+    LOOP
+        SELECT max(id)
+        INTO chunk_end
+        FROM (SELECT id
+              FROM oauth2_authorization
+              WHERE id > last_id
+              ORDER BY id
+              LIMIT batch_size) chunk;
+
+        EXIT WHEN chunk_end IS NULL;
+
+        UPDATE oauth2_authorization
+        SET authorization_code_digest = sha256(convert_to(authorization_code_value, 'UTF8')),
+            access_token_digest       = sha256(convert_to(access_token_value, 'UTF8')),
+            oidc_id_token_digest      = sha256(convert_to(oidc_id_token_value, 'UTF8')),
+            refresh_token_digest      = sha256(convert_to(refresh_token_value, 'UTF8')),
+            user_code_digest          = sha256(convert_to(user_code_value, 'UTF8')),
+            device_code_digest        = sha256(convert_to(device_code_value, 'UTF8'))
+        WHERE id > last_id
+          AND id <= chunk_end;
+
+        last_id := chunk_end;
+        COMMIT;
+    END LOOP;
+END
+$$;
+
+--changeset acheron:4 runInTransaction:false
+--comment Backfill token digests in primary-key order, committing every 5000 rows
+
+CALL oauth2_authorization_backfill_token_digests();
+
+--changeset acheron:5 runInTransaction:false
+--comment Partial b-tree indexes on token digests and state, built without blocking writes
+
+-- =================================================================================================
+-- 4. indexes
+-- =================================================================================================
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_authorization_code_digest
+    ON oauth2_authorization (authorization_code_digest) WHERE authorization_code_digest IS NOT NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_authorization_access_token_digest
+    ON oauth2_authorization (access_token_digest) WHERE access_token_digest IS NOT NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_authorization_oidc_id_token_digest
+    ON oauth2_authorization (oidc_id_token_digest) WHERE oidc_id_token_digest IS NOT NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_authorization_refresh_token_digest
+    ON oauth2_authorization (refresh_token_digest) WHERE refresh_token_digest IS NOT NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_authorization_user_code_digest
+    ON oauth2_authorization (user_code_digest) WHERE user_code_digest IS NOT NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_authorization_device_code_digest
+    ON oauth2_authorization (device_code_digest) WHERE device_code_digest IS NOT NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_authorization_state
+    ON oauth2_authorization (state) WHERE state IS NOT NULL;
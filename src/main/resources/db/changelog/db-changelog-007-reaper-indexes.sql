@@ -0,0 +1,22 @@
+--liquibase formatted sql
+
+--changeset acheron:1 runInTransaction:false
+--comment Indexes that let the expired-data reaper find due rows without scanning whole tables
+
+-- =================================================================================================
+-- 1. oauth2_authorization
+-- An authorization is dead once its last token has expired; the reaper orders by this expression
+-- =================================================================================================
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_authorization_expires_at
+    ON oauth2_authorization ((GREATEST(authorization_code_expires_at, access_token_expires_at,
+                                       oidc_id_token_expires_at, refresh_token_expires_at,
+                                       user_code_expires_at, device_code_expires_at)));
+
+-- =================================================================================================
+-- 2. soft-deleted token / mail rows
+-- =================================================================================================
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_token_deleted_at
+    ON token (deleted_at) WHERE deleted_at IS NOT NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_mail_deleted_at
+    ON mail (deleted_at) WHERE deleted_at IS NOT NULL;
@@ -0,0 +1,21 @@
+--liquibase formatted sql
+
+--changeset acheron:1
+--comment bytea twins of the authorization attribute and token metadata columns for the versioned binary codec
+
+-- =================================================================================================
+-- oauth2_authorization attribute / metadata columns — expand step
+-- Adding nullable columns is a catalog change only: no table rewrite, no long ACCESS EXCLUSIVE lock.
+-- The JSON text columns stay as they are, so nodes that predate the codec keep reading and writing
+-- them during a rolling deploy. Newer nodes write both (JSON while app.authorization.postgres.
+-- write-json-columns is on) and read the JSON when a row has it, the compact twin otherwise.
+-- Contract step, in a later changeset: drop the text columns once no node writes them.
+-- =================================================================================================
+ALTER TABLE oauth2_authorization
+    ADD COLUMN IF NOT EXISTS attributes_compact                  BYTEA,
+    ADD COLUMN IF NOT EXISTS authorization_code_metadata_compact BYTEA,
+    ADD COLUMN IF NOT EXISTS access_token_metadata_compact       BYTEA,
+    ADD COLUMN IF NOT EXISTS oidc_id_token_metadata_compact      BYTEA,
+    ADD COLUMN IF NOT EXISTS refresh_token_metadata_compact      BYTEA,
+    ADD COLUMN IF NOT EXISTS user_code_metadata_compact          BYTEA,
+    ADD COLUMN IF NOT EXISTS device_code_metadata_compact        BYTEA;
@@ -0,0 +1,43 @@
+--liquibase formatted sql
+
+--changeset acheron:1
+--comment Bulk revocation jobs, worked off in chunks by RevocationJobRunner
+
+-- =================================================================================================
+-- 1. revocation_job table
+-- =================================================================================================
+CREATE TABLE IF NOT EXISTS revocation_job
+(
+    id                     UUID                        NOT NULL DEFAULT gen_random_uuid(),
+    scope                  VARCHAR(16)                 NOT NULL,
+    target                 VARCHAR(200),
+    status                 VARCHAR(16)                 NOT NULL,
+    requested_by           VARCHAR(200),
+    authorizations_removed BIGINT                      NOT NULL DEFAULT 0,
+    consents_removed       BIGINT                      NOT NULL DEFAULT 0,
+    error                  VARCHAR(1000),
+    created_at             TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+    started_at             TIMESTAMP WITHOUT TIME ZONE,
+    finished_at            TIMESTAMP WITHOUT TIME ZONE,
+
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_revocation_job_open
+    ON revocation_job (created_at) WHERE status IN ('PENDING', 'RUNNING');
+
+--changeset acheron:2 runInTransaction:false
+--comment Indexes that let per-principal and per-client revocations find their rows
+
+-- =================================================================================================
+-- 2. oauth2_authorization / oauth2_authorization_consent
+-- The consent primary key already leads with registered_client_id
+-- =================================================================================================
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_authorization_principal_name
+    ON oauth2_authorization (principal_name);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_authorization_registered_client_id
+    ON oauth2_authorization (registered_client_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_authorization_consent_principal_name
+    ON oauth2_authorization_consent (principal_name);
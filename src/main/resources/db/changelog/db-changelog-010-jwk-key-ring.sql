@@ -0,0 +1,22 @@
+--liquibase formatted sql
+
+--changeset acheron:1
+--comment Signing key ring shared by every node, rotated by JwkKeyRotator
+
+-- =================================================================================================
+-- 1. jwk_key table
+-- private_jwk holds the full JWK encrypted with app.jwk.encryption; public_jwk is published as is
+-- =================================================================================================
+CREATE TABLE IF NOT EXISTS jwk_key
+(
+    kid          VARCHAR(100)                NOT NULL,
+    algorithm    VARCHAR(16)                 NOT NULL,
+    public_jwk   TEXT                        NOT NULL,
+    private_jwk  BYTEA                       NOT NULL,
+    created_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+    activates_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    retires_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    expires_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+
+    PRIMARY KEY (kid)
+);
@@ -0,0 +1,34 @@
+--liquibase formatted sql
+
+--changeset acheron:1 runInTransaction:false
+--comment Indexes behind the admin user search: trigram for substring matches, pattern ops for prefixes
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- =================================================================================================
+-- 1. substring search — LOWER(x) LIKE '%term%' (terms of three characters or more)
+-- =================================================================================================
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_username_trgm
+    ON users USING gin (lower(username) gin_trgm_ops) WHERE deleted_at IS NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_email_trgm
+    ON users USING gin (lower(email) gin_trgm_ops) WHERE deleted_at IS NULL;
+
+-- =================================================================================================
+-- 2. prefix search — LOWER(x) LIKE 'term%', independent of the database collation
+-- =================================================================================================
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_username_prefix
+    ON users (lower(username) text_pattern_ops) WHERE deleted_at IS NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_email_prefix
+    ON users (lower(email) text_pattern_ops) WHERE deleted_at IS NULL;
+
+-- =================================================================================================
+-- 3. planner statistics — partial expression indexes carry none, and without them every LIKE is
+--    estimated at 0.5%, so a selective search would walk the newest-first index end to end
+-- =================================================================================================
+CREATE STATISTICS IF NOT EXISTS stx_users_lower_username ON (lower(username)) FROM users;
+
+CREATE STATISTICS IF NOT EXISTS stx_users_lower_email ON (lower(email)) FROM users;
+
+ANALYZE users;
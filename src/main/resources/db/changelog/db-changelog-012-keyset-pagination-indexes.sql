@@ -0,0 +1,24 @@
+--liquibase formatted sql
+
+--changeset acheron:1 runInTransaction:false
+--comment Composite (timestamp, id) indexes behind keyset pagination of users, login history and clients
+
+-- =================================================================================================
+-- 1. users — newest first, and broad searches the planner prefers to filter in that order
+-- =================================================================================================
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_created_at_id
+    ON users (created_at DESC, id DESC) WHERE deleted_at IS NULL;
+
+-- =================================================================================================
+-- 2. auth_history — one user's logins, newest first; supersedes idx_auth_history_user_time
+-- =================================================================================================
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_auth_history_user_time_id
+    ON auth_history (user_id, timestamp DESC, id DESC);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_auth_history_user_time;
+
+-- =================================================================================================
+-- 3. oauth2_registered_client — most recently issued first
+-- =================================================================================================
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_registered_client_issued_at_id
+    ON oauth2_registered_client (client_id_issued_at DESC, id DESC);
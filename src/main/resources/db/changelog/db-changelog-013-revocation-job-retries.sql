@@ -0,0 +1,12 @@
+--liquibase formatted sql
+
+--changeset acheron:1
+--comment Retry failed revocation jobs with backoff instead of failing them for good
+
+-- =================================================================================================
+-- 1. revocation_job retry state
+-- A failed attempt returns the job to PENDING until next_attempt_at; existing rows are due at once
+-- =================================================================================================
+ALTER TABLE revocation_job
+    ADD COLUMN IF NOT EXISTS attempts        INT                         NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now();
@@ -0,0 +1,27 @@
+--liquibase formatted sql
+
+--changeset acheron:1
+--comment Record when an authorization was created, so rows that never got a token can be reaped
+
+-- =================================================================================================
+-- 1. oauth2_authorization.created_at
+-- Neither authorization service writes it, so the default stamps every insert; existing rows take the
+-- time of this migration and become due one retention period after it
+-- =================================================================================================
+ALTER TABLE oauth2_authorization
+    ADD COLUMN IF NOT EXISTS created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now();
+
+--changeset acheron:2 runInTransaction:false
+--comment Reaper index that also covers authorizations still waiting for, or abandoned at, consent
+
+-- =================================================================================================
+-- 2. oauth2_authorization expiry — a row without tokens falls back to its creation time;
+-- supersedes idx_oauth2_authorization_expires_at
+-- =================================================================================================
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_oauth2_authorization_due_at
+    ON oauth2_authorization ((COALESCE(GREATEST(authorization_code_expires_at, access_token_expires_at,
+                                                oidc_id_token_expires_at, refresh_token_expires_at,
+                                                user_code_expires_at, device_code_expires_at),
+                                       created_at)));
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_oauth2_authorization_expires_at;
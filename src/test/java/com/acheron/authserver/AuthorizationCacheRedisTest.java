@@ -0,0 +1,101 @@
+package com.acheron.authserver;
+
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationCache;
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationHashMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Authorization Cache Redis Tier Integration Tests")
+class AuthorizationCacheRedisTest {
+
+    private static final String KEY_PREFIX = "auth:authorization-cache:";
+
+    @Autowired private StringRedisTemplate redis;
+    @Autowired private RedisMessageListenerContainer listenerContainer;
+    @Autowired private OAuth2AuthorizationHashMapper hashMapper;
+    @Autowired private RegisteredClientRepository registeredClientRepository;
+
+    /** Two nodes sharing Redis, each with its own local tier. */
+    private OAuth2AuthorizationCache nodeA;
+    private OAuth2AuthorizationCache nodeB;
+    private OAuth2Authorization authorization;
+    private String accessToken;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = cache();
+        nodeB = cache();
+        accessToken = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        authorization = OAuth2Authorization.withRegisteredClient(registeredClientRepository.findByClientId("gateway-client"))
+                .id(UUID.randomUUID().toString())
+                .principalName("cache-" + UUID.randomUUID())
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .accessToken(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, accessToken,
+                        now, now.plus(Duration.ofMinutes(5)), Set.of("openid")))
+                .build();
+    }
+
+    @Test
+    @DisplayName("a fill on one node is served from Redis on another")
+    void put_fillsRedisForOtherNodes() {
+        nodeA.put(accessToken, OAuth2TokenType.ACCESS_TOKEN, authorization, nodeA.readStamp());
+
+        assertThat(redis.hasKey(KEY_PREFIX + "authorization:{" + authorization.getId() + "}")).isTrue();
+        assertThat(redis.opsForSet().isMember(KEY_PREFIX + "principal:" + authorization.getPrincipalName(),
+                authorization.getId())).isTrue();
+        assertThat(nodeB.get(accessToken, OAuth2TokenType.ACCESS_TOKEN))
+                .extracting(OAuth2Authorization::getId)
+                .isEqualTo(authorization.getId());
+    }
+
+    @Test
+    @DisplayName("a fill read before an eviction is refused by the Redis tombstone")
+    void put_afterEviction_isRefused() {
+        long stamp = nodeA.readStamp() - Duration.ofSeconds(5).toMillis();
+        nodeB.evict(authorization.getId());
+
+        nodeA.put(accessToken, OAuth2TokenType.ACCESS_TOKEN, authorization, stamp);
+
+        assertThat(redis.hasKey(KEY_PREFIX + "authorization:{" + authorization.getId() + "}")).isFalse();
+        assertThat(cache().get(accessToken, OAuth2TokenType.ACCESS_TOKEN)).isNull();
+    }
+
+    @Test
+    @DisplayName("evicting a principal drops its authorizations from Redis")
+    void evictPrincipal_dropsRedisEntries() {
+        nodeA.put(accessToken, OAuth2TokenType.ACCESS_TOKEN, authorization, nodeA.readStamp());
+
+        nodeB.evictPrincipal(authorization.getPrincipalName());
+
+        assertThat(cache().get(accessToken, OAuth2TokenType.ACCESS_TOKEN)).isNull();
+    }
+
+    private OAuth2AuthorizationCache cache() {
+        return new OAuth2AuthorizationCache(redis, listenerContainer, hashMapper, new SimpleMeterRegistry(),
+                100, Duration.ofMinutes(10), true);
+    }
+}
@@ -0,0 +1,310 @@
+package com.acheron.authserver;
+
+import com.acheron.authserver.entity.Role;
+import com.acheron.authserver.entity.User;
+import com.acheron.authserver.repository.UserRepository;
+import com.acheron.authserver.service.maintenance.ExpiredDataReaper;
+import com.acheron.authserver.service.maintenance.PostgresLeaderElection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Expired Data Reaper Integration Tests")
+class ExpiredDataReaperTest {
+
+    private static final Duration AUTHORIZATION_RETENTION = Duration.ofHours(1);
+    private static final Duration SOFT_DELETE_RETENTION = Duration.ofDays(30);
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private DataSource dataSource;
+    @Autowired private PostgresLeaderElection leaderElection;
+    @Autowired private RegisteredClientRepository registeredClientRepository;
+    @Autowired private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiredDataReaper reaper;
+    private String registeredClientId;
+    private String principal;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // A batch size of 2 makes every seeded backlog span several batches
+        reaper = new ExpiredDataReaper(jdbcTemplate, leaderElection, meterRegistry,
+                2, Duration.ZERO, Duration.ofMinutes(1), AUTHORIZATION_RETENTION, SOFT_DELETE_RETENTION);
+        registeredClientId = registeredClientRepository.findByClientId("gateway-client").getId();
+        principal = "reaper-" + UUID.randomUUID();
+        user = userRepository.save(User.builder()
+                .username(principal)
+                .email(principal + "@example.com")
+                .passwordHash("unused")
+                .role(Role.USER)
+                .enabled(true)
+                .emailVerified(true)
+                .mfaEnabled(false)
+                .tokenVersion(UUID.randomUUID())
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM oauth2_authorization WHERE principal_name = ?", principal);
+        jdbcTemplate.update("DELETE FROM oauth2_authorization_consent WHERE principal_name = ?", principal);
+        jdbcTemplate.update("DELETE FROM token WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM mail WHERE to_email = ?", user.getEmail());
+        userRepository.deleteById(user.getId());
+    }
+
+    // ── oauth2_authorization ─────────────────────────────────────────────
+
+    @Test
+    @DisplayName("Deletes authorizations whose every token expired past retention, in batches")
+    void reap_deletesFullyExpiredAuthorizations() {
+        Instant now = Instant.now();
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expired.add(insertAuthorization(now.minus(3, ChronoUnit.HOURS), now.minus(2, ChronoUnit.HOURS)));
+        }
+        String withinRetention = insertAuthorization(now.minus(40, ChronoUnit.MINUTES), now.minus(30, ChronoUnit.MINUTES));
+
+        reaper.reap();
+
+        assertThat(existing("oauth2_authorization", expired)).isEmpty();
+        assertThat(existing("oauth2_authorization", List.of(withinRetention))).containsExactly(withinRetention);
+        assertThat(purged("oauth2_authorization")).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Keeps an authorization whose access token expired but whose refresh token is still valid")
+    void reap_keepsAuthorizationWithLiveRefreshToken() {
+        Instant now = Instant.now();
+        String liveRefresh = insertAuthorization(now.minus(3, ChronoUnit.HOURS), now.plus(30, ChronoUnit.DAYS));
+        String noRefresh = insertAuthorization(now.minus(3, ChronoUnit.HOURS), null);
+
+        reaper.reap();
+
+        // GREATEST ignores the NULL refresh expiry and compares the latest token present
+        assertThat(existing("oauth2_authorization", List.of(liveRefresh, noRefresh))).containsExactly(liveRefresh);
+    }
+
+    @Test
+    @DisplayName("Deletes authorizations that never got a token once retention has passed since creation")
+    void reap_deletesAbandonedPendingAuthorizations() {
+        Instant now = Instant.now();
+        String abandoned = insertPendingAuthorization(now.minus(2, ChronoUnit.HOURS));
+        String pending = insertPendingAuthorization(now.minus(5, ChronoUnit.MINUTES));
+
+        reaper.reap();
+
+        // GREATEST over no tokens is NULL; the creation time stands in for it
+        assertThat(existing("oauth2_authorization", List.of(abandoned, pending))).containsExactly(pending);
+    }
+
+    @Test
+    @DisplayName("Skips rows locked by another transaction and reports them as lag until purged")
+    void reap_skipsLockedRowsAndReportsLag() throws Exception {
+        Instant now = Instant.now();
+        String locked = insertAuthorization(now.minus(4, ChronoUnit.HOURS), now.minus(3, ChronoUnit.HOURS));
+        List<String> unlocked = List.of(
+                insertAuthorization(now.minus(4, ChronoUnit.HOURS), now.minus(3, ChronoUnit.HOURS)),
+                insertAuthorization(now.minus(4, ChronoUnit.HOURS), now.minus(3, ChronoUnit.HOURS)),
+                insertAuthorization(now.minus(4, ChronoUnit.HOURS), now.minus(3, ChronoUnit.HOURS)));
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id FROM oauth2_authorization WHERE id = ? FOR UPDATE")) {
+                statement.setString(1, locked);
+                statement.executeQuery().close();
+            }
+
+            reaper.reap();
+
+            assertThat(existing("oauth2_authorization", unlocked)).isEmpty();
+            assertThat(existing("oauth2_authorization", List.of(locked))).containsExactly(locked);
+            // Due since 2h ago: expired 3h ago with a 1h retention
+            assertThat(lag("oauth2_authorization")).isBetween(7100.0, 7300.0);
+
+            connection.rollback();
+        }
+
+        reaper.reap();
+
+        assertThat(existing("oauth2_authorization", List.of(locked))).isEmpty();
+        assertThat(lag("oauth2_authorization")).isZero();
+    }
+
+    // ── oauth2_authorization_consent ─────────────────────────────────────
+
+    @Test
+    @DisplayName("Deletes consents whose registered client no longer exists")
+    void reap_deletesOrphanedConsents() {
+        String orphanClientId = UUID.randomUUID().toString();
+        insertConsent(orphanClientId);
+        insertConsent(registeredClientId);
+
+        reaper.reap();
+
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT registered_client_id FROM oauth2_authorization_consent WHERE principal_name = ?",
+                String.class, principal))
+                .containsExactly(registeredClientId);
+        assertThat(purged("oauth2_authorization_consent")).isGreaterThanOrEqualTo(1);
+    }
+
+    // ── soft-deleted token and mail ──────────────────────────────────────
+
+    @Test
+    @DisplayName("Deletes soft-deleted tokens and mails older than retention and keeps recent ones")
+    void reap_deletesOldSoftDeletedRows() {
+        Instant now = Instant.now();
+        List<String> oldTokens = List.of(
+                insertToken(now.minus(40, ChronoUnit.DAYS)),
+                insertToken(now.minus(35, ChronoUnit.DAYS)),
+                insertToken(now.minus(31, ChronoUnit.DAYS)));
+        String recentToken = insertToken(now.minus(1, ChronoUnit.DAYS));
+        String liveToken = insertToken(null);
+        List<String> oldMails = List.of(
+                insertMail(now.minus(60, ChronoUnit.DAYS)),
+                insertMail(now.minus(31, ChronoUnit.DAYS)));
+        String recentMail = insertMail(now.minus(1, ChronoUnit.DAYS));
+
+        reaper.reap();
+
+        assertThat(existing("token", oldTokens)).isEmpty();
+        assertThat(existing("token", List.of(recentToken, liveToken))).containsExactlyInAnyOrder(recentToken, liveToken);
+        assertThat(existing("mail", oldMails)).isEmpty();
+        assertThat(existing("mail", List.of(recentMail))).containsExactly(recentMail);
+        assertThat(lag("token")).isZero();
+        assertThat(lag("mail")).isZero();
+    }
+
+    // ── leader gate ──────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("Does nothing while another node holds the reaper lock")
+    void reap_skipsWhenNotLeader() throws Exception {
+        Instant now = Instant.now();
+        String expired = insertAuthorization(now.minus(3, ChronoUnit.HOURS), now.minus(2, ChronoUnit.HOURS));
+
+        try (Connection otherNode = dataSource.getConnection()) {
+            assertThat(advisoryLock(otherNode, "pg_try_advisory_lock")).isTrue();
+            try {
+                reaper.reap();
+
+                assertThat(existing("oauth2_authorization", List.of(expired))).containsExactly(expired);
+                assertThat(meterRegistry.get("auth.reaper.run").timer().count()).isZero();
+            } finally {
+                advisoryLock(otherNode, "pg_advisory_unlock");
+            }
+        }
+
+        reaper.reap();
+
+        assertThat(existing("oauth2_authorization", List.of(expired))).isEmpty();
+        assertThat(meterRegistry.get("auth.reaper.run").timer().count()).isEqualTo(1);
+    }
+
+    // ── helpers ──────────────────────────────────────────────────────────
+
+    private String insertAuthorization(Instant accessTokenExpiresAt, Instant refreshTokenExpiresAt) {
+        String id = UUID.randomUUID().toString();
+        jdbcTemplate.update("""
+                        INSERT INTO oauth2_authorization (id, registered_client_id, principal_name, authorization_grant_type,
+                            access_token_value, access_token_issued_at, access_token_expires_at,
+                            refresh_token_value, refresh_token_issued_at, refresh_token_expires_at)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""",
+                id, registeredClientId, principal, AuthorizationGrantType.AUTHORIZATION_CODE.getValue(),
+                "access-" + id, Timestamp.from(accessTokenExpiresAt.minus(5, ChronoUnit.MINUTES)),
+                Timestamp.from(accessTokenExpiresAt),
+                refreshTokenExpiresAt != null ? "refresh-" + id : null,
+                refreshTokenExpiresAt != null ? Timestamp.from(accessTokenExpiresAt.minus(5, ChronoUnit.MINUTES)) : null,
+                refreshTokenExpiresAt != null ? Timestamp.from(refreshTokenExpiresAt) : null);
+        return id;
+    }
+
+    /** An authorization request waiting for consent: a state and no token. */
+    private String insertPendingAuthorization(Instant createdAt) {
+        String id = UUID.randomUUID().toString();
+        jdbcTemplate.update("""
+                        INSERT INTO oauth2_authorization (id, registered_client_id, principal_name, authorization_grant_type,
+                            state, created_at)
+                        VALUES (?, ?, ?, ?, ?, ?)""",
+                id, registeredClientId, principal, AuthorizationGrantType.AUTHORIZATION_CODE.getValue(),
+                "state-" + id, Timestamp.from(createdAt));
+        return id;
+    }
+
+    private void insertConsent(String consentClientId) {
+        jdbcTemplate.update(
+                "INSERT INTO oauth2_authorization_consent (registered_client_id, principal_name, authorities) VALUES (?, ?, ?)",
+                consentClientId, principal, "SCOPE_openid");
+    }
+
+    private String insertToken(Instant deletedAt) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("""
+                        INSERT INTO token (id, token, user_id, expired_at, token_status, token_type, deleted_at)
+                        VALUES (?, ?, ?, ?, 'INACTIVE', 'RESET', ?)""",
+                id, UUID.randomUUID().toString(), user.getId(), Timestamp.from(Instant.now().minus(60, ChronoUnit.DAYS)),
+                deletedAt != null ? Timestamp.from(deletedAt) : null);
+        return id.toString();
+    }
+
+    private String insertMail(Instant deletedAt) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO mail (id, to_email, from_email, deleted_at) VALUES (?, ?, ?, ?)",
+                id, user.getEmail(), "noreply@example.com", Timestamp.from(deletedAt));
+        return id.toString();
+    }
+
+    private List<String> existing(String table, List<String> ids) {
+        return jdbcTemplate.queryForList(
+                "SELECT id::text FROM " + table + " WHERE id::text = ANY (?)", String.class, (Object) ids.toArray(String[]::new));
+    }
+
+    private double purged(String table) {
+        return meterRegistry.get("auth.reaper.rows.purged").tag("table", table).counter().count();
+    }
+
+    private double lag(String table) {
+        return meterRegistry.get("auth.reaper.lag").tag("table", table).gauge().value();
+    }
+
+    private static boolean advisoryLock(Connection connection, String function) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + function + "(hashtext('expired-data-reaper'))")) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getBoolean(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.acheron.authserver;
+
+import com.acheron.authserver.config.authorization.CompactOAuth2AuthorizationParametersMapper;
+import com.acheron.authserver.config.authorization.CompactOAuth2AuthorizationRowMapper;
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationAttributeCodec;
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationMappers;
+import com.acheron.authserver.config.authorization.PostgresOAuth2AuthorizationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.test.context.ActiveProfiles;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Postgres Authorization Store Integration Tests")
+class PostgresAuthorizationServiceTest {
+
+    private static final OAuth2TokenType CODE = new OAuth2TokenType(OAuth2ParameterNames.CODE);
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private RegisteredClientRepository registeredClientRepository;
+
+    private OAuth2AuthorizationAttributeCodec codec;
+    private PostgresOAuth2AuthorizationService service;
+    /** The stock service with JSON mappers, as nodes that predate the compact columns run it. */
+    private JdbcOAuth2AuthorizationService olderNode;
+    private RegisteredClient client;
+    private String principal;
+
+    @BeforeEach
+    void setUp() {
+        codec = new OAuth2AuthorizationAttributeCodec(
+                OAuth2AuthorizationMappers.jsonMapper(), OAuth2AuthorizationMappers.smileMapper());
+        service = service(true);
+
+        JsonMapper jsonMapper = OAuth2AuthorizationMappers.jsonMapper();
+        olderNode = new JdbcOAuth2AuthorizationService(jdbcTemplate, registeredClientRepository);
+        olderNode.setAuthorizationRowMapper(
+                new JdbcOAuth2AuthorizationService.JsonMapperOAuth2AuthorizationRowMapper(registeredClientRepository, jsonMapper));
+        olderNode.setAuthorizationParametersMapper(
+                new JdbcOAuth2AuthorizationService.JsonMapperOAuth2AuthorizationParametersMapper(jsonMapper));
+
+        client = registeredClientRepository.findByClientId("gateway-client");
+        principal = "store-" + UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.removeByPrincipalName(principal);
+    }
+
+    // ── digest lookups ───────────────────────────────────────────────
+
+    @Test
+    @DisplayName("every token of a saved authorization is found by its digest, with and without a token type")
+    void findByToken_everyTokenType() {
+        OAuth2Authorization authorization = authorization();
+        service.save(authorization);
+
+        String code = authorization.getToken(OAuth2AuthorizationCode.class).getToken().getTokenValue();
+        String accessToken = authorization.getAccessToken().getToken().getTokenValue();
+        String refreshToken = authorization.getRefreshToken().getToken().getTokenValue();
+
+        assertThat(service.findByToken(code, CODE)).extracting(OAuth2Authorization::getId).isEqualTo(authorization.getId());
+        assertThat(service.findByToken(accessToken, OAuth2TokenType.ACCESS_TOKEN)).isNotNull();
+        assertThat(service.findByToken(refreshToken, OAuth2TokenType.REFRESH_TOKEN)).isNotNull();
+        assertThat(service.findByToken(refreshToken, null)).isNotNull();
+        assertThat(service.findByToken(accessToken, OAuth2TokenType.REFRESH_TOKEN)).isNull();
+        assertThat(service.findByToken("unknown", null)).isNull();
+    }
+
+    @Test
+    @DisplayName("a row written without digests, as by an older node, is found: the trigger fills them")
+    void findByToken_rowWrittenWithoutDigests() {
+        OAuth2Authorization authorization = authorization();
+        insertWithoutDigests(authorization);
+
+        assertThat(digest("access_token_digest", authorization.getId())).isNotNull();
+        assertThat(service.findByToken(authorization.getAccessToken().getToken().getTokenValue(), OAuth2TokenType.ACCESS_TOKEN))
+                .extracting(OAuth2Authorization::getId)
+                .isEqualTo(authorization.getId());
+    }
+
+    @Test
+    @DisplayName("a refresh token rotated by an older node moves the digest with it")
+    void findByToken_rotationByOlderNode() {
+        OAuth2Authorization authorization = authorization();
+        insertWithoutDigests(authorization);
+        String rotated = UUID.randomUUID().toString();
+        jdbcTemplate.update("UPDATE oauth2_authorization SET refresh_token_value = ? WHERE id = ?", rotated, authorization.getId());
+
+        assertThat(service.findByToken(rotated, OAuth2TokenType.REFRESH_TOKEN)).isNotNull();
+        assertThat(service.findByToken(authorization.getRefreshToken().getToken().getTokenValue(), OAuth2TokenType.REFRESH_TOKEN))
+                .isNull();
+    }
+
+    @Test
+    @DisplayName("the backfill fills the digests of rows written before the trigger existed")
+    void backfill_fillsMissingDigests() {
+        OAuth2Authorization authorization = authorization();
+        String accessToken = authorization.getAccessToken().getToken().getTokenValue();
+        jdbcTemplate.execute("ALTER TABLE oauth2_authorization DISABLE TRIGGER trg_oauth2_authorization_token_digests");
+        try {
+            insertWithoutDigests(authorization);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE oauth2_authorization ENABLE TRIGGER trg_oauth2_authorization_token_digests");
+        }
+        assertThat(digest("access_token_digest", authorization.getId())).isNull();
+        assertThat(service.findByToken(accessToken, OAuth2TokenType.ACCESS_TOKEN)).isNull();
+
+        jdbcTemplate.execute("CALL oauth2_authorization_backfill_token_digests(2)");
+
+        assertThat(digest("access_token_digest", authorization.getId())).isNotNull();
+        assertThat(service.findByToken(accessToken, OAuth2TokenType.ACCESS_TOKEN))
+                .extracting(OAuth2Authorization::getId)
+                .isEqualTo(authorization.getId());
+    }
+
+    // ── JSON and compact columns ─────────────────────────────────────
+
+    @Test
+    @DisplayName("an older node reads an authorization a newer node saved")
+    void olderNodeReadsNewerRows() {
+        OAuth2Authorization authorization = authorization();
+        service.save(authorization);
+
+        OAuth2Authorization read = olderNode.findById(authorization.getId());
+
+        assertThat(read).isNotNull();
+        assertThat(read.getAttributes()).isEqualTo(authorization.getAttributes());
+        assertThat(read.getAccessToken().getMetadata()).isEqualTo(authorization.getAccessToken().getMetadata());
+    }
+
+    @Test
+    @DisplayName("an update by an older node wins over the compact twins a newer node wrote before")
+    void newerNodeReadsOlderNodeUpdate() {
+        OAuth2Authorization authorization = authorization();
+        service.save(authorization);
+        OAuth2Authorization invalidated = OAuth2Authorization.from(authorization)
+                .attribute("updated-by", "older-node")
+                .invalidate(authorization.getRefreshToken().getToken())
+                .build();
+        olderNode.save(invalidated);
+
+        OAuth2Authorization read = service.findById(authorization.getId());
+
+        assertThat(read.<String>getAttribute("updated-by")).isEqualTo("older-node");
+        assertThat(read.getRefreshToken().isInvalidated()).isTrue();
+    }
+
+    @Test
+    @DisplayName("with the JSON columns off, only the compact twins are written and they are read back")
+    void compactOnly() {
+        PostgresOAuth2AuthorizationService compactOnly = service(false);
+        OAuth2Authorization authorization = authorization();
+        compactOnly.save(authorization);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT attributes IS NULL AND access_token_metadata IS NULL AND attributes_compact IS NOT NULL"
+                        + " FROM oauth2_authorization WHERE id = ?", Boolean.class, authorization.getId()))
+                .isTrue();
+        OAuth2Authorization read = compactOnly.findByToken(
+                authorization.getAccessToken().getToken().getTokenValue(), OAuth2TokenType.ACCESS_TOKEN);
+        assertThat(read.getAttributes()).isEqualTo(authorization.getAttributes());
+        assertThat(read.getAccessToken().getMetadata()).isEqualTo(authorization.getAccessToken().getMetadata());
+    }
+
+    // ── upserts ──────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("the authorization_code and refresh_token flow never drops a stored token")
+    void save_codeThenRefreshFlow() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        String state = "state-" + UUID.randomUUID();
+
+        // authorization request, waiting for consent: no token yet, only the state
+        OAuth2Authorization requested = OAuth2Authorization.withRegisteredClient(client)
+                .id(UUID.randomUUID().toString())
+                .principalName(principal)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .attribute(OAuth2ParameterNames.STATE, state)
+                .build();
+        service.save(requested);
+        assertStored(requested);
+        assertThat(service.findByToken(state, new OAuth2TokenType(OAuth2ParameterNames.STATE))).isNotNull();
+
+        // code issued: the state goes, the code comes
+        OAuth2AuthorizationCode code = new OAuth2AuthorizationCode(UUID.randomUUID().toString(), now, now.plus(Duration.ofMinutes(5)));
+        OAuth2Authorization codeIssued = OAuth2Authorization.from(requested)
+                .authorizedScopes(Set.of("openid"))
+                .attributes(attributes -> attributes.remove(OAuth2ParameterNames.STATE))
+                .token(code)
+                .build();
+        service.save(codeIssued);
+        assertStored(codeIssued);
+        assertThat(service.findByToken(state, new OAuth2TokenType(OAuth2ParameterNames.STATE))).isNull();
+
+        // code exchanged: the code is invalidated, access, refresh and ID tokens are added
+        OidcIdToken idToken = new OidcIdToken(UUID.randomUUID().toString(), now, now.plus(Duration.ofMinutes(5)),
+                Map.of("sub", principal));
+        OAuth2Authorization exchanged = OAuth2Authorization.from(codeIssued)
+                .invalidate(code)
+                .accessToken(accessToken(now))
+                .refreshToken(refreshToken(now))
+                .token(idToken, metadata -> metadata.put(OAuth2Authorization.Token.CLAIMS_METADATA_NAME, idToken.getClaims()))
+                .build();
+        service.save(exchanged);
+        assertStored(exchanged);
+
+        // refresh: access, refresh and ID tokens are replaced, the invalidated code stays
+        OAuth2Authorization refreshed = OAuth2Authorization.from(exchanged)
+                .accessToken(accessToken(now.plusSeconds(60)))
+                .refreshToken(refreshToken(now.plusSeconds(60)))
+                .build();
+        service.save(refreshed);
+        assertStored(refreshed);
+        assertThat(service.findByToken(code.getTokenValue(), CODE).getToken(OAuth2AuthorizationCode.class).isInvalidated()).isTrue();
+        assertThat(service.findByToken(exchanged.getRefreshToken().getToken().getTokenValue(), OAuth2TokenType.REFRESH_TOKEN))
+                .isNull();
+        assertThat(service.findByToken(refreshed.getRefreshToken().getToken().getTokenValue(), OAuth2TokenType.REFRESH_TOKEN))
+                .extracting(OAuth2Authorization::getId)
+                .isEqualTo(requested.getId());
+    }
+
+    @Test
+    @DisplayName("an update that adds a token keeps the columns of the tokens it leaves out of the statement")
+    void save_updateAddingToken() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        OAuth2Authorization clientCredentials = OAuth2Authorization.withRegisteredClient(client)
+                .id(UUID.randomUUID().toString())
+                .principalName(principal)
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .accessToken(accessToken(now))
+                .build();
+        service.save(clientCredentials);
+
+        OAuth2Authorization withRefresh = OAuth2Authorization.from(clientCredentials)
+                .refreshToken(refreshToken(now))
+                .build();
+        service.save(withRefresh);
+
+        assertStored(withRefresh);
+    }
+
+    @Test
+    @DisplayName("saveAll writes mixed token combinations, inserts and updates alike")
+    void saveAll_mixedBatches() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        OAuth2Authorization existing = authorization();
+        service.save(existing);
+
+        List<OAuth2Authorization> batch = new ArrayList<>();
+        batch.add(OAuth2Authorization.from(existing).refreshToken(refreshToken(now)).build());
+        for (int i = 0; i < 5; i++) {
+            batch.add(authorization());
+            batch.add(OAuth2Authorization.withRegisteredClient(client)
+                    .id(UUID.randomUUID().toString())
+                    .principalName(principal)
+                    .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                    .accessToken(accessToken(now))
+                    .build());
+        }
+        service.saveAll(batch);
+
+        batch.forEach(this::assertStored);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM oauth2_authorization WHERE principal_name = ?",
+                Integer.class, principal)).isEqualTo(11);
+    }
+
+    // ── helpers ──────────────────────────────────────────────────────
+
+    /** The stored row holds exactly the tokens, metadata and attributes of the authorization. */
+    private void assertStored(OAuth2Authorization expected) {
+        OAuth2Authorization stored = service.findById(expected.getId());
+        assertThat(stored).isNotNull();
+        assertThat(stored.getAttributes()).isEqualTo(expected.getAttributes());
+        assertThat(stored.getAuthorizedScopes()).isEqualTo(expected.getAuthorizedScopes());
+        for (Class<? extends OAuth2Token> tokenClass : List.of(OAuth2AuthorizationCode.class, OAuth2AccessToken.class,
+                OidcIdToken.class, OAuth2RefreshToken.class)) {
+            OAuth2Authorization.Token<? extends OAuth2Token> expectedToken = expected.getToken(tokenClass);
+            OAuth2Authorization.Token<? extends OAuth2Token> storedToken = stored.getToken(tokenClass);
+            if (expectedToken == null) {
+                assertThat(storedToken).as(tokenClass.getSimpleName()).isNull();
+            } else {
+                assertThat(storedToken).as(tokenClass.getSimpleName()).isNotNull();
+                assertThat(storedToken.getToken().getTokenValue()).isEqualTo(expectedToken.getToken().getTokenValue());
+                assertThat(storedToken.getMetadata()).isEqualTo(expectedToken.getMetadata());
+            }
+        }
+    }
+
+    private static OAuth2AccessToken accessToken(Instant issuedAt) {
+        return new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, UUID.randomUUID().toString(),
+                issuedAt, issuedAt.plus(Duration.ofMinutes(5)), Set.of("openid"));
+    }
+
+    private static OAuth2RefreshToken refreshToken(Instant issuedAt) {
+        return new OAuth2RefreshToken(UUID.randomUUID().toString(), issuedAt, issuedAt.plus(Duration.ofDays(1)));
+    }
+
+    private PostgresOAuth2AuthorizationService service(boolean writeJsonColumns) {
+        PostgresOAuth2AuthorizationService postgres = new PostgresOAuth2AuthorizationService(jdbcTemplate, registeredClientRepository);
+        postgres.setAuthorizationRowMapper(new CompactOAuth2AuthorizationRowMapper(registeredClientRepository, codec));
+        postgres.setAuthorizationParametersMapper(new CompactOAuth2AuthorizationParametersMapper(codec, writeJsonColumns));
+        return postgres;
+    }
+
+    private OAuth2Authorization authorization() {
+        Instant issuedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        return OAuth2Authorization.withRegisteredClient(client)
+                .id(UUID.randomUUID().toString())
+                .principalName(principal)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .authorizedScopes(Set.of("openid"))
+                .attribute(OAuth2ParameterNames.STATE, "state-" + UUID.randomUUID())
+                .token(new OAuth2AuthorizationCode(UUID.randomUUID().toString(), issuedAt, issuedAt.plus(Duration.ofMinutes(5))))
+                .accessToken(accessToken(issuedAt))
+                .refreshToken(refreshToken(issuedAt))
+                .build();
+    }
+
+    /** Writes only the columns a node that predates the digest columns knows about. */
+    private void insertWithoutDigests(OAuth2Authorization authorization) {
+        OAuth2AccessToken accessToken = authorization.getAccessToken().getToken();
+        OAuth2RefreshToken refreshToken = authorization.getRefreshToken().getToken();
+        jdbcTemplate.update("""
+                        INSERT INTO oauth2_authorization (id, registered_client_id, principal_name, authorization_grant_type,
+                            access_token_value, access_token_issued_at, access_token_expires_at, access_token_type,
+                            refresh_token_value, refresh_token_issued_at, refresh_token_expires_at)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""",
+                authorization.getId(), client.getId(), principal, authorization.getAuthorizationGrantType().getValue(),
+                accessToken.getTokenValue(), Timestamp.from(accessToken.getIssuedAt()), Timestamp.from(accessToken.getExpiresAt()),
+                accessToken.getTokenType().getValue(),
+                refreshToken.getTokenValue(), Timestamp.from(refreshToken.getIssuedAt()), Timestamp.from(refreshToken.getExpiresAt()));
+    }
+
+    private byte[] digest(String column, String id) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM oauth2_authorization WHERE id = ?", byte[].class, id);
+    }
+}
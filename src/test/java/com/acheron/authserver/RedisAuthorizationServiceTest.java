@@ -0,0 +1,275 @@
+package com.acheron.authserver;
+
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationHashMapper;
+import com.acheron.authserver.config.authorization.OAuth2AuthorizationTokens;
+import com.acheron.authserver.config.authorization.RedisOAuth2AuthorizationService;
+import com.acheron.authserver.config.authorization.RevocationTarget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Redis Authorization Store Integration Tests")
+class RedisAuthorizationServiceTest {
+
+    private static final OAuth2TokenType STATE = new OAuth2TokenType(OAuth2ParameterNames.STATE);
+    private static final OAuth2TokenType CODE = new OAuth2TokenType(OAuth2ParameterNames.CODE);
+    private static final OAuth2TokenType ID_TOKEN = new OAuth2TokenType(OidcParameterNames.ID_TOKEN);
+    private static final OAuth2TokenType USER_CODE = new OAuth2TokenType(OAuth2ParameterNames.USER_CODE);
+    private static final OAuth2TokenType DEVICE_CODE = new OAuth2TokenType(OAuth2ParameterNames.DEVICE_CODE);
+
+    @Autowired private StringRedisTemplate redis;
+    @Autowired private OAuth2AuthorizationHashMapper hashMapper;
+    @Autowired private RegisteredClientRepository registeredClientRepository;
+
+    private RedisOAuth2AuthorizationService service;
+    private RegisteredClient client;
+    private String principal;
+
+    @BeforeEach
+    void setUp() {
+        service = new RedisOAuth2AuthorizationService(redis, hashMapper, Duration.ofMinutes(10));
+        client = registeredClientRepository.findByClientId("gateway-client");
+        principal = "redis-store-" + UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.removeByPrincipalName(principal);
+    }
+
+    // ── save and lookup ──────────────────────────────────────────────
+
+    @Test
+    @DisplayName("every token of a saved authorization is found by its type and untyped")
+    void findByToken_everyTokenType() {
+        OAuth2Authorization authorization = authorization();
+        service.save(authorization);
+
+        String state = authorization.getAttribute(OAuth2ParameterNames.STATE);
+        String code = authorization.getToken(OAuth2AuthorizationCode.class).getToken().getTokenValue();
+        String accessToken = authorization.getAccessToken().getToken().getTokenValue();
+        String idToken = authorization.getToken(OidcIdToken.class).getToken().getTokenValue();
+        String refreshToken = authorization.getRefreshToken().getToken().getTokenValue();
+
+        assertThat(service.findById(authorization.getId())).isNotNull();
+        assertFound(state, STATE, authorization);
+        assertFound(code, CODE, authorization);
+        assertFound(accessToken, OAuth2TokenType.ACCESS_TOKEN, authorization);
+        assertFound(idToken, ID_TOKEN, authorization);
+        assertFound(refreshToken, OAuth2TokenType.REFRESH_TOKEN, authorization);
+        assertThat(service.findByToken(accessToken, OAuth2TokenType.REFRESH_TOKEN)).isNull();
+        assertThat(service.findByToken("unknown", null)).isNull();
+    }
+
+    @Test
+    @DisplayName("device and user codes are found by their type and untyped")
+    void findByToken_deviceCodes() {
+        Instant issuedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        OAuth2Authorization authorization = OAuth2Authorization.withRegisteredClient(client)
+                .id(UUID.randomUUID().toString())
+                .principalName(principal)
+                .authorizationGrantType(AuthorizationGrantType.DEVICE_CODE)
+                .token(new OAuth2UserCode("USER-" + UUID.randomUUID(), issuedAt, issuedAt.plus(Duration.ofMinutes(5))))
+                .token(new OAuth2DeviceCode(UUID.randomUUID().toString(), issuedAt, issuedAt.plus(Duration.ofMinutes(5))))
+                .build();
+        service.save(authorization);
+
+        assertFound(authorization.getToken(OAuth2UserCode.class).getToken().getTokenValue(), USER_CODE, authorization);
+        assertFound(authorization.getToken(OAuth2DeviceCode.class).getToken().getTokenValue(), DEVICE_CODE, authorization);
+    }
+
+    @Test
+    @DisplayName("replacing the refresh token drops the index of the old one")
+    void save_replacingRefreshToken() {
+        OAuth2Authorization authorization = authorization();
+        service.save(authorization);
+        String oldRefreshToken = authorization.getRefreshToken().getToken().getTokenValue();
+
+        OAuth2RefreshToken newRefreshToken = refreshToken(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+        OAuth2Authorization refreshed = OAuth2Authorization.from(authorization)
+                .accessToken(accessToken(Instant.now().truncatedTo(ChronoUnit.MILLIS)))
+                .refreshToken(newRefreshToken)
+                .build();
+        service.save(refreshed);
+
+        assertFound(newRefreshToken.getTokenValue(), OAuth2TokenType.REFRESH_TOKEN, refreshed);
+        assertThat(service.findByToken(oldRefreshToken, OAuth2TokenType.REFRESH_TOKEN)).isNull();
+        assertThat(redis.hasKey(indexKey(OAuth2TokenType.REFRESH_TOKEN.getValue(), oldRefreshToken))).isFalse();
+        assertThat(redis.hasKey(indexKey(OAuth2TokenType.REFRESH_TOKEN.getValue(), newRefreshToken.getTokenValue()))).isTrue();
+    }
+
+    @Test
+    @DisplayName("the authorization and its indexes expire with its longest-lived token")
+    void save_expiresWithTokens() {
+        Instant issuedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER,
+                UUID.randomUUID().toString(), issuedAt, issuedAt.plus(Duration.ofSeconds(2)), Set.of("openid"));
+        OAuth2Authorization authorization = OAuth2Authorization.withRegisteredClient(client)
+                .id(UUID.randomUUID().toString())
+                .principalName(principal)
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .accessToken(accessToken)
+                .build();
+        service.save(authorization);
+
+        assertThat(service.findByToken(accessToken.getTokenValue(), OAuth2TokenType.ACCESS_TOKEN)).isNotNull();
+        assertThat(redis.getExpire("auth:authorization:authorization:" + authorization.getId())).isBetween(0L, 2L);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(service.findById(authorization.getId())).isNull();
+            assertThat(redis.hasKey(indexKey(OAuth2TokenType.ACCESS_TOKEN.getValue(), accessToken.getTokenValue()))).isFalse();
+        });
+    }
+
+    // ── removal ──────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("remove drops the authorization, its indexes and its set memberships")
+    void remove_dropsEverything() {
+        OAuth2Authorization authorization = authorization();
+        service.save(authorization);
+
+        service.remove(authorization);
+
+        assertThat(service.findById(authorization.getId())).isNull();
+        assertThat(redis.hasKey(indexKey(OAuth2TokenType.ACCESS_TOKEN.getValue(),
+                authorization.getAccessToken().getToken().getTokenValue()))).isFalse();
+        assertThat(redis.opsForSet().isMember(principalKey(), authorization.getId())).isFalse();
+        assertThat(redis.opsForZSet().score(clientKey(), authorization.getId())).isNull();
+    }
+
+    @Test
+    @DisplayName("removeBatch drains a principal in batches, including members whose hash already expired")
+    void removeBatch_principal() {
+        List<OAuth2Authorization> authorizations = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            OAuth2Authorization authorization = authorization();
+            service.save(authorization);
+            authorizations.add(authorization);
+        }
+        // as if the authorization expired before the set did: indexes never outlive the hash
+        OAuth2Authorization expired = authorizations.getFirst();
+        redis.delete(List.of("auth:authorization:authorization:" + expired.getId(),
+                indexKey(OAuth2TokenType.ACCESS_TOKEN.getValue(), expired.getAccessToken().getToken().getTokenValue()),
+                indexKey(OAuth2TokenType.REFRESH_TOKEN.getValue(), expired.getRefreshToken().getToken().getTokenValue())));
+
+        List<String> removed = new ArrayList<>();
+        List<String> batch;
+        do {
+            batch = service.removeBatch(RevocationTarget.principal(principal), 2);
+            assertThat(batch).hasSizeLessThanOrEqualTo(2);
+            removed.addAll(batch);
+        } while (!batch.isEmpty());
+
+        assertThat(removed).containsExactlyInAnyOrderElementsOf(authorizations.stream().map(OAuth2Authorization::getId).toList());
+        assertThat(redis.hasKey(principalKey())).isFalse();
+        for (OAuth2Authorization authorization : authorizations) {
+            assertThat(service.findByToken(authorization.getAccessToken().getToken().getTokenValue(), null)).isNull();
+            assertThat(redis.hasKey(indexKey(OAuth2TokenType.REFRESH_TOKEN.getValue(),
+                    authorization.getRefreshToken().getToken().getTokenValue()))).isFalse();
+        }
+        // an expired member's client membership lapses by score instead, pruned on the next write
+        for (OAuth2Authorization authorization : authorizations.subList(1, authorizations.size())) {
+            assertThat(redis.opsForZSet().score(clientKey(), authorization.getId())).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("removeBatch by client drops the principal memberships too")
+    void removeBatch_client() {
+        OAuth2Authorization authorization = authorization();
+        service.save(authorization);
+
+        List<String> removed = new ArrayList<>();
+        List<String> batch;
+        do {
+            batch = service.removeBatch(RevocationTarget.client(client.getId()), 100);
+            removed.addAll(batch);
+        } while (!batch.isEmpty());
+
+        assertThat(removed).contains(authorization.getId());
+        assertThat(service.findById(authorization.getId())).isNull();
+        assertThat(redis.opsForSet().isMember(principalKey(), authorization.getId())).isFalse();
+    }
+
+    // ── helpers ──────────────────────────────────────────────────────
+
+    private void assertFound(String token, OAuth2TokenType tokenType, OAuth2Authorization expected) {
+        assertThat(service.findByToken(token, tokenType)).extracting(OAuth2Authorization::getId).isEqualTo(expected.getId());
+        assertThat(service.findByToken(token, null)).extracting(OAuth2Authorization::getId).isEqualTo(expected.getId());
+    }
+
+    private OAuth2Authorization authorization() {
+        Instant issuedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        OidcIdToken idToken = OidcIdToken.withTokenValue(UUID.randomUUID().toString())
+                .issuedAt(issuedAt)
+                .expiresAt(issuedAt.plus(Duration.ofMinutes(5)))
+                .subject(principal)
+                .build();
+        return OAuth2Authorization.withRegisteredClient(client)
+                .id(UUID.randomUUID().toString())
+                .principalName(principal)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .authorizedScopes(Set.of("openid"))
+                .attribute(OAuth2ParameterNames.STATE, "state-" + UUID.randomUUID())
+                .token(new OAuth2AuthorizationCode(UUID.randomUUID().toString(), issuedAt, issuedAt.plus(Duration.ofMinutes(5))))
+                .accessToken(accessToken(issuedAt))
+                .token(idToken, metadata -> metadata.put(OAuth2Authorization.Token.CLAIMS_METADATA_NAME, idToken.getClaims()))
+                .refreshToken(refreshToken(issuedAt))
+                .build();
+    }
+
+    private static OAuth2AccessToken accessToken(Instant issuedAt) {
+        return new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, UUID.randomUUID().toString(),
+                issuedAt, issuedAt.plus(Duration.ofMinutes(5)), Set.of("openid"));
+    }
+
+    private static OAuth2RefreshToken refreshToken(Instant issuedAt) {
+        return new OAuth2RefreshToken(UUID.randomUUID().toString(), issuedAt, issuedAt.plus(Duration.ofDays(1)));
+    }
+
+    private String principalKey() {
+        return "auth:authorization:principal:" + principal;
+    }
+
+    private String clientKey() {
+        return "auth:authorization:client:" + client.getId();
+    }
+
+    private static String indexKey(String index, String token) {
+        return "auth:authorization:index:" + index + ":" + OAuth2AuthorizationTokens.sha256Base64Url(token);
+    }
+}
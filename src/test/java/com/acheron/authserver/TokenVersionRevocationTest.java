@@ -1,9 +1,11 @@
 package com.acheron.authserver;
 
 import com.acheron.authserver.config.TokenVersionCheckingOAuth2AuthorizationService;
+import com.acheron.authserver.dto.request.UserPatchRequest;
 import com.acheron.authserver.entity.Role;
 import com.acheron.authserver.entity.User;
 import com.acheron.authserver.repository.UserRepository;
+import com.acheron.authserver.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,6 +17,8 @@ import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.context.annotation.Import;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
 import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
 import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
 import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
@@ -22,9 +26,12 @@ import org.springframework.security.oauth2.server.authorization.client.Registere
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -41,6 +48,7 @@ class TokenVersionRevocationTest {
     @Autowired private PasswordEncoder passwordEncoder;
     @Autowired private OAuth2AuthorizationService authorizationService;
     @Autowired private RegisteredClientRepository registeredClientRepository;
+    @Autowired private UserService userService;
 
     private User testUser;
 
@@ -95,4 +103,64 @@ class TokenVersionRevocationTest {
                         .param("refresh_token", "invalid-token-value"))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Refresh right after the user is deleted is rejected, although the version was cached")
+    void refresh_afterDelete_isRejected() {
+        User user = newUser();
+        String refreshToken = saveAuthorizationWithRefreshToken(user.getUsername());
+        assertThat(authorizationService.findByToken(refreshToken, OAuth2TokenType.REFRESH_TOKEN)).isNotNull();
+
+        userService.deleteById(user.getId());
+
+        assertThatThrownBy(() -> authorizationService.findByToken(refreshToken, OAuth2TokenType.REFRESH_TOKEN))
+                .isInstanceOfSatisfying(OAuth2AuthenticationException.class,
+                        e -> assertThat(e.getError().getDescription()).isEqualTo("User not found"));
+    }
+
+    @Test
+    @DisplayName("Refresh under the old username right after a rename is rejected")
+    void refresh_afterRename_isRejected() {
+        User user = newUser();
+        String previousUsername = user.getUsername();
+        String refreshToken = saveAuthorizationWithRefreshToken(previousUsername);
+        assertThat(authorizationService.findByToken(refreshToken, OAuth2TokenType.REFRESH_TOKEN)).isNotNull();
+
+        userService.patchUser(user, new UserPatchRequest(previousUsername + "-renamed", null, null, null, null));
+
+        try {
+            assertThatThrownBy(() -> authorizationService.findByToken(refreshToken, OAuth2TokenType.REFRESH_TOKEN))
+                    .isInstanceOfSatisfying(OAuth2AuthenticationException.class,
+                            e -> assertThat(e.getError().getDescription()).isEqualTo("User not found"));
+        } finally {
+            userService.deleteById(user.getId());
+        }
+    }
+
+    private User newUser() {
+        String username = "revocation-" + UUID.randomUUID();
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .passwordHash(passwordEncoder.encode("password123"))
+                .role(Role.USER)
+                .enabled(true)
+                .emailVerified(true)
+                .mfaEnabled(false)
+                .tokenVersion(UUID.randomUUID())
+                .build());
+    }
+
+    private String saveAuthorizationWithRefreshToken(String principalName) {
+        Instant issuedAt = Instant.now();
+        OAuth2RefreshToken refreshToken = new OAuth2RefreshToken(UUID.randomUUID().toString(),
+                issuedAt, issuedAt.plus(Duration.ofDays(1)));
+        authorizationService.save(OAuth2Authorization.withRegisteredClient(registeredClientRepository.findByClientId("gateway-client"))
+                .id(UUID.randomUUID().toString())
+                .principalName(principalName)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .refreshToken(refreshToken)
+                .build());
+        return refreshToken.getTokenValue();
+    }
+}
@@ -0,0 +1,139 @@
+package com.acheron.authserver.config;
+
+import com.acheron.authserver.dto.util.UserCredentials;
+import com.acheron.authserver.entity.Role;
+import com.acheron.authserver.entity.User;
+import com.acheron.authserver.repository.UserRepository;
+import org.jboss.aerogear.security.otp.Totp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MFADaoAuthProvider unit tests")
+class MFADaoAuthProviderTest {
+
+    private static final PasswordEncoder PASSWORD_ENCODER = new BCryptPasswordEncoder(4);
+    private static final String PASSWORD_HASH = PASSWORD_ENCODER.encode("Secret123!");
+
+    @Mock private UserDetailsService userDetailsService;
+    @Mock private UserDetailsPasswordService userDetailsPasswordService;
+    @Mock private UserRepository userRepository;
+
+    private MFADaoAuthProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        provider = new MFADaoAuthProvider(userDetailsService, PASSWORD_ENCODER, userDetailsPasswordService, userRepository);
+    }
+
+    @Test
+    @DisplayName("cached credentials of an MFA user without a code are rejected")
+    void authenticate_credentialsRequireCode() {
+        given(userDetailsService.loadUserByUsername("alice")).willReturn(credentials(true));
+
+        assertThatThrownBy(() -> provider.authenticate(attempt(null)))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("2FA code is missing");
+    }
+
+    @Test
+    @DisplayName("a User entity of an MFA user without a code is rejected too")
+    void authenticate_userEntityRequiresCode() {
+        given(userDetailsService.loadUserByUsername("alice")).willReturn(user(true));
+
+        assertThatThrownBy(() -> provider.authenticate(attempt(null)))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("2FA code is missing");
+    }
+
+    @Test
+    @DisplayName("a wrong code is rejected")
+    void authenticate_wrongCode() {
+        given(userDetailsService.loadUserByUsername("alice")).willReturn(user(true));
+
+        assertThatThrownBy(() -> provider.authenticate(attempt("000000")))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Invalid verification code");
+    }
+
+    @Test
+    @DisplayName("a user without MFA signs in with the password alone, as the User entity")
+    void authenticate_withoutMfa() {
+        User user = user(false);
+        given(userDetailsService.loadUserByUsername("alice")).willReturn(credentials(false));
+        given(userRepository.findUserByUsername("alice")).willReturn(Optional.of(user));
+
+        Authentication result = provider.authenticate(attempt(null));
+
+        assertThat(result.getPrincipal()).isSameAs(user);
+    }
+
+    @Test
+    @DisplayName("an MFA user verified from cached credentials loads the User entity once")
+    void authenticate_withMfa_loadsUserOnce() {
+        User user = user(true);
+        given(userDetailsService.loadUserByUsername("alice")).willReturn(credentials(true));
+        given(userRepository.findUserByUsername("alice")).willReturn(Optional.of(user));
+
+        Authentication result = provider.authenticate(attempt(new Totp(user.getMfaSecret()).now()));
+
+        assertThat(result.getPrincipal()).isSameAs(user);
+        verify(userRepository).findUserByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("user details of an unknown type are rejected rather than skipping MFA")
+    void authenticate_unknownUserDetails() {
+        UserDetails other = org.springframework.security.core.userdetails.User.withUsername("alice")
+                .password(PASSWORD_HASH)
+                .roles("USER")
+                .build();
+        given(userDetailsService.loadUserByUsername("alice")).willReturn(other);
+
+        assertThatThrownBy(() -> provider.authenticate(attempt(null)))
+                .isInstanceOf(InternalAuthenticationServiceException.class);
+    }
+
+    private static UsernamePasswordAuthenticationToken attempt(String code) {
+        UsernamePasswordAuthenticationToken token = UsernamePasswordAuthenticationToken.unauthenticated("alice", "Secret123!");
+        token.setDetails(new CustomWebAuthenticationDetails("127.0.0.1", null, code));
+        return token;
+    }
+
+    private static UserCredentials credentials(boolean mfaEnabled) {
+        return new UserCredentials(UUID.randomUUID(), "alice", PASSWORD_HASH, Role.USER, true, false, mfaEnabled);
+    }
+
+    private static User user(boolean mfaEnabled) {
+        return User.builder()
+                .id(UUID.randomUUID())
+                .username("alice")
+                .email("alice@example.com")
+                .passwordHash(PASSWORD_HASH)
+                .role(Role.USER)
+                .mfaEnabled(mfaEnabled)
+                .mfaSecret("JBSWY3DPEHPK3PXP")
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.acheron.authserver.config.authorization;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CachingOAuth2AuthorizationService unit tests")
+class CachingOAuth2AuthorizationServiceTest {
+
+    @Mock private RevocableOAuth2AuthorizationService delegate;
+    @Mock private StringRedisTemplate redis;
+    @Mock private RedisMessageListenerContainer listenerContainer;
+    @Mock private OAuth2AuthorizationHashMapper hashMapper;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachingOAuth2AuthorizationService service;
+    private OAuth2Authorization authorization;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        OAuth2AuthorizationCache cache = new OAuth2AuthorizationCache(redis, listenerContainer, hashMapper,
+                meterRegistry, 100, Duration.ofMinutes(10), false);
+        service = new CachingOAuth2AuthorizationService(delegate, cache);
+
+        RegisteredClient client = RegisteredClient.withId("client-id")
+                .clientId("client")
+                .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("http://localhost/callback")
+                .build();
+        Instant now = Instant.now();
+        authorization = OAuth2Authorization.withRegisteredClient(client)
+                .id("authorization-id")
+                .principalName("alice")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .token(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access-token",
+                        now, now.plus(Duration.ofMinutes(5)), Set.of("openid")))
+                .refreshToken(new OAuth2RefreshToken("refresh-token", now, now.plus(Duration.ofDays(1))))
+                .build();
+    }
+
+    // ── findByToken ──────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("access token lookups hit the delegate once, then the local tier")
+    void findByToken_cachesAccessTokenLookups() {
+        given(delegate.findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN)).willReturn(authorization);
+
+        assertThat(service.findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN)).isSameAs(authorization);
+        assertThat(service.findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN)).isSameAs(authorization);
+
+        verify(delegate, times(1)).findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN);
+        assertThat(meterRegistry.get("auth.authorization.cache.requests")
+                .tags("tier", "local", "result", "hit").counter().count()).isEqualTo(1.0);
+        verifyNoInteractions(redis);
+    }
+
+    @Test
+    @DisplayName("refresh token lookups always go to the delegate")
+    void findByToken_neverCachesRefreshTokens() {
+        given(delegate.findByToken("refresh-token", OAuth2TokenType.REFRESH_TOKEN)).willReturn(authorization);
+
+        service.findByToken("refresh-token", OAuth2TokenType.REFRESH_TOKEN);
+        service.findByToken("refresh-token", OAuth2TokenType.REFRESH_TOKEN);
+
+        verify(delegate, times(2)).findByToken("refresh-token", OAuth2TokenType.REFRESH_TOKEN);
+    }
+
+    @Test
+    @DisplayName("a lookup with a different token type does not reuse the cached entry")
+    void findByToken_keysByTokenType() {
+        given(delegate.findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN)).willReturn(authorization);
+        service.findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN);
+
+        assertThat(service.findByToken("access-token", OAuth2TokenType.REFRESH_TOKEN)).isNull();
+        verify(delegate).findByToken("access-token", OAuth2TokenType.REFRESH_TOKEN);
+    }
+
+    // ── save / remove ────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("save evicts the authorization so the next lookup reads the delegate")
+    void save_evictsCachedAuthorization() {
+        given(delegate.findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN)).willReturn(authorization);
+        service.findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN);
+
+        service.save(authorization);
+        service.findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN);
+
+        verify(delegate).save(authorization);
+        verify(delegate, times(2)).findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN);
+    }
+
+    @Test
+    @DisplayName("remove evicts the authorization so the next lookup reads the delegate")
+    void remove_evictsCachedAuthorization() {
+        given(delegate.findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN)).willReturn(authorization, (OAuth2Authorization) null);
+        service.findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN);
+
+        service.remove(authorization);
+
+        assertThat(service.findByToken("access-token", OAuth2TokenType.ACCESS_TOKEN)).isNull();
+        verify(delegate).remove(authorization);
+    }
+}
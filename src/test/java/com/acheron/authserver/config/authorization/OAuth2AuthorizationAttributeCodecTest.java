@@ -0,0 +1,172 @@
+package com.acheron.authserver.config.authorization;
+
+import com.acheron.authserver.entity.Role;
+import com.acheron.authserver.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("OAuth2AuthorizationAttributeCodec unit tests")
+class OAuth2AuthorizationAttributeCodecTest {
+
+    private JsonMapper jsonMapper;
+    private OAuth2AuthorizationAttributeCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        jsonMapper = OAuth2AuthorizationMappers.jsonMapper();
+        codec = new OAuth2AuthorizationAttributeCodec(jsonMapper, OAuth2AuthorizationMappers.smileMapper());
+    }
+
+    // ── round trip ───────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("token claims round-trip with their types intact")
+    void roundTrip_claims() throws Exception {
+        Instant now = Instant.parse("2026-01-01T10:00:00.123456789Z");
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("iss", URI.create("http://localhost:9000").toURL());
+        claims.put("sub", "alice");
+        claims.put("aud", List.of("gateway-client"));
+        claims.put("iat", now);
+        claims.put("exp", now.plusSeconds(300));
+        claims.put("scope", Set.of("openid", "profile"));
+        claims.put("counter", 42);
+        claims.put("big", Long.MAX_VALUE);
+        claims.put("ratio", -0.5);
+        claims.put("custom_claim", "value-not-in-dictionary");
+        Map<String, Object> metadata = Map.of(
+                OAuth2Authorization.Token.CLAIMS_METADATA_NAME, claims,
+                OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, false);
+
+        Map<String, Object> decoded = codec.decode(codec.encode(metadata));
+
+        assertThat(decoded).isEqualTo(metadata);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> decodedClaims = (Map<String, Object>) decoded.get(OAuth2Authorization.Token.CLAIMS_METADATA_NAME);
+        assertThat(decodedClaims.get("iat")).isInstanceOf(Instant.class).isEqualTo(now);
+        assertThat(decodedClaims.get("counter")).isInstanceOf(Integer.class);
+        assertThat(decodedClaims.get("big")).isInstanceOf(Long.class);
+    }
+
+    @Test
+    @DisplayName("authorization request and principal round-trip")
+    void roundTrip_attributes() {
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .email("alice@example.com")
+                .username("alice")
+                .role(Role.USER)
+                .build();
+        UsernamePasswordAuthenticationToken principal =
+                UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+        OAuth2AuthorizationRequest request = OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri("http://localhost:9000/oauth2/authorize")
+                .clientId("gateway-client")
+                .redirectUri("http://localhost:8080/callback")
+                .scopes(Set.of("openid", "profile"))
+                .state("state-1")
+                .additionalParameters(Map.of("code_challenge", "abc", "code_challenge_method", "S256"))
+                .build();
+        Map<String, Object> attributes = Map.of(
+                Principal.class.getName(), principal,
+                OAuth2AuthorizationRequest.class.getName(), request,
+                "token_version", user.getTokenVersion().toString());
+
+        Map<String, Object> decoded = codec.decode(codec.encode(attributes));
+
+        UsernamePasswordAuthenticationToken decodedPrincipal =
+                (UsernamePasswordAuthenticationToken) decoded.get(Principal.class.getName());
+        assertThat(decodedPrincipal.isAuthenticated()).isTrue();
+        assertThat(((User) decodedPrincipal.getPrincipal()).getId()).isEqualTo(user.getId());
+        assertThat(decodedPrincipal.getAuthorities()).containsExactly(Role.USER);
+
+        OAuth2AuthorizationRequest decodedRequest = (OAuth2AuthorizationRequest) decoded.get(OAuth2AuthorizationRequest.class.getName());
+        assertThat(decodedRequest.getClientId()).isEqualTo("gateway-client");
+        assertThat(decodedRequest.getRedirectUri()).isEqualTo("http://localhost:8080/callback");
+        assertThat(decodedRequest.getScopes()).containsExactlyInAnyOrder("openid", "profile");
+        assertThat(decodedRequest.getState()).isEqualTo("state-1");
+        assertThat(decodedRequest.getAdditionalParameters()).isEqualTo(request.getAdditionalParameters());
+        assertThat(decodedRequest.getAuthorizationRequestUri()).isEqualTo(request.getAuthorizationRequestUri());
+        assertThat(decoded.get("token_version")).isEqualTo(user.getTokenVersion().toString());
+    }
+
+    @Test
+    @DisplayName("compact encoding is smaller than the legacy JSON")
+    void encode_isSmallerThanJson() {
+        Map<String, Object> metadata = Map.of(
+                OAuth2Authorization.Token.CLAIMS_METADATA_NAME, Map.of("sub", "alice", "iat", Instant.now()),
+                OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, false);
+
+        byte[] compact = codec.encode(metadata);
+
+        assertThat(compact[0]).isEqualTo(OAuth2AuthorizationAttributeCodec.VERSION_1);
+        assertThat(compact.length).isLessThan(jsonMapper.writeValueAsBytes(metadata).length / 2);
+    }
+
+    // ── legacy rows / malformed input ────────────────────────────────────────
+
+    @Test
+    @DisplayName("rows written as polymorphic JSON are still decoded")
+    void decode_legacyJson() {
+        // the stock JDBC service serializes plain HashMaps
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("sub", "alice");
+        claims.put("iat", Instant.parse("2026-01-01T00:00:00Z"));
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(OAuth2Authorization.Token.CLAIMS_METADATA_NAME, claims);
+        metadata.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true);
+
+        Map<String, Object> decoded = codec.decode(jsonMapper.writeValueAsBytes(metadata));
+
+        assertThat(decoded).isEqualTo(metadata);
+    }
+
+    @Test
+    @DisplayName("JSON for the text columns is what the stock mapper writes, and decodes back")
+    void encodeJson_matchesStockMapper() {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(OAuth2Authorization.Token.CLAIMS_METADATA_NAME, new HashMap<>(Map.of("sub", "alice")));
+        metadata.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, false);
+
+        String json = codec.encodeJson(metadata);
+
+        assertThat(json).isEqualTo(jsonMapper.writeValueAsString(metadata));
+        assertThat(codec.decode(json.getBytes(StandardCharsets.UTF_8))).isEqualTo(metadata);
+    }
+
+    @Test
+    @DisplayName("null or empty columns decode to an empty map")
+    void decode_empty() {
+        assertThat(codec.decode(null)).isEmpty();
+        assertThat(codec.decode(new byte[0])).isEmpty();
+    }
+
+    @Test
+    @DisplayName("unknown versions and truncated data are rejected")
+    void decode_rejectsMalformedInput() {
+        byte[] encoded = codec.encode(Map.of("sub", "alice"));
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(new byte[]{99, 0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> codec.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+    }
+}
@@ -0,0 +1,80 @@
+package com.acheron.authserver.config.claims;
+
+import com.acheron.authserver.dto.util.UserClaims;
+import com.acheron.authserver.entity.Role;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("UserIdentityClaimContributor unit tests")
+class UserIdentityClaimContributorTest {
+
+    private final UserClaims user = new UserClaims(UUID.randomUUID(), "alice", Role.ADMIN, UUID.randomUUID());
+    private final UserIdentityClaimContributor contributor = new UserIdentityClaimContributor();
+
+    @Test
+    @DisplayName("clients without a profile get the full claim names")
+    void contribute_defaultsToFull() {
+        assertThat(contribute(null)).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "user_id", user.userId().toString(),
+                "roles", "ADMIN",
+                "token_version", user.tokenVersion().toString()));
+    }
+
+    @Test
+    @DisplayName("the compact profile keeps every claim under a short name")
+    void contribute_compact() {
+        assertThat(contribute("COMPACT")).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "uid", user.userId().toString(),
+                "rol", "ADMIN",
+                "tv", user.tokenVersion().toString()));
+    }
+
+    @Test
+    @DisplayName("the minimal profile only adds the user id")
+    void contribute_minimal() {
+        assertThat(contribute("MINIMAL")).containsExactlyEntriesOf(Map.of("uid", user.userId().toString()));
+    }
+
+    @Test
+    @DisplayName("profile names are case-insensitive and validated")
+    void from_parsesNames() {
+        assertThat(TokenClaimProfile.from("compact")).isEqualTo(TokenClaimProfile.COMPACT);
+        assertThatThrownBy(() -> TokenClaimProfile.from("tiny")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Map<String, Object> contribute(String profile) {
+        TokenSettings.Builder settings = TokenSettings.builder();
+        if (profile != null) {
+            settings.setting(TokenClaimProfile.TOKEN_SETTING, profile);
+        }
+        RegisteredClient client = RegisteredClient.withId("id")
+                .clientId("client")
+                .clientAuthenticationMethod(ClientAuthenticationMethod.NONE)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("http://localhost/callback")
+                .tokenSettings(settings.build())
+                .build();
+        JwtEncodingContext context = JwtEncodingContext.with(JwsHeader.with(SignatureAlgorithm.RS256), JwtClaimsSet.builder())
+                .registeredClient(client)
+                .build();
+
+        Map<String, Object> claims = new HashMap<>();
+        contributor.contribute(context, user, claims);
+        return claims;
+    }
+}
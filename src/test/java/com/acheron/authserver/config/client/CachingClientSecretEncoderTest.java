@@ -0,0 +1,73 @@
+package com.acheron.authserver.config.client;
+
+import com.acheron.authserver.dto.util.RegisteredClientSavedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CachingClientSecretEncoder unit tests")
+class CachingClientSecretEncoderTest {
+
+    @Mock private PasswordEncoder delegate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ClientSecretVerificationCache cache;
+    private CachingClientSecretEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ClientSecretVerificationCache(meterRegistry, 100, Duration.ofMinutes(10));
+        encoder = new CachingClientSecretEncoder(delegate, cache);
+    }
+
+    @Test
+    @DisplayName("a secret that matched once is verified again without the delegate")
+    void matches_cachesSuccess() {
+        given(delegate.matches("secret", "{hash}")).willReturn(true);
+
+        assertThat(encoder.matches("secret", "{hash}")).isTrue();
+        assertThat(encoder.matches("secret", "{hash}")).isTrue();
+
+        verify(delegate, times(1)).matches("secret", "{hash}");
+        assertThat(meterRegistry.get("auth.client.secret.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("wrong secrets are never cached and never match a cached entry")
+    void matches_doesNotCacheFailures() {
+        given(delegate.matches("secret", "{hash}")).willReturn(true);
+        encoder.matches("secret", "{hash}");
+
+        assertThat(encoder.matches("wrong", "{hash}")).isFalse();
+        assertThat(encoder.matches("wrong", "{hash}")).isFalse();
+
+        verify(delegate, times(2)).matches("wrong", "{hash}");
+    }
+
+    @Test
+    @DisplayName("a client save clears the cache, and a rotated hash never hits an old entry")
+    void matches_followsRotation() {
+        given(delegate.matches("secret", "{hash}")).willReturn(true);
+        encoder.matches("secret", "{hash}");
+
+        assertThat(encoder.matches("secret", "{rotated}")).isFalse();
+
+        cache.onClientSaved(new RegisteredClientSavedEvent("client-id", "gateway-client"));
+        encoder.matches("secret", "{hash}");
+
+        verify(delegate, times(2)).matches("secret", "{hash}");
+    }
+}
@@ -0,0 +1,93 @@
+package com.acheron.authserver.config.client;
+
+import com.acheron.authserver.dto.util.RegisteredClientSavedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CachingRegisteredClientRepository unit tests")
+class CachingRegisteredClientRepositoryTest {
+
+    @Mock private RegisteredClientRepository delegate;
+    @Mock private StringRedisTemplate redis;
+    @Mock private RedisMessageListenerContainer listenerContainer;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RegisteredClientCache cache;
+    private CachingRegisteredClientRepository repository;
+    private final RegisteredClient client = RegisteredClient.withId("client-id")
+            .clientId("gateway-client")
+            .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .redirectUri("http://localhost/callback")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        cache = new RegisteredClientCache(redis, listenerContainer, meterRegistry, 100, Duration.ofMinutes(10));
+        repository = new CachingRegisteredClientRepository(delegate, cache, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("a client loaded by client id is served from the cache by client id and by id")
+    void find_cachesUnderBothKeys() {
+        given(delegate.findByClientId("gateway-client")).willReturn(client);
+
+        assertThat(repository.findByClientId("gateway-client")).isSameAs(client);
+        assertThat(repository.findByClientId("gateway-client")).isSameAs(client);
+        assertThat(repository.findById("client-id")).isSameAs(client);
+
+        verify(delegate, times(1)).findByClientId("gateway-client");
+        verify(delegate, never()).findById("client-id");
+        assertThat(meterRegistry.get("auth.client.cache.requests").tag("result", "hit").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("auth.client.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("unknown client ids are not cached")
+    void find_doesNotCacheMisses() {
+        assertThat(repository.findByClientId("ghost")).isNull();
+        assertThat(repository.findByClientId("ghost")).isNull();
+
+        verify(delegate, times(2)).findByClientId("ghost");
+    }
+
+    @Test
+    @DisplayName("a save publishes an event that clears the cache and notifies other nodes")
+    void save_invalidatesEverywhere() {
+        given(delegate.findById("client-id")).willReturn(client);
+        repository.findById("client-id");
+
+        repository.save(client);
+        verify(delegate).save(client);
+        RegisteredClientSavedEvent event = new RegisteredClientSavedEvent("client-id", "gateway-client");
+        verify(eventPublisher).publishEvent(event);
+
+        cache.onClientSaved(event);
+        repository.findById("client-id");
+
+        verify(delegate, times(2)).findById("client-id");
+        verify(redis).convertAndSend(RegisteredClientCache.CHANNEL, "gateway-client");
+    }
+}
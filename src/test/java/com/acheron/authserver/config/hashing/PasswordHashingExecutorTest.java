@@ -0,0 +1,83 @@
+package com.acheron.authserver.config.hashing;
+
+import com.acheron.authserver.exception.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PasswordHashingExecutor unit tests")
+class PasswordHashingExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordHashingExecutor executor =
+            new PasswordHashingExecutor(meterRegistry, 1, 1, Duration.ofMillis(1500));
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    @DisplayName("the bounded encoder hashes and matches on the hashing pool")
+    void boundedEncoder_roundTrips() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), executor);
+
+        String hash = encoder.encode("secret");
+
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.matches("wrong", hash)).isFalse();
+        assertThat(meterRegistry.get("auth.password.hashing.wait").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("a full queue rejects at once with a Retry-After rounded up to seconds")
+    void execute_rejectsWhenSaturated() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> busy = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+            running.countDown();
+            await(release);
+            return true;
+        }));
+        running.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> true));
+        while (meterRegistry.get("auth.password.hashing.queue.depth").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThatThrownBy(() -> executor.execute(() -> true))
+                .isInstanceOfSatisfying(PasswordHashingRejectedException.class,
+                        e -> assertThat(e.retryAfterSeconds()).isEqualTo(2));
+        assertThat(meterRegistry.get("auth.password.hashing.rejected").counter().count()).isEqualTo(1.0);
+
+        release.countDown();
+        assertThat(busy.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("exceptions thrown by the task reach the caller unchanged")
+    void execute_propagatesFailures() {
+        assertThatThrownBy(() -> executor.execute(() -> {
+            throw new IllegalArgumentException("bad hash");
+        })).isInstanceOf(IllegalArgumentException.class).hasMessage("bad hash");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
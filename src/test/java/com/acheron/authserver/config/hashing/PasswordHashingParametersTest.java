@@ -0,0 +1,63 @@
+package com.acheron.authserver.config.hashing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PasswordHashingParameters unit tests")
+class PasswordHashingParametersTest {
+
+    private final PasswordEncoder bcrypt5 = parameters(PasswordHashingAlgorithm.BCRYPT, 5).passwordEncoder();
+
+    @Test
+    @DisplayName("hashes stored without an id prefix still match and are upgraded")
+    void legacyBcryptHash_matchesAndUpgrades() {
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+
+        assertThat(bcrypt5.matches("secret", legacy)).isTrue();
+        assertThat(bcrypt5.upgradeEncoding(legacy)).isTrue();
+        assertThat(bcrypt5.encode("secret")).startsWith("{bcrypt}$2a$05$");
+    }
+
+    @Test
+    @DisplayName("raising the BCrypt strength flags hashes of a lower cost only")
+    void bcryptStrength_upgradesCheaperHashes() {
+        String current = bcrypt5.encode("secret");
+        PasswordEncoder bcrypt6 = parameters(PasswordHashingAlgorithm.BCRYPT, 6).passwordEncoder();
+
+        assertThat(bcrypt5.upgradeEncoding(current)).isFalse();
+        assertThat(bcrypt6.upgradeEncoding(current)).isTrue();
+        assertThat(bcrypt6.matches("secret", current)).isTrue();
+    }
+
+    @Test
+    @DisplayName("switching to Argon2id keeps BCrypt hashes valid until they are rehashed")
+    void argon2_readsBcryptAndWritesArgon2() {
+        String bcryptHash = bcrypt5.encode("secret");
+        PasswordEncoder argon2 = parameters(PasswordHashingAlgorithm.ARGON2ID, 5).passwordEncoder();
+
+        String argon2Hash = argon2.encode("secret");
+
+        assertThat(argon2Hash).startsWith("{argon2}$argon2id$");
+        assertThat(argon2.matches("secret", argon2Hash)).isTrue();
+        assertThat(argon2.upgradeEncoding(argon2Hash)).isFalse();
+        assertThat(argon2.matches("secret", bcryptHash)).isTrue();
+        assertThat(argon2.upgradeEncoding(bcryptHash)).isTrue();
+    }
+
+    @Test
+    @DisplayName("algorithm names are case-insensitive and validated")
+    void from_parsesNames() {
+        assertThat(PasswordHashingAlgorithm.from("Argon2id")).isEqualTo(PasswordHashingAlgorithm.ARGON2ID);
+        assertThat(PasswordHashingAlgorithm.from("bcrypt")).isEqualTo(PasswordHashingAlgorithm.BCRYPT);
+        assertThatThrownBy(() -> PasswordHashingAlgorithm.from("md5")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static PasswordHashingParameters parameters(PasswordHashingAlgorithm algorithm, int bcryptStrength) {
+        return new PasswordHashingParameters(algorithm, bcryptStrength, 1024, 1, 1);
+    }
+}
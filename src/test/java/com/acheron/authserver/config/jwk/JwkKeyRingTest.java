@@ -0,0 +1,160 @@
+package com.acheron.authserver.config.jwk;
+
+import com.acheron.authserver.entity.JwkKey;
+import com.acheron.authserver.repository.JwkKeyRepository;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.crypto.encrypt.Encryptors;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("JwkKeyRing unit tests")
+class JwkKeyRingTest {
+
+    @Mock private JwkKeyRepository jwkKeyRepository;
+
+    private final BytesEncryptor encryptor = Encryptors.stronger("test-jwk-password", "5c0744940b5c369b");
+    private final List<JwkKey> keys = new ArrayList<>();
+    private JwkKeyRing keyRing;
+
+    @BeforeEach
+    void setUp() {
+        keyRing = new JwkKeyRing(jwkKeyRepository, encryptor, List.of("RS256", "ES256", "EdDSA"));
+        given(jwkKeyRepository.findAllByExpiresAtAfterOrderByActivatesAtDesc(any())).willAnswer(invocation -> keys);
+    }
+
+    @Test
+    @DisplayName("only the active key is loaded with its private part; every key is published")
+    void refresh_publishesAllKeysAndSignsWithActiveOne() throws Exception {
+        Instant now = Instant.now();
+        RSAKey pending = key(now.plus(Duration.ofMinutes(30)));
+        RSAKey active = key(now.minus(Duration.ofDays(1)));
+        RSAKey retired = key(now.minus(Duration.ofDays(31)), now.minus(Duration.ofHours(1)));
+
+        keyRing.refresh();
+
+        List<JWK> all = keyRing.get(new JWKSelector(new JWKMatcher.Builder().build()), null);
+        assertThat(all).extracting(JWK::getKeyID).containsExactly(active.getKeyID(), pending.getKeyID(), retired.getKeyID());
+        assertThat(all.getFirst().isPrivate()).isTrue();
+        assertThat(all.subList(1, 3)).noneMatch(JWK::isPrivate);
+        assertThat(keyRing.signingKey(JwkSigningAlgorithm.RS256)).isEqualTo(active);
+
+        JWKSet published = JWKSet.parse(new String(keyRing.publishedJwkSet().json(), StandardCharsets.UTF_8));
+        assertThat(published.getKeys()).hasSize(3).noneMatch(JWK::isPrivate);
+    }
+
+    @Test
+    @DisplayName("the ETag only changes when the published keys change")
+    void publishedJwkSet_etagTracksKeys() throws Exception {
+        Instant now = Instant.now();
+        key(now.minus(Duration.ofDays(1)));
+        keyRing.refresh();
+        String etag = keyRing.publishedJwkSet().etag();
+
+        keyRing.refresh();
+        assertThat(keyRing.publishedJwkSet().etag()).isEqualTo(etag);
+
+        key(now.plus(Duration.ofMinutes(30)));
+        keyRing.refresh();
+        assertThat(keyRing.publishedJwkSet().etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    @DisplayName("the next key takes over signing as soon as it activates, without a reload")
+    void current_switchesKeysAtActivation() throws Exception {
+        RSAKey next = generate();
+        RSAKey active = generate();
+        Instant now = Instant.now();
+        Instant switchAt = now.plus(Duration.ofMillis(300));
+        store(next, switchAt, switchAt.plus(Duration.ofDays(30)));
+        store(active, now.minus(Duration.ofDays(1)), switchAt);
+        keyRing.refresh();
+        assertThat(keyRing.hasSigningKey(JwkSigningAlgorithm.RS256)).isTrue();
+        assertThat(keyRing.signingKey(JwkSigningAlgorithm.RS256)).isEqualTo(active);
+
+        Thread.sleep(Duration.between(Instant.now(), switchAt).plusMillis(50));
+
+        assertThat(keyRing.signingKey(JwkSigningAlgorithm.RS256)).isEqualTo(next);
+    }
+
+    @Test
+    @DisplayName("each algorithm signs with its own active key")
+    void signingKey_perAlgorithm() {
+        Instant now = Instant.now();
+        JWK rsa = store(JwkSigningAlgorithm.RS256.generate("rsa"), now.minus(Duration.ofDays(1)), now.plus(Duration.ofDays(1)));
+        JWK ec = store(JwkSigningAlgorithm.ES256.generate("ec"), now.minus(Duration.ofDays(1)), now.plus(Duration.ofDays(1)));
+        JWK ed = store(JwkSigningAlgorithm.EDDSA.generate("ed"), now.minus(Duration.ofDays(1)), now.plus(Duration.ofDays(1)));
+        store(JwkSigningAlgorithm.ES256.generate("ec-old"), now.minus(Duration.ofDays(31)), now.minus(Duration.ofDays(1)));
+
+        keyRing.refresh();
+
+        assertThat(keyRing.signingKey(JwkSigningAlgorithm.RS256)).isEqualTo(rsa);
+        assertThat(keyRing.signingKey(JwkSigningAlgorithm.ES256)).isEqualTo(ec);
+        assertThat(keyRing.signingKey(JwkSigningAlgorithm.EDDSA)).isEqualTo(ed);
+        assertThat(keyRing.get(new JWKSelector(new JWKMatcher.Builder().build()), null))
+                .filteredOn(JWK::isPrivate)
+                .extracting(JWK::getKeyID)
+                .containsExactlyInAnyOrder(rsa.getKeyID(), ec.getKeyID(), ed.getKeyID());
+    }
+
+    @Test
+    @DisplayName("an empty ring has no signing key")
+    void refresh_emptyRing() {
+        keyRing.refresh();
+
+        assertThat(keyRing.hasSigningKey(JwkSigningAlgorithm.RS256)).isFalse();
+        assertThat(keyRing.publishedJwkSet().json()).asString(StandardCharsets.UTF_8).isEqualTo("{\"keys\":[]}");
+    }
+
+    private RSAKey key(Instant activatesAt) throws Exception {
+        return key(activatesAt, activatesAt.plus(Duration.ofDays(30)));
+    }
+
+    private RSAKey key(Instant activatesAt, Instant retiresAt) throws Exception {
+        return store(generate(), activatesAt, retiresAt);
+    }
+
+    private static RSAKey generate() throws Exception {
+        return new RSAKeyGenerator(2048)
+                .keyIDFromThumbprint(true)
+                .keyUse(KeyUse.SIGNATURE)
+                .algorithm(JWSAlgorithm.RS256)
+                .generate();
+    }
+
+    private <K extends JWK> K store(K key, Instant activatesAt, Instant retiresAt) {
+        keys.add(JwkKey.builder()
+                .kid(key.getKeyID())
+                .algorithm(key.getAlgorithm().getName())
+                .publicJwk(key.toPublicJWK().toJSONString())
+                .privateJwk(encryptor.encrypt(key.toJSONString().getBytes(StandardCharsets.UTF_8)))
+                .activatesAt(activatesAt)
+                .retiresAt(retiresAt)
+                .expiresAt(retiresAt.plus(Duration.ofDays(1)))
+                .build());
+        keys.sort((a, b) -> b.getActivatesAt().compareTo(a.getActivatesAt()));
+        return key;
+    }
+}
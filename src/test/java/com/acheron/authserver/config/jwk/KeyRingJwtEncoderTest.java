@@ -0,0 +1,100 @@
+package com.acheron.authserver.config.jwk;
+
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("KeyRingJwtEncoder unit tests")
+class KeyRingJwtEncoderTest {
+
+    private final Map<String, JWK> activeKeys = new HashMap<>();
+    private final KeyRingJwtEncoder encoder = new KeyRingJwtEncoder(algorithm -> activeKeys.get(algorithm.getName()));
+
+    @ParameterizedTest
+    @EnumSource(JwkSigningAlgorithm.class)
+    @DisplayName("tokens verify with the active key and carry its kid")
+    void encode_signsWithActiveKey(JwkSigningAlgorithm algorithm) throws Exception {
+        JWK key = activate(algorithm, "key-1");
+
+        Jwt jwt = encoder.encode(parameters(JwsHeader.with(algorithm).build()));
+
+        SignedJWT parsed = SignedJWT.parse(jwt.getTokenValue());
+        assertThat(parsed.verify(verifier(key))).isTrue();
+        assertThat(parsed.getHeader().getAlgorithm().getName()).isEqualTo(algorithm.getName());
+        assertThat(parsed.getHeader().getKeyID()).isEqualTo("key-1");
+        assertThat(parsed.getJWTClaimsSet().getSubject()).isEqualTo("alice");
+        assertThat(parsed.getJWTClaimsSet().getStringListClaim("roles")).containsExactly("USER");
+        assertThat(jwt.getHeaders()).containsEntry("kid", "key-1");
+        assertThat(jwt.getIssuedAt()).isEqualTo(Instant.ofEpochSecond(1_700_000_000));
+    }
+
+    @Test
+    @DisplayName("a rotated key replaces the cached signer and header")
+    void encode_followsRotation() throws Exception {
+        activate(JwkSigningAlgorithm.ES256, "old");
+        JwtEncoderParameters parameters = parameters(JwsHeader.with(JwkSigningAlgorithm.ES256).build());
+        encoder.encode(parameters);
+
+        JWK next = activate(JwkSigningAlgorithm.ES256, "new");
+        SignedJWT parsed = SignedJWT.parse(encoder.encode(parameters).getTokenValue());
+
+        assertThat(parsed.getHeader().getKeyID()).isEqualTo("new");
+        assertThat(parsed.verify(verifier(next))).isTrue();
+    }
+
+    @Test
+    @DisplayName("headers added by customizers end up in the token")
+    void encode_keepsCustomHeaders() throws Exception {
+        activate(JwkSigningAlgorithm.RS256, "key-1");
+        encoder.encode(parameters(JwsHeader.with(JwkSigningAlgorithm.RS256).build()));
+
+        Jwt jwt = encoder.encode(parameters(JwsHeader.with(JwkSigningAlgorithm.RS256).type("at+jwt").header("x-tenant", "acme").build()));
+
+        SignedJWT parsed = SignedJWT.parse(jwt.getTokenValue());
+        assertThat(parsed.getHeader().getType().getType()).isEqualTo("at+jwt");
+        assertThat(parsed.getHeader().getCustomParam("x-tenant")).isEqualTo("acme");
+    }
+
+    private JWK activate(JwkSigningAlgorithm algorithm, String kid) {
+        JWK key = algorithm.generate(kid);
+        activeKeys.put(algorithm.getName(), key);
+        return key;
+    }
+
+    private static JWSVerifier verifier(JWK key) throws Exception {
+        return switch (key.getKeyType().getValue()) {
+            case "RSA" -> new RSASSAVerifier(key.toRSAKey().toPublicJWK());
+            case "EC" -> new ECDSAVerifier(key.toECKey().toPublicJWK());
+            default -> new Ed25519Verifier(key.toOctetKeyPair().toPublicJWK());
+        };
+    }
+
+    private static JwtEncoderParameters parameters(JwsHeader header) {
+        Instant issuedAt = Instant.ofEpochSecond(1_700_000_000);
+        return JwtEncoderParameters.from(header, JwtClaimsSet.builder()
+                .issuer("https://auth.example.com")
+                .subject("alice")
+                .issuedAt(issuedAt)
+                .expiresAt(issuedAt.plusSeconds(300))
+                .claim("roles", List.of("USER"))
+                .build());
+    }
+}
@@ -0,0 +1,133 @@
+package com.acheron.authserver.config.throttle;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LoginThrottle unit tests")
+class LoginThrottleTest {
+
+    @Mock private StringRedisTemplate redis;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("a bucket admits its capacity at once, then refills one token per interval")
+    void tokenBucket_refillsEvenly() {
+        TokenBuckets buckets = new TokenBuckets(16, 3, Duration.ofSeconds(3));
+        long second = Duration.ofSeconds(1).toNanos();
+
+        assertThat(buckets.tryAcquire("k", 0)).isZero();
+        assertThat(buckets.tryAcquire("k", 0)).isZero();
+        assertThat(buckets.tryAcquire("k", 0)).isZero();
+        assertThat(buckets.tryAcquire("k", 0)).isEqualTo(second);
+
+        assertThat(buckets.tryAcquire("k", second)).isZero();
+        assertThat(buckets.tryAcquire("k", second)).isEqualTo(second);
+    }
+
+    @Test
+    @DisplayName("a username attacked from many IPs is dropped once its own bucket is empty")
+    void acquire_limitsUsernameAcrossIps() {
+        LoginThrottle throttle = throttle(false);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(throttle.acquire("10.0.0." + i, "Alice")).isNull();
+        }
+
+        assertThat(throttle.acquire("10.0.1.1", " alice ")).isPositive();
+        assertThat(throttle.acquire("10.0.1.1", "bob")).isNull();
+        assertThat(count("dropped", "username")).isEqualTo(1.0);
+        assertThat(count("admitted", "none")).isEqualTo(11.0);
+    }
+
+    @Test
+    @DisplayName("an IP spraying usernames is dropped before any username bucket is charged")
+    void acquire_limitsIpAcrossUsernames() {
+        LoginThrottle throttle = throttle(false);
+
+        for (int i = 0; i < 30; i++) {
+            assertThat(throttle.acquire("10.0.0.1", "user" + i)).isNull();
+        }
+
+        assertThat(throttle.acquire("10.0.0.1", "victim")).isPositive();
+        assertThat(count("dropped", "ip")).isEqualTo(1.0);
+        for (int i = 0; i < 10; i++) {
+            assertThat(throttle.acquire("10.0.0.2", "victim")).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("draining many usernames never charges the bucket of another account")
+    void acquire_usernameSprayDoesNotLockOutOthers() {
+        LoginThrottle throttle = throttle(false);
+
+        for (int i = 0; i < 20_000; i++) {
+            String ip = "10." + (i >> 16) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+            for (int attempt = 0; attempt < 11; attempt++) {
+                throttle.acquire(ip, "sprayed" + i);
+            }
+        }
+
+        assertThat(count("dropped", "username")).isEqualTo(20_000.0);
+        assertThat(throttle.acquire("192.168.0.1", "victim")).isNull();
+    }
+
+    @Test
+    @DisplayName("a cluster-wide rejection from Redis drains the local bucket")
+    @SuppressWarnings("unchecked")
+    void acquire_drainsLocalBucketOnSharedRejection() {
+        LoginThrottle throttle = throttle(true);
+        given(redis.execute(any(RedisScript.class), eq(List.of("auth:login-throttle:ip:10.0.0.1")), any(Object[].class)))
+                .willReturn(0L);
+        given(redis.execute(any(RedisScript.class), eq(List.of("auth:login-throttle:user:alice")), any(Object[].class)))
+                .willReturn(120_000L);
+
+        assertThat(throttle.acquire("10.0.0.1", "alice")).isEqualTo(Duration.ofMinutes(2));
+        assertThat(throttle.acquire("10.0.0.2", "alice")).isGreaterThan(Duration.ofSeconds(100));
+
+        verify(redis, times(1)).execute(any(RedisScript.class), eq(List.of("auth:login-throttle:user:alice")), any(Object[].class));
+        assertThat(count("dropped", "username")).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("each Redis bucket is its own single-key call, and an IP rejection skips the username")
+    @SuppressWarnings("unchecked")
+    void acquire_chargesSharedBucketsOneKeyAtATime() {
+        LoginThrottle throttle = throttle(true);
+        given(redis.execute(any(RedisScript.class), eq(List.of("auth:login-throttle:ip:10.0.0.1")), any(Object[].class)))
+                .willReturn(30_000L);
+
+        assertThat(throttle.acquire("10.0.0.1", "alice")).isEqualTo(Duration.ofSeconds(30));
+
+        verify(redis, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        assertThat(count("dropped", "ip")).isEqualTo(1.0);
+    }
+
+    private LoginThrottle throttle(boolean redisEnabled) {
+        return new LoginThrottle(redis, meterRegistry, 100_000,
+                30, Duration.ofMinutes(1), 10, Duration.ofMinutes(5), redisEnabled);
+    }
+
+    private double count(String result, String limit) {
+        return meterRegistry.get("auth.login.throttle.requests").tag("result", result).tag("limit", limit)
+                .counter().count();
+    }
+}
@@ -0,0 +1,106 @@
+package com.acheron.authserver.service;
+
+import com.acheron.authserver.dto.util.TokenVersionRotatedEvent;
+import com.acheron.authserver.dto.util.UserDetailsChangedEvent;
+import com.acheron.authserver.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TokenVersionResolver unit tests")
+class TokenVersionResolverTest {
+
+    @Mock private UserRepository userRepository;
+    @Mock private StringRedisTemplate redis;
+    @Mock private RedisMessageListenerContainer listenerContainer;
+
+    private TokenVersionResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new TokenVersionResolver(userRepository, redis, listenerContainer,
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    @DisplayName("repeated lookups read the version column once")
+    void resolve_cachesVersion() {
+        UUID version = UUID.randomUUID();
+        given(userRepository.findTokenVersionByUsername("alice")).willReturn(Optional.of(version));
+
+        assertThat(resolver.resolve("alice")).contains(version);
+        assertThat(resolver.resolve("alice")).contains(version);
+
+        verify(userRepository, times(1)).findTokenVersionByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("unknown principals are not cached")
+    void resolve_doesNotCacheMisses() {
+        given(userRepository.findTokenVersionByUsername("ghost")).willReturn(Optional.empty());
+
+        assertThat(resolver.resolve("ghost")).isEmpty();
+        assertThat(resolver.resolve("ghost")).isEmpty();
+
+        verify(userRepository, times(2)).findTokenVersionByUsername("ghost");
+    }
+
+    @Test
+    @DisplayName("rotation evicts locally and broadcasts the principal")
+    void onTokenVersionRotated_evictsAndPublishes() {
+        UUID before = UUID.randomUUID();
+        UUID after = UUID.randomUUID();
+        given(userRepository.findTokenVersionByUsername("alice")).willReturn(Optional.of(before), Optional.of(after));
+        resolver.resolve("alice");
+
+        resolver.onTokenVersionRotated(new TokenVersionRotatedEvent("alice"));
+
+        assertThat(resolver.resolve("alice")).contains(after);
+        verify(redis).convertAndSend("auth:token-version:invalidate", "alice");
+    }
+
+    @Test
+    @DisplayName("a deleted or renamed user is looked up anew and broadcast")
+    void onUserDetailsChanged_evictsAndPublishes() {
+        given(userRepository.findTokenVersionByUsername("alice"))
+                .willReturn(Optional.of(UUID.randomUUID()), Optional.empty());
+        resolver.resolve("alice");
+
+        resolver.onUserDetailsChanged(new UserDetailsChangedEvent("alice"));
+
+        assertThat(resolver.resolve("alice")).isEmpty();
+        verify(redis).convertAndSend("auth:token-version:invalidate", "alice");
+    }
+
+    @Test
+    @DisplayName("a lookup racing a rotation does not cache the version it read")
+    void resolve_skipsFillWhenInvalidatedMeanwhile() {
+        UUID stale = UUID.randomUUID();
+        UUID fresh = UUID.randomUUID();
+        given(userRepository.findTokenVersionByUsername("alice"))
+                .willAnswer(invocation -> {
+                    resolver.invalidate("alice");
+                    return Optional.of(stale);
+                })
+                .willReturn(Optional.of(fresh));
+
+        assertThat(resolver.resolve("alice")).contains(stale);
+        assertThat(resolver.resolve("alice")).contains(fresh);
+    }
+}
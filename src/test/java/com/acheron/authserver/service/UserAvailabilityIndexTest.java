@@ -0,0 +1,106 @@
+package com.acheron.authserver.service;
+
+import com.acheron.authserver.dto.util.UserIdentifiersChangedEvent;
+import com.acheron.authserver.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserAvailabilityIndex unit tests")
+class UserAvailabilityIndexTest {
+
+    @Mock private UserRepository userRepository;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private StringRedisTemplate redis;
+    @Mock private RedisMessageListenerContainer listenerContainer;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("the Bloom filter never forgets a value and rarely claims one it never saw")
+    void bloomFilter_hasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i)).isTrue();
+            if (filter.mightContain("other" + i)) falsePositives++;
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    @DisplayName("until the first build every check goes to the database")
+    void taken_queriesDatabaseBeforeBuild() {
+        UserAvailabilityIndex index = index();
+        given(userRepository.existsUserByUsername("alice")).willReturn(true);
+
+        assertThat(index.usernameTaken("alice")).isTrue();
+
+        verify(userRepository).existsUserByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("after a build only identifiers the filter may hold reach the database")
+    void taken_answersAbsentIdentifiersFromFilter() {
+        UserAvailabilityIndex index = builtIndex();
+        index.onIdentifiersChanged(UserIdentifiersChangedEvent.claimed("alice", "alice@example.com"));
+        given(userRepository.existsUserByEmail("alice@example.com")).willReturn(true);
+
+        assertThat(index.usernameTaken("bob")).isFalse();
+        assertThat(index.emailTaken("alice@example.com")).isTrue();
+
+        verify(userRepository, never()).existsUserByUsername(anyString());
+        assertThat(meterRegistry.get("auth.user.availability.requests").tag("identifier", "username")
+                .tag("result", "filtered").counter().count()).isEqualTo(1.0);
+        verify(redis).convertAndSend(UserAvailabilityIndex.CHANNEL, "alice\nalice@example.com");
+    }
+
+    @Test
+    @DisplayName("released identifiers make the next refresh rebuild the filters")
+    void refresh_rebuildsAfterRelease() {
+        UserAvailabilityIndex index = builtIndex();
+
+        index.refresh();
+        index.onIdentifiersChanged(UserIdentifiersChangedEvent.released("alice", "alice@example.com"));
+        index.refresh();
+
+        verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Long.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private UserAvailabilityIndex builtIndex() {
+        given(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).willReturn(0L);
+        given(jdbcTemplate.query(anyString(), any(ResultSetExtractor.class), any(Object[].class))).willReturn(0);
+        UserAvailabilityIndex index = index();
+        index.afterSingletonsInstantiated();
+        return index;
+    }
+
+    private UserAvailabilityIndex index() {
+        return new UserAvailabilityIndex(userRepository, jdbcTemplate, redis, listenerContainer, meterRegistry,
+                1000, 0.01, Duration.ofHours(1), 100);
+    }
+}
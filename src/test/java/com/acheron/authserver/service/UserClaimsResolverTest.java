@@ -0,0 +1,120 @@
+package com.acheron.authserver.service;
+
+import com.acheron.authserver.dto.util.UserClaims;
+import com.acheron.authserver.dto.util.UserDetailsChangedEvent;
+import com.acheron.authserver.entity.Role;
+import com.acheron.authserver.entity.User;
+import com.acheron.authserver.exception.AppException;
+import com.acheron.authserver.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserClaimsResolver unit tests")
+class UserClaimsResolverTest {
+
+    @Mock private UserRepository userRepository;
+    @Mock private TokenVersionResolver tokenVersionResolver;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private UserClaimsResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new UserClaimsResolver(userRepository, tokenVersionResolver, meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    @DisplayName("a form-login principal only supplies the username; its stale role is ignored")
+    void resolve_formLoginPrincipalUsesStoredRole() {
+        User user = User.builder().id(UUID.randomUUID()).username("alice").email("alice@example.com").role(Role.ADMIN).build();
+        UUID version = UUID.randomUUID();
+        given(userRepository.findClaimsByUsername("alice"))
+                .willReturn(Optional.of(new UserClaims(user.getId(), "alice", Role.USER, version)));
+
+        Optional<UserClaims> claims = resolver.resolve(UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+
+        assertThat(claims).contains(new UserClaims(user.getId(), "alice", Role.USER, version));
+    }
+
+    @Test
+    @DisplayName("a role change evicts the cached claims, so the next token carries the new role")
+    void resolve_roleChangeEvictsCachedClaims() {
+        User user = User.builder().id(UUID.randomUUID()).username("alice").email("alice@example.com").role(Role.ADMIN).build();
+        UUID version = UUID.randomUUID();
+        given(userRepository.findClaimsByUsername("alice")).willReturn(
+                Optional.of(new UserClaims(user.getId(), "alice", Role.ADMIN, version)),
+                Optional.of(new UserClaims(user.getId(), "alice", Role.USER, version)));
+        given(tokenVersionResolver.resolve("alice")).willReturn(Optional.of(version));
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+
+        assertThat(resolver.resolve(authentication)).get().extracting(UserClaims::role).isEqualTo(Role.ADMIN);
+        assertThat(resolver.resolve(authentication)).get().extracting(UserClaims::role).isEqualTo(Role.ADMIN);
+
+        resolver.onUserDetailsChanged(new UserDetailsChangedEvent("alice"));
+
+        assertThat(resolver.resolve(authentication)).get().extracting(UserClaims::role).isEqualTo(Role.USER);
+        verify(userRepository, times(2)).findClaimsByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("a federated principal is read from the database once, then from the cache")
+    void resolve_federatedPrincipalIsCached() {
+        UserClaims stored = new UserClaims(UUID.randomUUID(), "octocat", Role.USER, UUID.randomUUID());
+        UUID rotated = UUID.randomUUID();
+        given(userRepository.findClaimsByUsername("octocat")).willReturn(Optional.of(stored));
+        given(tokenVersionResolver.resolve("octocat")).willReturn(Optional.of(rotated));
+        Authentication authentication = federated(Map.of("login", "octocat", "id", 1));
+
+        assertThat(resolver.resolve(authentication)).contains(stored);
+        assertThat(resolver.resolve(authentication)).contains(new UserClaims(stored.userId(), "octocat", Role.USER, rotated));
+
+        verify(userRepository, times(1)).findClaimsByUsername("octocat");
+        assertThat(meterRegistry.get("auth.token.claims.resolve").tag("source", "database").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.token.claims.resolve").tag("source", "cache").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a deleted user fails token issuance")
+    void resolve_unknownUser() {
+        given(userRepository.findClaimsByUsername("ghost")).willReturn(Optional.empty());
+
+        assertThatThrownBy(() -> resolver.resolve(federated(Map.of("name", "ghost", "id", 2))))
+                .isInstanceOf(AppException.class);
+    }
+
+    @Test
+    @DisplayName("principals that are not users get no claims")
+    void resolve_otherPrincipal() {
+        assertThat(resolver.resolve(new TestingAuthenticationToken("client", null))).isEmpty();
+    }
+
+    private static Authentication federated(Map<String, Object> attributes) {
+        DefaultOAuth2User user = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("OAUTH2_USER"), attributes, "id");
+        return new OAuth2AuthenticationToken(user, List.copyOf(user.getAuthorities()), "github");
+    }
+}
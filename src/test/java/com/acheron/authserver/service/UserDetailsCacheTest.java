@@ -0,0 +1,112 @@
+package com.acheron.authserver.service;
+
+import com.acheron.authserver.dto.util.UserCredentials;
+import com.acheron.authserver.dto.util.UserDetailsChangedEvent;
+import com.acheron.authserver.entity.Role;
+import com.acheron.authserver.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserDetailsCache unit tests")
+class UserDetailsCacheTest {
+
+    @Mock private UserRepository userRepository;
+    @Mock private StringRedisTemplate redis;
+    @Mock private RedisMessageListenerContainer listenerContainer;
+    @Mock private HashOperations<String, Object, Object> hashOperations;
+    @Mock private ValueOperations<String, String> valueOperations;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserCredentials alice = new UserCredentials(UUID.randomUUID(), "alice", "{bcrypt}hash",
+            Role.USER, true, false, false);
+
+    @Test
+    @DisplayName("repeated logins read the credentials projection once")
+    void load_cachesCredentials() {
+        UserDetailsCache cache = cache(false);
+        given(userRepository.findCredentialsByUsername("alice")).willReturn(Optional.of(alice));
+
+        assertThat(cache.load("alice")).contains(alice);
+        assertThat(cache.load("alice")).contains(alice);
+
+        verify(userRepository, times(1)).findCredentialsByUsername("alice");
+        assertThat(meterRegistry.get("auth.user_details.cache.requests").tag("tier", "local").tag("result", "hit")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("unknown usernames are not cached")
+    void load_doesNotCacheMisses() {
+        UserDetailsCache cache = cache(false);
+
+        assertThat(cache.load("ghost")).isEmpty();
+        assertThat(cache.load("ghost")).isEmpty();
+
+        verify(userRepository, times(2)).findCredentialsByUsername("ghost");
+    }
+
+    @Test
+    @DisplayName("an entry filled by another node is served from Redis without a query")
+    void load_fromRedis() {
+        UserDetailsCache cache = cache(true);
+        given(redis.opsForHash()).willReturn(hashOperations);
+        given(hashOperations.entries("auth:user-details:user:alice")).willReturn(Map.of(
+                "id", alice.userId().toString(), "password", "{bcrypt}hash", "role", "USER",
+                "enabled", "true", "locked", "true", "mfa", "false"));
+
+        Optional<UserCredentials> loaded = cache.load("alice");
+
+        assertThat(loaded).hasValueSatisfying(credentials -> {
+            assertThat(credentials.getPassword()).isEqualTo("{bcrypt}hash");
+            assertThat(credentials.isAccountNonLocked()).isFalse();
+            assertThat(credentials.isEnabled()).isTrue();
+        });
+        verify(userRepository, never()).findCredentialsByUsername(any());
+    }
+
+    @Test
+    @DisplayName("a user change evicts the entry on every node and tombstones the shared copy")
+    void onUserDetailsChanged_invalidatesEverywhere() {
+        UserDetailsCache cache = cache(true);
+        given(redis.opsForHash()).willReturn(hashOperations);
+        given(redis.opsForValue()).willReturn(valueOperations);
+        given(userRepository.findCredentialsByUsername("alice")).willReturn(Optional.of(alice));
+        cache.load("alice");
+
+        cache.onUserDetailsChanged(new UserDetailsChangedEvent("alice"));
+        cache.load("alice");
+
+        verify(userRepository, times(2)).findCredentialsByUsername("alice");
+        verify(valueOperations).set(eq("auth:user-details:evicted:alice"), anyString(), eq(Duration.ofMinutes(1)));
+        verify(redis).delete("auth:user-details:user:alice");
+        verify(redis).convertAndSend(UserDetailsCache.CHANNEL, "alice");
+    }
+
+    private UserDetailsCache cache(boolean redisEnabled) {
+        return new UserDetailsCache(userRepository, redis, listenerContainer, meterRegistry,
+                100, Duration.ofMinutes(5), redisEnabled);
+    }
+}
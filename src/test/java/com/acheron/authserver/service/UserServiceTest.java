@@ -1,10 +1,16 @@
 package com.acheron.authserver.service;
 
+import com.acheron.authserver.dto.response.CursorPage;
+import com.acheron.authserver.dto.response.LoginHistoryEntry;
+import com.acheron.authserver.dto.response.UserDetailResponse;
+import com.acheron.authserver.dto.response.UserSummary;
+import com.acheron.authserver.dto.util.PageCursor;
+import com.acheron.authserver.dto.util.UserDetailRow;
+import com.acheron.authserver.dto.util.UserDetailsChangedEvent;
 import com.acheron.authserver.entity.Role;
 import com.acheron.authserver.entity.Token;
 import com.acheron.authserver.entity.User;
 import com.acheron.authserver.exception.AppException;
-import com.acheron.authserver.repository.FederatedIdentityRepository;
 import com.acheron.authserver.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,10 +22,16 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,9 +39,13 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("UserService unit tests")
@@ -40,7 +56,8 @@ class UserServiceTest {
     @Mock private MailService mailService;
     @Mock private PasswordEncoder passwordEncoder;
     @Mock private com.acheron.authserver.mapper.UserMapper userMapper;
-    @Mock private FederatedIdentityRepository federatedIdentityRepository;
+    @Mock private UserDetailsCache userDetailsCache;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private UserService userService;
@@ -176,6 +193,7 @@ class UserServiceTest {
         given(userRepository.save(any())).willAnswer(inv -> inv.getArgument(0));
         User result = userService.setLocked(id, locked);
         assertThat(result.isLocked()).isEqualTo(locked);
+        verify(eventPublisher).publishEvent(new UserDetailsChangedEvent("testuser"));
     }
 
     @ParameterizedTest(name = "setEnabled({0}) sets enabled flag")
@@ -187,5 +205,152 @@ class UserServiceTest {
         given(userRepository.save(any())).willAnswer(inv -> inv.getArgument(0));
         User result = userService.setEnabled(id, enabled);
         assertThat(result.isEnabled()).isEqualTo(enabled);
+        verify(eventPublisher).publishEvent(new UserDetailsChangedEvent("testuser"));
     }
-}
\ No newline at end of file
+
+    // ── findDetail ───────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("findDetail folds the joined rows into the user and their login history")
+    void findDetail_foldsRowsIntoHistory() {
+        UUID id = UUID.randomUUID();
+        LocalDateTime newest = LocalDateTime.of(2026, 1, 2, 10, 0);
+        LocalDateTime older = newest.minusDays(1);
+        List<UserDetailRow> rows = List.of(detailRow(id, newest, "10.0.0.1"), detailRow(id, older, "10.0.0.2"));
+        given(userRepository.findDetailRows(id, 10)).willReturn(rows);
+
+        UserDetailResponse detail = userService.findDetail(id, 10);
+
+        assertThat(detail.user().username()).isEqualTo("testuser");
+        assertThat(detail.user().locked()).isTrue();
+        assertThat(detail.loginHistory()).extracting(LoginHistoryEntry::ipAddress)
+                .containsExactly("10.0.0.1", "10.0.0.2");
+    }
+
+    @Test
+    @DisplayName("findDetail returns an empty history for a user who never logged in")
+    void findDetail_withoutLogins() {
+        UUID id = UUID.randomUUID();
+        List<UserDetailRow> rows = List.of(detailRow(id, null, null));
+        given(userRepository.findDetailRows(id, 10)).willReturn(rows);
+
+        assertThat(userService.findDetail(id, 10).loginHistory()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findDetail throws AppException when the user does not exist")
+    void findDetail_throwsWhenMissing() {
+        given(userRepository.findDetailRows(any(), anyInt())).willReturn(List.of());
+
+        AppException ex = assertThrows(AppException.class, () -> userService.findDetail(UUID.randomUUID(), 10));
+        assertThat(ex.getStatus()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    // ── findAllPaged ─────────────────────────────────────────────────────────
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "Alice     | false | %alice%",
+            "al        | false | %al%",
+            "al        | true  | al%",
+            "alice     | true  | alice%",
+            "50%_off\\ | false | %50\\%\\_off\\\\%",
+    })
+    @DisplayName("searchPattern lower-cases the term, escapes wildcards and anchors only prefix searches")
+    void searchPattern_buildsEscapedLikePattern(String term, boolean prefix, String expected) {
+        assertThat(UserService.searchPattern(term, prefix)).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("findAllPaged skips the count when the first page is not full")
+    void findAllPaged_skipsCountForPartialFirstPage() {
+        given(userRepository.searchSummaries("%alice%", PageRequest.of(0, 20))).willReturn(List.of(summary()));
+
+        Page<UserSummary> page = userService.findAllPaged(" alice ", false, PageRequest.of(0, 20));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        verify(userRepository, never()).countMatchesUpTo(anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("findAllPaged reports the capped count when the page is full")
+    void findAllPaged_reportsCappedTotal() {
+        given(userRepository.findSummaries(PageRequest.of(0, 2))).willReturn(List.of(summary(), summary()));
+        given(userRepository.countActiveUpTo(anyInt())).willReturn(1_000L);
+
+        Page<UserSummary> page = userService.findAllPaged(null, false, PageRequest.of(0, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(1_000L);
+        assertThat(page.getTotalPages()).isEqualTo(500);
+    }
+
+    // ── findPage ─────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("findPage fetches one extra row and resumes the next page after the last one returned")
+    void findPage_returnsCursorOfLastRow() {
+        Instant now = Instant.parse("2026-01-02T10:00:00.123456Z");
+        List<UserSummary> rows = List.of(summary(now), summary(now.minusSeconds(1)), summary(now.minusSeconds(2)));
+        given(userRepository.findSummariesBefore(PageCursor.START.timestamp(), PageCursor.START.uuid(), Limit.of(3)))
+                .willReturn(rows);
+
+        CursorPage<UserSummary> page = userService.findPage(null, false, PageCursor.START, 2);
+
+        assertThat(page.items()).containsExactly(rows.get(0), rows.get(1));
+        assertThat(PageCursor.decode(page.nextCursor()))
+                .isEqualTo(new PageCursor(rows.get(1).createdAt(), rows.get(1).id().toString()));
+    }
+
+    @Test
+    @DisplayName("findPage searches from the cursor and has no next cursor on the last page")
+    void findPage_lastSearchPage() {
+        PageCursor cursor = new PageCursor(Instant.parse("2026-01-02T10:00:00Z"), UUID.randomUUID().toString());
+        given(userRepository.searchSummariesBefore("%alice%", cursor.timestamp(), cursor.uuid(), Limit.of(21)))
+                .willReturn(List.of(summary()));
+
+        CursorPage<UserSummary> page = userService.findPage("Alice", false, PageCursor.decode(cursor.encode()), 20);
+
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("a malformed cursor is rejected with 400")
+    void pageCursor_rejectsMalformedToken() {
+        AppException ex = assertThrows(AppException.class, () -> PageCursor.decode("not-a-cursor"));
+        assertThat(ex.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    // ── updatePassword ───────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("updatePassword stores the upgraded hash and evicts cached credentials")
+    void updatePassword_storesUpgradedHash() {
+        User result = (User) userService.updatePassword(testUser, "{bcrypt}$2a$12$upgraded");
+
+        assertThat(result.getPassword()).isEqualTo("{bcrypt}$2a$12$upgraded");
+        verify(userRepository).updatePasswordHash("testuser", "{bcrypt}$2a$12$upgraded");
+        verify(eventPublisher).publishEvent(new UserDetailsChangedEvent("testuser"));
+    }
+
+    private static UserSummary summary() {
+        return summary(Instant.now());
+    }
+
+    private static UserSummary summary(Instant createdAt) {
+        return new UserSummary(UUID.randomUUID(), "test@example.com", "testuser", true, true, false, false, Role.USER,
+                createdAt);
+    }
+
+    private static UserDetailRow detailRow(UUID id, LocalDateTime loginTimestamp, String ipAddress) {
+        UserDetailRow row = mock(UserDetailRow.class, withSettings().strictness(Strictness.LENIENT));
+        given(row.getId()).willReturn(id);
+        given(row.getUsername()).willReturn("testuser");
+        given(row.getEmail()).willReturn("test@example.com");
+        given(row.getLocked()).willReturn(true);
+        given(row.getRole()).willReturn(Role.USER);
+        given(row.getLoginTimestamp()).willReturn(loginTimestamp);
+        given(row.getIpAddress()).willReturn(ipAddress);
+        return row;
+    }
+}
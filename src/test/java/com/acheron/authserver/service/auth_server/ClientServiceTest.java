@@ -0,0 +1,79 @@
+package com.acheron.authserver.service.auth_server;
+
+import com.acheron.authserver.config.jwk.JwkKeyRing;
+import com.acheron.authserver.config.jwk.JwkSigningAlgorithm;
+import com.acheron.authserver.dto.request.ClientRegistrationRequest;
+import com.acheron.authserver.exception.AppException;
+import com.acheron.authserver.repository.JwkKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ClientService unit tests")
+class ClientServiceTest {
+
+    @Mock private RegisteredClientRepository clientRepository;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private PasswordEncoder passwordEncoder;
+    @Mock private JwkKeyRepository jwkKeyRepository;
+    @Mock private BytesEncryptor encryptor;
+
+    private ClientService clientService;
+
+    @BeforeEach
+    void setUp() {
+        JwkKeyRing keyRing = new JwkKeyRing(jwkKeyRepository, encryptor, List.of("ES256"));
+        clientService = new ClientService(clientRepository, jdbcTemplate, eventPublisher, passwordEncoder, keyRing);
+    }
+
+    @Test
+    @DisplayName("a client may be registered with an algorithm the key ring signs with")
+    void registerNewClientFromRequest_configuredAlgorithm() {
+        clientService.registerNewClientFromRequest(request("ES256"));
+
+        ArgumentCaptor<RegisteredClient> saved = ArgumentCaptor.forClass(RegisteredClient.class);
+        verify(clientRepository).save(saved.capture());
+        assertThat(JwkSigningAlgorithm.of(saved.getValue())).isEqualTo(JwkSigningAlgorithm.ES256);
+        assertThat(saved.getValue().getTokenSettings().getIdTokenSignatureAlgorithm()).isEqualTo(SignatureAlgorithm.ES256);
+    }
+
+    @Test
+    @DisplayName("an algorithm missing from app.jwk.algorithms — including the RS256 default — is a 400")
+    void registerNewClientFromRequest_unconfiguredAlgorithm() {
+        for (String algorithm : new String[] {"EdDSA", null}) {
+            AppException e = assertThrows(AppException.class,
+                    () -> clientService.registerNewClientFromRequest(request(algorithm)));
+
+            assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+            assertThat(e.getMessage()).contains("[ES256]");
+        }
+        verify(clientRepository, never()).save(any());
+    }
+
+    private static ClientRegistrationRequest request(String signingAlgorithm) {
+        return new ClientRegistrationRequest("spa-client", null, List.of("https://app.example.com/callback"),
+                List.of("openid"), true, false, 0, 0, signingAlgorithm, null);
+    }
+}
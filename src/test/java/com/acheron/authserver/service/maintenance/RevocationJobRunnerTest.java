@@ -0,0 +1,153 @@
+package com.acheron.authserver.service.maintenance;
+
+import com.acheron.authserver.config.authorization.RevocableOAuth2AuthorizationService;
+import com.acheron.authserver.config.authorization.RevocationTarget;
+import com.acheron.authserver.dto.util.AuthorizationsRevokedEvent;
+import com.acheron.authserver.entity.RevocationJob;
+import com.acheron.authserver.repository.RevocationJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RevocationJobRunner unit tests")
+class RevocationJobRunnerTest {
+
+    @Mock private RevocationJobRepository revocationJobRepository;
+    @Mock private RevocableOAuth2AuthorizationService authorizationService;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private PostgresLeaderElection leaderElection;
+    @Mock private TaskScheduler taskScheduler;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RevocationJobRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        runner = new RevocationJobRunner(revocationJobRepository, authorizationService, jdbcTemplate,
+                leaderElection, taskScheduler, eventPublisher, meterRegistry, 2, Duration.ZERO, 2, Duration.ofMinutes(1));
+        given(leaderElection.runIfLeader(anyString(), any())).willAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+        given(revocationJobRepository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("a principal job removes in chunks until a short one, then completes")
+    void poll_runsPrincipalJobInChunks() {
+        RevocationJob job = job(RevocationTarget.principal("alice"));
+        given(revocationJobRepository.findFirstByStatusInAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(anyCollection(), any()))
+                .willReturn(Optional.of(job), Optional.empty());
+        given(authorizationService.removeBatch(RevocationTarget.principal("alice"), 2))
+                .willReturn(List.of("a1", "a2"), List.of("a3", "a4"), List.of("a5"));
+        given(jdbcTemplate.update(anyString(), eq("alice"), eq(2))).willReturn(1);
+
+        runner.poll();
+
+        verify(authorizationService, times(3)).removeBatch(RevocationTarget.principal("alice"), 2);
+        assertThat(job.getStatus()).isEqualTo(RevocationJob.Status.COMPLETED);
+        assertThat(job.getAuthorizationsRemoved()).isEqualTo(5);
+        assertThat(job.getConsentsRemoved()).isEqualTo(1);
+        assertThat(job.getStartedAt()).isNotNull();
+        assertThat(job.getFinishedAt()).isNotNull();
+        verify(eventPublisher).publishEvent(new AuthorizationsRevokedEvent("alice"));
+        assertThat(jobs("completed")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("revoking everyone deletes consents without a target parameter")
+    void poll_runsAllJob() {
+        RevocationJob job = job(RevocationTarget.all());
+        given(revocationJobRepository.findFirstByStatusInAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(anyCollection(), any()))
+                .willReturn(Optional.of(job), Optional.empty());
+        given(authorizationService.removeBatch(RevocationTarget.all(), 2)).willReturn(List.of());
+        given(jdbcTemplate.update(anyString(), eq(2))).willReturn(0);
+
+        runner.poll();
+
+        assertThat(job.getStatus()).isEqualTo(RevocationJob.Status.COMPLETED);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("a failing store puts the job back with a backoff and keeps its progress")
+    void poll_retriesFailedJob() {
+        RevocationJob job = job(RevocationTarget.client("client-id"));
+        given(revocationJobRepository.findFirstByStatusInAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(anyCollection(), any()))
+                .willReturn(Optional.of(job), Optional.empty());
+        given(authorizationService.removeBatch(RevocationTarget.client("client-id"), 2))
+                .willReturn(List.of("a1", "a2"))
+                .willThrow(new QueryTimeoutException("statement timeout"));
+
+        Instant before = Instant.now();
+        runner.poll();
+
+        assertThat(job.getStatus()).isEqualTo(RevocationJob.Status.PENDING);
+        assertThat(job.getAttempts()).isEqualTo(1);
+        assertThat(job.getNextAttemptAt()).isAfterOrEqualTo(before.plus(Duration.ofMinutes(1)));
+        assertThat(job.getFinishedAt()).isNull();
+        assertThat(job.getAuthorizationsRemoved()).isEqualTo(2);
+        assertThat(job.getError()).isEqualTo("statement timeout");
+        assertThat(jobs("retried")).isEqualTo(1.0);
+        verify(jdbcTemplate, never()).update(anyString(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("a job that fails its last attempt is failed for good and counted as exhausted")
+    void poll_failsJobAfterMaxAttempts() {
+        RevocationJob job = job(RevocationTarget.client("client-id"));
+        job.setAttempts(1);
+        given(revocationJobRepository.findFirstByStatusInAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(anyCollection(), any()))
+                .willReturn(Optional.of(job), Optional.empty());
+        given(authorizationService.removeBatch(RevocationTarget.client("client-id"), 2))
+                .willThrow(new QueryTimeoutException("statement timeout"));
+
+        runner.poll();
+
+        assertThat(job.getStatus()).isEqualTo(RevocationJob.Status.FAILED);
+        assertThat(job.getAttempts()).isEqualTo(2);
+        assertThat(job.getFinishedAt()).isNotNull();
+        assertThat(jobs("exhausted")).isEqualTo(1.0);
+        assertThat(jobs("retried")).isZero();
+    }
+
+    private double jobs(String result) {
+        return meterRegistry.get("auth.revocation.jobs").tag("result", result).counter().count();
+    }
+
+    private static RevocationJob job(RevocationTarget target) {
+        return RevocationJob.builder()
+                .scope(target.scope())
+                .target(target.value())
+                .status(RevocationJob.Status.PENDING)
+                .createdAt(Instant.now())
+                .nextAttemptAt(Instant.now())
+                .build();
+    }
+}